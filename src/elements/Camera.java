@@ -1,13 +1,10 @@
 package elements;
 
-import geometries.Intersectable;
-import geometries.Plane;
 import primitives.*;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
 
 import static primitives.Util.isZero;
 
@@ -15,7 +12,6 @@ import static primitives.Util.isZero;
  * The Camera class
  */
 public class Camera {
-    private static final Random rnd = new Random();
     /**
      * The origin of the camera
      */
@@ -26,6 +22,13 @@ public class Camera {
     Vector _vTo;
     Vector _vUp;
     Vector _vRight;
+    /**
+     * depth of field: the diameter of the aperture (0 - a pinhole camera), the distance of the focal
+     * plane from the camera and the amount of rays through the aperture
+     */
+    private double _aperture = 0;
+    private double _focalDistance;
+    private int _apertureSamples;
 
     /**
      * constructor of the camera
@@ -84,6 +87,311 @@ public class Camera {
         return new Vector(_vRight);
     }
 
+    /**
+     * The view plane of the camera prepared for a render - the direction of the ray through any point of
+     * the view plane is calculated from a few numbers by fused multiply-adds straight into the vector of
+     * the ray, with no other objects
+     */
+    public static class Frame {
+        /**
+         * the origin of the rays
+         */
+        private final Point3D _origin;
+        /**
+         * the direction to the upper left corner of the view plane, and the steps of a pixel to the
+         * right and downwards (x, y, z of each)
+         */
+        private final double _cornerX, _cornerY, _cornerZ;
+        private final double _rightX, _rightY, _rightZ;
+        private final double _downX, _downY, _downZ;
+        private final int _nX, _nY;
+
+        private Frame(Camera camera, int nX, int nY, double screenDistance, double screenWidth, double screenHeight) {
+            if (isZero(screenDistance)) {
+                throw new IllegalArgumentException("distance cannot be 0");
+            }
+            _origin = camera._p0;
+            _nX = nX;
+            _nY = nY;
+            double Rx = screenWidth / nX, Ry = screenHeight / nY;
+            Point3D to = camera._vTo.get_head(), right = camera._vRight.get_head(), up = camera._vUp.get_head();
+            _rightX = right.get_x().get() * Rx;
+            _rightY = right.get_y().get() * Rx;
+            _rightZ = right.get_z().get() * Rx;
+            _downX = -up.get_x().get() * Ry;
+            _downY = -up.get_y().get() * Ry;
+            _downZ = -up.get_z().get() * Ry;
+            _cornerX = to.get_x().get() * screenDistance - _rightX * nX / 2d - _downX * nY / 2d;
+            _cornerY = to.get_y().get() * screenDistance - _rightY * nX / 2d - _downY * nY / 2d;
+            _cornerZ = to.get_z().get() * screenDistance - _rightZ * nX / 2d - _downZ * nY / 2d;
+        }
+
+        /**
+         * construct the ray through the center of a pixel
+         *
+         * @param column the column of the pixel
+         * @param row    the row of the pixel
+         * @return the ray
+         */
+        public Ray constructRayThroughPixel(int column, int row) {
+            return constructRay(column + 0.5, row + 0.5);
+        }
+
+        /**
+         * construct the ray through a point of the view plane
+         *
+         * @param x the column of the point - the column of a pixel and the part of the pixel
+         * @param y the row of the point - the row of a pixel and the part of the pixel
+         * @return the ray
+         */
+        public Ray constructRay(double x, double y) {
+            double dx = Math.fma(y, _downX, Math.fma(x, _rightX, _cornerX));
+            double dy = Math.fma(y, _downY, Math.fma(x, _rightY, _cornerY));
+            double dz = Math.fma(y, _downZ, Math.fma(x, _rightZ, _cornerZ));
+            double scale = scale(dx, dy, dz);
+            return Util.isFastMath() ? new Ray(_origin, dx * scale, dy * scale, dz * scale)
+                    : new Ray(_origin, dx / scale, dy / scale, dz / scale);
+        }
+
+        /**
+         * construct the ray of a normalized direction in a buffer of the frame
+         *
+         * @param buffer the directions
+         * @param offset the index of the x of the direction
+         * @return the ray
+         */
+        public Ray constructRay(double[] buffer, int offset) {
+            return new Ray(_origin, buffer[offset], buffer[offset + 1], buffer[offset + 2]);
+        }
+
+        /**
+         * write the normalized direction through a point of the view plane to a buffer
+         *
+         * @param x      the column of the point
+         * @param y      the row of the point
+         * @param buffer the directions
+         * @param offset the index of the x of the direction
+         */
+        public void direction(double x, double y, double[] buffer, int offset) {
+            buffer[offset] = Math.fma(y, _downX, Math.fma(x, _rightX, _cornerX));
+            buffer[offset + 1] = Math.fma(y, _downY, Math.fma(x, _rightY, _cornerY));
+            buffer[offset + 2] = Math.fma(y, _downZ, Math.fma(x, _rightZ, _cornerZ));
+            normalize(buffer, offset);
+        }
+
+        /**
+         * write the normalized directions through the centers of a tile of pixels to a buffer, row after
+         * row - a step to the next pixel is a fused multiply-add of each component
+         *
+         * @param column the left column of the tile
+         * @param row    the top row of the tile
+         * @param width  the amount of columns of the tile
+         * @param height the amount of rows of the tile
+         * @param buffer the directions - 3 per pixel
+         */
+        public void tileDirections(int column, int row, int width, int height, double[] buffer) {
+            int offset = 0;
+            for (int i = row; i < row + height; ++i) {
+                double x = Math.fma(i + 0.5, _downX, Math.fma(column + 0.5, _rightX, _cornerX));
+                double y = Math.fma(i + 0.5, _downY, Math.fma(column + 0.5, _rightY, _cornerY));
+                double z = Math.fma(i + 0.5, _downZ, Math.fma(column + 0.5, _rightZ, _cornerZ));
+                for (int j = 0; j < width; ++j, offset += 3) {
+                    buffer[offset] = Math.fma(j, _rightX, x);
+                    buffer[offset + 1] = Math.fma(j, _rightY, y);
+                    buffer[offset + 2] = Math.fma(j, _rightZ, z);
+                    normalize(buffer, offset);
+                }
+            }
+        }
+
+        /**
+         * write the normalized directions through the centers of the pixels of a row to a buffer
+         *
+         * @param row    the row
+         * @param buffer the directions - 3 per column
+         */
+        public void rowDirections(int row, double[] buffer) {
+            tileDirections(0, row, _nX, 1, buffer);
+        }
+
+        /**
+         * write the normalized directions through the corners of the pixels of a row (the upper left
+         * corners and the right edge) to a buffer
+         *
+         * @param row    the row of the corners - from 0 to the amount of rows
+         * @param buffer the directions - 3 per corner
+         */
+        public void cornerDirections(int row, double[] buffer) {
+            for (int column = 0, offset = 0; column <= _nX; ++column, offset += 3)
+                direction(column, row, buffer, offset);
+        }
+
+        /**
+         * normalize a direction in a buffer - as the vector is normalized (the components are
+         * multiplied by the reciprocal of the length in fast math mode)
+         */
+        private static void normalize(double[] buffer, int offset) {
+            double x = buffer[offset], y = buffer[offset + 1], z = buffer[offset + 2];
+            double scale = scale(x, y, z);
+            if (Util.isFastMath()) {
+                buffer[offset] = x * scale;
+                buffer[offset + 1] = y * scale;
+                buffer[offset + 2] = z * scale;
+            } else {
+                buffer[offset] = x / scale;
+                buffer[offset + 1] = y / scale;
+                buffer[offset + 2] = z / scale;
+            }
+        }
+
+        /**
+         * the factor of the normalization of a direction - the reciprocal of the length in fast math
+         * mode (the components are multiplied by it), otherwise the length (they are divided by it)
+         */
+        private static double scale(double x, double y, double z) {
+            if (Util.isFastMath())
+                return 1 / Math.sqrt(Math.fma(x, x, Math.fma(y, y, z * z)));
+            x = Util.alignZero(x);
+            y = Util.alignZero(y);
+            z = Util.alignZero(z);
+            return Math.sqrt(x * x + y * y + z * z);
+        }
+
+        /**
+         * get the amount of columns of the view plane
+         *
+         * @return the amount of pixels in a row
+         */
+        public int getNx() {
+            return _nX;
+        }
+
+        /**
+         * get the amount of rows of the view plane
+         *
+         * @return the amount of pixels in a column
+         */
+        public int getNy() {
+            return _nY;
+        }
+    }
+
+    /**
+     * prepare the view plane of a render - its frame produces the rays through the pixels with
+     * no calculation per pixel but a few fused multiply-adds
+     *
+     * @param nX             number of pixels on x axis
+     * @param nY             number of pixels on y axis
+     * @param screenDistance the distance
+     * @param screenWidth
+     * @param screenHeight
+     * @return the frame
+     */
+    public Frame getFrame(int nX, int nY, double screenDistance, double screenWidth, double screenHeight) {
+        return new Frame(this, nX, nY, screenDistance, screenWidth, screenHeight);
+    }
+
+    /**
+     * set the depth of field - the rays of a pixel go from the points of the aperture through the
+     * focal point of the pixel, so the geometries far from the focal plane are blurred
+     *
+     * @param aperture      the diameter of the aperture, 0 for a pinhole camera
+     * @param focalDistance the distance of the focal plane from the camera
+     * @param samples       amount of rays through the aperture
+     * @return the camera itself
+     */
+    public Camera setDepthOfField(double aperture, double focalDistance, int samples) {
+        if (aperture < 0)
+            throw new IllegalArgumentException("The aperture cannot be negative");
+        if (aperture > 0 && (focalDistance <= 0 || samples < 1))
+            throw new IllegalArgumentException("The depth of field needs a positive focal distance and samples");
+        _aperture = aperture;
+        _focalDistance = focalDistance;
+        _apertureSamples = samples;
+        return this;
+    }
+
+    /**
+     * check if the camera has a depth of field
+     *
+     * @return true if the aperture is not a pinhole
+     */
+    public boolean hasDepthOfField() {
+        return _aperture > 0;
+    }
+
+    /**
+     * get the focal point of a ray from the camera - its intersection with the focal plane
+     * (calculated directly by the distance along the direction of the camera)
+     *
+     * @param ray a ray from the camera
+     * @return the focal point
+     */
+    public Point3D getFocalPoint(Ray ray) {
+        Vector direction = ray.get_vector();
+        return _p0.add(direction.scale(_focalDistance / direction.dotProduct(_vTo)));
+    }
+
+    /**
+     * construct the rays of the depth of field of a ray from the camera - from stratified points of the
+     * aperture disk through the focal point of the ray
+     *
+     * @param ray     a ray from the camera
+     * @param sampler the source of the random numbers of the points
+     * @return the rays
+     */
+    public List<Ray> constructApertureRays(Ray ray, Sampler sampler) {
+        double[] points = SamplePattern.STRATIFIED.getPoints(_apertureSamples, sampler);
+        Point3D focalPoint = getFocalPoint(ray);
+        List<Ray> rays = new ArrayList<>(_apertureSamples);
+        for (int k = 0; k < _apertureSamples; ++k) {
+            // the concentric mapping of the square onto the disk keeps the strata
+            double a = 2 * points[2 * k] - 1, b = 2 * points[2 * k + 1] - 1;
+            double r, phi;
+            if (a * a > b * b) {
+                r = a;
+                phi = Math.PI / 4 * (b / a);
+            } else if (b != 0) {
+                r = b;
+                phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+            } else {
+                r = phi = 0;
+            }
+            r *= _aperture / 2;
+            rays.add(constructApertureRay(r * Math.cos(phi), r * Math.sin(phi), focalPoint));
+        }
+        return rays;
+    }
+
+    /**
+     * construct the rays of the depth of field from the center and the rim of the aperture - if their
+     * colors agree the blur does not vary over the aperture
+     *
+     * @param ray a ray from the camera
+     * @return the 5 rays
+     */
+    public List<Ray> constructApertureProbeRays(Ray ray) {
+        Point3D focalPoint = getFocalPoint(ray);
+        double r = _aperture / 2;
+        return List.of(constructApertureRay(0, 0, focalPoint),
+                constructApertureRay(r, 0, focalPoint), constructApertureRay(-r, 0, focalPoint),
+                constructApertureRay(0, r, focalPoint), constructApertureRay(0, -r, focalPoint));
+    }
+
+    /**
+     * the ray from a point of the aperture through a focal point
+     */
+    private Ray constructApertureRay(double x, double y, Point3D focalPoint) {
+        Point3D point = _p0;
+        if (!isZero(x)) {
+            point = point.add(_vRight.scale(x));
+        }
+        if (!isZero(y)) {
+            point = point.add(_vUp.scale(y));
+        }
+        return new Ray(point, focalPoint.subtract(point));
+    }
+
     /**
      * construct a Ray through Pixel
      *
@@ -138,6 +446,21 @@ public class Camera {
     public List<Ray> constructRayBeamThroughPixel(int nX, int nY, int j, int i,
                                                   double screenDistance, double screenWidth, double screenHeight,
                                                   double density, int amount) {
+        return constructRayBeamThroughPixel(nX, nY, j, i, screenDistance, screenWidth, screenHeight, density, amount,
+                Sampler.THREAD_LOCAL);
+    }
+
+    /**
+     * creating beam of rays for supersampling with the random numbers of a sampler
+     *
+     * @param density factor for the radius
+     * @param amount  number of random rays
+     * @param sampler the source of the random numbers
+     * @return the rays
+     */
+    public List<Ray> constructRayBeamThroughPixel(int nX, int nY, int j, int i,
+                                                  double screenDistance, double screenWidth, double screenHeight,
+                                                  double density, int amount, Sampler sampler) {
         if (isZero(screenDistance)) {
             throw new IllegalArgumentException("distance cannot be 0");
         }
@@ -155,10 +478,10 @@ public class Camera {
 
         for (int counter = 0; counter < amount; counter++) {
             Point3D point = new Point3D(Pij);
-            double cosTheta = 2 * rnd.nextDouble() - 1;
+            double cosTheta = 2 * sampler.nextDouble() - 1;
             double sinTheta = Math.sqrt(1d - cosTheta * cosTheta);
 
-            double d = radius * (2 * rnd.nextDouble() - 1);
+            double d = radius * (2 * sampler.nextDouble() - 1);
             double x = d * cosTheta;
             double y = d * sinTheta;
 
@@ -243,128 +566,4 @@ public class Camera {
         return rays;
 
     }
-// ***************** Operations ******************** //
-
-    /**
-     * create a pixel on the view plane - made of four corners rayBeams
-     *
-     * @param nx             the number of columns
-     * @param ny             the number of rows
-     * @param i              the place of the pixel in rows
-     * @param j              the pace of the pixel in columns
-     * @param screenDistance
-     * @param screenWidth
-     * @param screenHeight
-     * @return a Pixel object uniting the corner rays
-     */
-    public Pixel constructPixelCorners(int nx, int ny, int j, int i, double screenDistance,
-                                       double screenWidth, double screenHeight) {
-        // Pc is the center point of the view plane: P0 + d*vTo
-        Point3D pc = _p0.add(_vTo.scale(screenDistance));
-        // ratio factors: rx is the width of each pixel
-        double rx = screenWidth / nx;
-        double ry = screenHeight / ny;
-        // Xi and Yj are the coefficients that would take us to the asked point from the Pc point
-        // Xi for moving in the X axis direction (right / left)
-        double xi = ((i - (nx / 2d)) * rx);
-        // Yj for moving in the Y axis direction (down / up)
-        double yj = ((j - (ny / 2d)) * ry);
-        // in case the both coefficients are zero, the asked point is the Pc point
-        Point3D upperLeftPoint = pc;
-        if (!Util.isZero(xi)) {
-            upperLeftPoint = upperLeftPoint.add(_vRight.scale(xi));
-        }
-        if (!Util.isZero(yj)) {
-            upperLeftPoint = upperLeftPoint.add(_vUp.scale(-yj));
-        }
-        // find 3 more points for corners of the pixel
-        Point3D upperRightPoint = upperLeftPoint.add(_vRight.scale(rx));
-        Point3D lowerRightPoint = upperRightPoint.add(_vUp.scale(ry));
-        Point3D lowerLeftPoint = upperLeftPoint.add(_vUp.scale(ry));
-        // build four rays in the corners of the pixel A,B,C,D
-        Ray aCorner = new Ray(_p0, upperLeftPoint.subtract(_p0));
-        Ray bCorner = new Ray(_p0, upperRightPoint.subtract(_p0));
-        Ray cCorner = new Ray(_p0, lowerRightPoint.subtract(_p0));
-        Ray dCorner = new Ray(_p0, lowerLeftPoint.subtract(_p0));
-        //create the desired pixel - Hallelujah!
-        Pixel pixel = new Pixel(upperLeftPoint, aCorner, upperRightPoint, bCorner, lowerRightPoint, cCorner,
-                lowerLeftPoint, dCorner, 1);
-        return pixel;
-    }
-
-    /**
-     * divide a pixel on the view plane into four subpixels made of the corners
-     *
-     * @param mainPixel - the pixel to divide
-     *                  //     * @param focusLength
-     *                  //     * @param apertureSize
-     *                  //     * @param dofRayBeamSize
-     * @return a list of the 4 new subPixels
-     */
-    public List<Pixel> dividePixel(Pixel mainPixel) {
-        //calculate the width and height of the pixel
-        double pixWidth = mainPixel.aPoint.distance(mainPixel.bPoint);
-        double pixHeight = mainPixel.aPoint.distance(mainPixel.dPoint);
-        //save the vectors that shift a point half way to right and to down
-        Vector halfWidthRightShifter = _vRight.scale(pixWidth / 2d);
-        Vector halfHeightDownShifter = _vUp.scale(pixHeight / 2d);
-        //find the 5 new points on the pixel we will shoot rays from
-        Point3D abMiddlePoint = mainPixel.aPoint.add(halfWidthRightShifter);
-        Point3D dcMiddlePoint = mainPixel.dPoint.add(halfWidthRightShifter);
-        Point3D adMiddlePoint = mainPixel.aPoint.add(halfHeightDownShifter);
-        Point3D bcMiddlePoint = mainPixel.bPoint.add(halfHeightDownShifter);
-        Point3D pixCenterPoint = abMiddlePoint.add(halfHeightDownShifter);
-
-        //make 5 rays by the points found
-        Ray abMiddle = new Ray(_p0, abMiddlePoint.subtract(_p0));
-        Ray dcMiddle = new Ray(_p0, dcMiddlePoint.subtract(_p0));
-        Ray adMiddle = new Ray(_p0, adMiddlePoint.subtract(_p0));
-        Ray bcMiddle = new Ray(_p0, bcMiddlePoint.subtract(_p0));
-        Ray pixCenter = new Ray(_p0, pixCenterPoint.subtract(_p0));
-
-        //the rank grows times 4
-        int subdivisionRank = mainPixel.getRank() * 4;
-        List<Pixel> subPixels = new ArrayList<>();
-        subPixels.add(new Pixel(mainPixel.aPoint, mainPixel.aCornerRays._ray, abMiddlePoint, abMiddle, pixCenterPoint, pixCenter, adMiddlePoint, adMiddle, subdivisionRank));
-        subPixels.add(new Pixel(abMiddlePoint, abMiddle, mainPixel.bPoint, mainPixel.bCornerRays._ray, bcMiddlePoint, bcMiddle, pixCenterPoint, pixCenter, subdivisionRank));
-        subPixels.add(new Pixel(adMiddlePoint, adMiddle, pixCenterPoint, pixCenter, dcMiddlePoint, dcMiddle, mainPixel.dPoint, mainPixel.dCornerRays._ray, subdivisionRank));
-        subPixels.add(new Pixel(pixCenterPoint, pixCenter, bcMiddlePoint, bcMiddle, mainPixel.cPoint, mainPixel.cCornerRays._ray, dcMiddlePoint, dcMiddle, subdivisionRank));
-        return subPixels;
-    }
-
-//    /**
-//     * help method for calculating the raybeam of the DOF model for a specific original ray
-//     * @param originalRay - the ray to be replaced by a beam of intesecting rays
-//     * @param focusLength
-//     * @param apertureSize
-//     * @param dofRayBeamSize
-//     * @return a list of the rays for the focus calculation
-//     */
-//    private List<Ray> calcDOFRays(Ray originalRay, double focusLength, double apertureSize, int dofRayBeamSize) {
-//        List<Ray> raysBeam = new ArrayList<Ray>();
-//        //in case the aperture is zero - no focus or unfocus is needed
-//        if (Util.isZero(apertureSize) || dofRayBeamSize == 0) {
-//            raysBeam.add(originalRay);
-//            return raysBeam;
-//        }
-//
-//        Point3D basePoint = originalRay.get_origin();
-//        // calculate focalPoint by building a plane for focus distance
-//        Point3D focalPlaneCenter = basePoint.add(_vTo.scale(focusLength));
-//        Plane focalPlane = new Plane(focalPlaneCenter, _vTo);
-//        List<Intersectable.GeoPoint> intersections = focalPlane.findIntersections(originalRay);
-//        Point3D focalPoint = intersections.get(0).getPoint();
-//
-//        // create rays randomly within the range of the aperture size, directed to the
-//        // focal point
-//        double halfAperture = apertureSize / 2d;
-//        for (int count = 0; count < dofRayBeamSize; count++) {
-//            //shift the point of the ray stat randomly within the range of the aperture size
-//            Point3D shiftedPoint = basePoint.add(_vRight.scale(Util.getNotZeroRandom() * halfAperture));
-//            shiftedPoint = shiftedPoint.add(_vUp.scale(Util.getNotZeroRandom() * halfAperture));
-//            Ray ray = new Ray(shiftedPoint, focalPoint.subtract(shiftedPoint));
-//            raysBeam.add(ray);
-//        }
-//        return raysBeam;
-//    }
 }
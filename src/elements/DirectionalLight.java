@@ -23,6 +23,15 @@ public class DirectionalLight extends Light implements LightSource {
         _direction = direction.normalized();
     }
 
+    /**
+     * get the direction of the light
+     *
+     * @return the normalized direction
+     */
+    public Vector getDirection() {
+        return _direction;
+    }
+
     /**
      * @param p the lighted point is not used and is mentioned
      *          only for compatibility with LightSource
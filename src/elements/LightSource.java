@@ -30,4 +30,65 @@ public interface LightSource {
      * @return
      */
     double getDistance(Point3D point);
-}
\ No newline at end of file
+
+    /**
+     * check if the light has an area - a light with an area casts soft shadows
+     *
+     * @return true if the light has an area
+     */
+    default boolean hasArea() {
+        return false;
+    }
+
+    /**
+     * get a point of the light area, as it is seen from a lighted point
+     *
+     * @param p the lighted point
+     * @param u first coordinate of a sample in the unit square
+     * @param v second coordinate of a sample in the unit square
+     * @return the point of the light area, null if the light has no area
+     */
+    default Point3D getSamplePoint(Point3D p, double u, double v) {
+        return null;
+    }
+
+    /**
+     * cheap check if the light may reach a point with a considerable intensity - it is done
+     * before the light vector, the intensity and the shadow rays are calculated
+     *
+     * @param p         the lighted point
+     * @param threshold the least intensity (of the strongest color component) to take into account
+     * @return false if the intensity of the light at the point is surely below the threshold
+     */
+    default boolean influences(Point3D p, double threshold) {
+        return true;
+    }
+
+    /**
+     * get the position of the light, for the lights that are clustered by their position
+     *
+     * @return the position, null if the light has no position (as a directional light)
+     */
+    default Point3D getPosition() {
+        return null;
+    }
+
+    /**
+     * get the axis of the half space the light shines into - the light does not reach the points
+     * behind its position
+     *
+     * @return the normalized axis, null if the light shines in all the directions
+     */
+    default Vector getEmissionAxis() {
+        return null;
+    }
+
+    /**
+     * get the power of the light - the strongest color component of its intensity before any attenuation
+     *
+     * @return the power
+     */
+    default double getPower() {
+        return 0;
+    }
+}
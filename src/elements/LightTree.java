@@ -0,0 +1,312 @@
+package elements;
+
+import primitives.Point3D;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hierarchy of the light sources of a scene with many lights.<br/>
+ * The lights with a position are clustered into a binary tree by position and power: every cluster
+ * is split along the longest axis of its box where the sum of power * diagonal<sup>2</sup> of the two
+ * sub clusters is the smallest, so strong lights and close lights end in small clusters.
+ * A light is sampled by going down the tree from the root and choosing a child by its importance
+ * for the lighted point - its power divided by its squared distance - so the probability of a light
+ * is large where its contribution is large.
+ * Every cluster keeps a cone that bounds the axes of its spot lights, so a cluster whose lights all
+ * shine away from the point has no importance and is never chosen.
+ * The lights without a position (as the directional lights) are kept aside and are not sampled.
+ */
+public class LightTree {
+    /**
+     * a cluster of lights - a leaf keeps a single light
+     */
+    private static class Node {
+        /**
+         * the box of the positions of the lights: min x, y, z and max x, y, z
+         */
+        final double[] _box;
+        final double _power;
+        /**
+         * the cone of the axes of the lights: its normalized axis and its half angle - a light shines
+         * up to a right angle from its axis, a light that shines in all the directions has the
+         * angle of a right angle (so the cluster shines in all the directions)
+         */
+        final double[] _axis;
+        final double _angle;
+        final Node _left, _right;
+        final LightSource _light;
+
+        Node(LightSource light, double[] position) {
+            _box = new double[]{position[0], position[1], position[2], position[0], position[1], position[2]};
+            _power = light.getPower();
+            Vector axis = light.getEmissionAxis();
+            if (axis == null) {
+                _axis = new double[]{0, 0, 1};
+                _angle = Math.PI / 2;
+            } else {
+                Point3D head = axis.get_head();
+                double x = head.get_x().get(), y = head.get_y().get(), z = head.get_z().get();
+                double length = Math.sqrt(x * x + y * y + z * z);
+                _axis = new double[]{x / length, y / length, z / length};
+                _angle = 0;
+            }
+            _left = _right = null;
+            _light = light;
+        }
+
+        Node(Node left, Node right) {
+            _box = new double[6];
+            for (int k = 0; k < 3; ++k) {
+                _box[k] = Math.min(left._box[k], right._box[k]);
+                _box[k + 3] = Math.max(left._box[k + 3], right._box[k + 3]);
+            }
+            _power = left._power + right._power;
+            double[] axis = new double[3];
+            _angle = union(left, right, axis);
+            _axis = axis;
+            _left = left;
+            _right = right;
+            _light = null;
+        }
+
+        /**
+         * the smallest cone that contains the cones of two clusters
+         *
+         * @param axis the array for the axis of the cone
+         * @return the half angle of the cone
+         */
+        private static double union(Node a, Node b, double[] axis) {
+            if (b._angle > a._angle) {
+                Node temp = a;
+                a = b;
+                b = temp;
+            }
+            double cos = a._axis[0] * b._axis[0] + a._axis[1] * b._axis[1] + a._axis[2] * b._axis[2];
+            double between = Math.acos(Math.max(-1, Math.min(1, cos)));
+            System.arraycopy(a._axis, 0, axis, 0, 3);
+            if (Math.min(between + b._angle, Math.PI) <= a._angle)
+                return a._angle;
+            double angle = (a._angle + between + b._angle) / 2;
+            // the axis of a is turned towards the axis of b, in the plane of both
+            double wx = b._axis[0] - cos * a._axis[0], wy = b._axis[1] - cos * a._axis[1],
+                    wz = b._axis[2] - cos * a._axis[2];
+            double length = Math.sqrt(wx * wx + wy * wy + wz * wz);
+            if (angle >= Math.PI / 2 || length < 1e-12) // the cluster shines in all the directions
+                return Math.PI / 2;
+            double turn = angle - a._angle, c = Math.cos(turn), s = Math.sin(turn) / length;
+            axis[0] = a._axis[0] * c + wx * s;
+            axis[1] = a._axis[1] * c + wy * s;
+            axis[2] = a._axis[2] * c + wz * s;
+            return angle;
+        }
+    }
+
+    /**
+     * A light chosen by sampling the tree with the probability of choosing it
+     */
+    public static class Sample {
+        private final LightSource _light;
+        private final double _pdf;
+
+        Sample(LightSource light, double pdf) {
+            _light = light;
+            _pdf = pdf;
+        }
+
+        /**
+         * get the chosen light
+         *
+         * @return the light
+         */
+        public LightSource getLight() {
+            return _light;
+        }
+
+        /**
+         * get the probability of choosing the light
+         *
+         * @return the probability
+         */
+        public double getPdf() {
+            return _pdf;
+        }
+    }
+
+    /**
+     * lower bound of the squared distance of the importance - avoids the division by zero
+     */
+    private static final double MIN_DISTANCE_SQUARED = 1e-10;
+
+    private final Node _root;
+    private final int _lightCount;
+    private final List<LightSource> _unpositioned = new ArrayList<>();
+
+    /**
+     * constructor - builds the hierarchy of the lights
+     *
+     * @param lights the light sources (may be null)
+     */
+    public LightTree(List<LightSource> lights) {
+        List<Node> leaves = new ArrayList<>();
+        if (lights != null)
+            for (LightSource light : lights) {
+                Point3D position = light.getPosition();
+                if (position == null || light.getPower() <= 0)
+                    _unpositioned.add(light);
+                else
+                    leaves.add(new Node(light, new double[]{
+                            position.get_x().get(), position.get_y().get(), position.get_z().get()}));
+            }
+        _lightCount = leaves.size();
+        _root = leaves.isEmpty() ? null : build(leaves.toArray(new Node[0]), 0, leaves.size());
+    }
+
+    /**
+     * the clustering cost of a cluster - its power times its squared diagonal
+     */
+    private static double cost(double[] box, double power) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return power * (dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * build the sub tree of a range of leaves
+     */
+    private static Node build(Node[] leaves, int from, int to) {
+        if (to - from == 1)
+            return leaves[from];
+
+        // split along the longest axis of the box of the positions
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = from; i < to; ++i)
+            for (int k = 0; k < 3; ++k) {
+                box[k] = Math.min(box[k], leaves[i]._box[k]);
+                box[k + 3] = Math.max(box[k + 3], leaves[i]._box[k]);
+            }
+        int axis = 0;
+        for (int k = 1; k < 3; ++k)
+            if (box[k + 3] - box[k] > box[axis + 3] - box[axis])
+                axis = k;
+        final int sortAxis = axis;
+        Arrays.sort(leaves, from, to, Comparator.comparingDouble(node -> node._box[sortAxis]));
+
+        // the costs of the clusters on the right of every split position
+        int n = to - from;
+        double[] rightCost = new double[n];
+        double[] right = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double power = 0;
+        for (int i = n - 1; i > 0; --i) {
+            grow(right, leaves[from + i]);
+            power += leaves[from + i]._power;
+            rightCost[i] = cost(right, power);
+        }
+        double[] left = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        power = 0;
+        int middle = from + n / 2, split = middle;
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < n; ++i) {
+            grow(left, leaves[from + i - 1]);
+            power += leaves[from + i - 1]._power;
+            double cost = cost(left, power) + rightCost[i];
+            // equal costs (as lights at the same position) are split in the middle to keep the tree balanced
+            if (cost < best || cost == best && Math.abs(from + i - middle) < Math.abs(split - middle)) {
+                best = cost;
+                split = from + i;
+            }
+        }
+        return new Node(build(leaves, from, split), build(leaves, split, to));
+    }
+
+    private static void grow(double[] box, Node node) {
+        for (int k = 0; k < 3; ++k) {
+            box[k] = Math.min(box[k], node._box[k]);
+            box[k + 3] = Math.max(box[k + 3], node._box[k + 3]);
+        }
+    }
+
+    /**
+     * get the amount of the lights in the tree
+     *
+     * @return the amount of the lights with a position
+     */
+    public int getLightCount() {
+        return _lightCount;
+    }
+
+    /**
+     * get the lights that are not in the tree - they must be evaluated at every point
+     *
+     * @return the lights without a position
+     */
+    public List<LightSource> getUnpositionedLights() {
+        return _unpositioned;
+    }
+
+    /**
+     * the importance of a cluster for a lighted point - its power divided by the squared distance
+     * to the center of its box, which is not taken smaller than the half of the diagonal
+     * (a single light that cannot influence the point, or a cluster whose lights all shine away
+     * from the point, has no importance)
+     */
+    private static double importance(Node node, double x, double y, double z, Point3D p, double threshold) {
+        if (node._light != null && !node._light.influences(p, threshold))
+            return 0;
+        double[] box = node._box;
+        double dx = (box[0] + box[3]) / 2 - x, dy = (box[1] + box[4]) / 2 - y, dz = (box[2] + box[5]) / 2 - z;
+        double ex = box[3] - box[0], ey = box[4] - box[1], ez = box[5] - box[2];
+        double distanceSquared = dx * dx + dy * dy + dz * dz, radiusSquared = (ex * ex + ey * ey + ez * ez) / 4;
+        if (node._light == null && node._angle < Math.PI / 2 && distanceSquared > radiusSquared) {
+            // the angle from the cone axis to the point, less the angle of the box as seen from the point
+            double distance = Math.sqrt(distanceSquared);
+            double cos = -(dx * node._axis[0] + dy * node._axis[1] + dz * node._axis[2]) / distance;
+            double angle = Math.acos(Math.max(-1, Math.min(1, cos)))
+                    - Math.asin(Math.sqrt(radiusSquared) / distance);
+            if (angle - node._angle >= Math.PI / 2)
+                return 0;
+        }
+        return node._power / Math.max(Math.max(distanceSquared, radiusSquared), MIN_DISTANCE_SQUARED);
+    }
+
+    /**
+     * choose a light for a lighted point by the importance of the clusters
+     *
+     * @param p         the lighted point
+     * @param threshold the least intensity (of the strongest color component) to take into account
+     * @param u         a random number in [0, 1)
+     * @return the chosen light and its probability, or null if the chosen cluster does not influence the point
+     */
+    public Sample sample(Point3D p, double threshold, double u) {
+        if (_root == null)
+            return null;
+        double x = p.get_x().get(), y = p.get_y().get(), z = p.get_z().get();
+        Node node = _root;
+        double pdf = 1;
+        while (node._light == null) {
+            double left = importance(node._left, x, y, z, p, threshold);
+            double right = importance(node._right, x, y, z, p, threshold);
+            double total = left + right;
+            if (total == 0)
+                return null;
+            double pLeft = left / total;
+            // the random number is stretched to choose in the next level too
+            if (u < pLeft) {
+                u = u / pLeft;
+                pdf *= pLeft;
+                node = node._left;
+            } else {
+                u = (u - pLeft) / (1 - pLeft);
+                pdf *= 1 - pLeft;
+                node = node._right;
+            }
+            u = Math.min(u, Math.nextDown(1d));
+        }
+        return node._light.influences(p, threshold) ? new Sample(node._light, pdf) : null;
+    }
+}
@@ -4,6 +4,8 @@ import primitives.Color;
 import primitives.Point3D;
 import primitives.Vector;
 
+import static primitives.Util.isZero;
+
 /**
  * The PointLight object specifies an attenuated light source at a fixed point in space that radiates light equally
  * in all directions away from the light source. PointLight has the same attributes as a Light node,
@@ -30,6 +32,11 @@ import primitives.Vector;
  * <p>
  * By default, the constant attenuation value is 1 and the other two values are 0,
  * resulting in no attenuation.
+ * <p>
+ * The light may be given an area - a disk that faces the lighted point (as a round bulb) or a rectangle -
+ * so it casts soft shadows. The intensity is still calculated from the position (the center of the area).
+ * <p>
+ * The attenuation bounds the influence of the light - beyond some radius its intensity is negligible.
  *
  *  @author Dr Eliezer
  */
@@ -38,6 +45,8 @@ public class PointLight extends Light implements LightSource {
     double _kC; // Constant attenuation
     double _kL; // Linear attenuation
     double _kQ; // Quadratic attenuation
+    double _radius = 0; // radius of the disk area
+    Vector _edgeU = null, _edgeV = null; // edges of the rectangle area
 
     /**
      * constructor
@@ -61,6 +70,36 @@ public class PointLight extends Light implements LightSource {
         this(colorIntensity, position, 1d, 0d, 0d);
     }
 
+    /**
+     * give the light the area of a disk that faces the lighted points
+     *
+     * @param radius the radius of the disk
+     * @return the light itself
+     */
+    public PointLight setRadius(double radius) {
+        if (radius < 0)
+            throw new IllegalArgumentException("The radius of a light cannot be negative");
+        _radius = radius;
+        _edgeU = _edgeV = null;
+        return this;
+    }
+
+    /**
+     * give the light the area of a rectangle around its position
+     *
+     * @param edgeU one edge of the rectangle
+     * @param edgeV the other edge of the rectangle
+     * @return the light itself
+     */
+    public PointLight setRectangle(Vector edgeU, Vector edgeV) {
+        if (!isZero(edgeU.dotProduct(edgeV)))
+            throw new IllegalArgumentException("The edges of a rectangle must be orthogonal");
+        _edgeU = new Vector(edgeU);
+        _edgeV = new Vector(edgeV);
+        _radius = 0;
+        return this;
+    }
+
     // overriding Light getIntensity()
     @Override
     public Color getIntensity() {
@@ -71,11 +110,38 @@ public class PointLight extends Light implements LightSource {
     @Override
     public Color getIntensity(Point3D p) {
         double dsquared = p.distanceSquared(_position);
-        double d = p.distance(_position);
+        double d = Math.sqrt(dsquared);
 
         return (_intensity.reduce(_kC + _kL * d + _kQ * dsquared));
     }
 
+    /**
+     * get the radius of the influence of the light - beyond it the intensity is below a threshold
+     *
+     * @param threshold the least intensity (of the strongest color component) to take into account
+     * @return the radius (infinite if the light is not attenuated by the distance)
+     */
+    public double getInfluenceRadius(double threshold) {
+        // the positive root of kQ*d^2 + kL*d + kC - max/threshold, in the form that is stable for small kQ
+        double c = _intensity.getMaxComponent() / threshold - _kC;
+        if (c <= 0)
+            return 0;
+        return 2 * c / (_kL + Math.sqrt(_kL * _kL + 4 * _kQ * c));
+    }
+
+    /**
+     * the light influences a point if its attenuated intensity there reaches the threshold
+     *
+     * @param p         the lighted point
+     * @param threshold the least intensity (of the strongest color component) to take into account
+     * @return false if the intensity of the light at the point is below the threshold
+     */
+    @Override
+    public boolean influences(Point3D p, double threshold) {
+        double dSquared = p.distanceSquared(_position);
+        return _intensity.getMaxComponent() >= threshold * (_kC + _kL * Math.sqrt(dSquared) + _kQ * dSquared);
+    }
+
     /**
      * Light vector
      *
@@ -100,4 +166,68 @@ public class PointLight extends Light implements LightSource {
     public double getDistance(Point3D point) {
         return _position.distance(point);
     }
-}
\ No newline at end of file
+
+    @Override
+    public Point3D getPosition() {
+        return _position;
+    }
+
+    @Override
+    public double getPower() {
+        return _intensity.getMaxComponent();
+    }
+
+    @Override
+    public boolean hasArea() {
+        return _edgeU != null || _radius > 0;
+    }
+
+    /**
+     * get a point of the light area - the unit square is mapped to the rectangle, or to the disk
+     * by the concentric mapping that keeps the strata of the samples
+     *
+     * @param p the lighted point
+     * @param u first coordinate of a sample in the unit square
+     * @param v second coordinate of a sample in the unit square
+     * @return the point of the light area, null if the light has no area
+     */
+    @Override
+    public Point3D getSamplePoint(Point3D p, double u, double v) {
+        if (_edgeU != null) {
+            Point3D point = _position;
+            if (!isZero(u - 0.5))
+                point = point.add(_edgeU.scale(u - 0.5));
+            if (!isZero(v - 0.5))
+                point = point.add(_edgeV.scale(v - 0.5));
+            return point;
+        }
+        if (_radius <= 0 || p.equals(_position))
+            return null;
+
+        // concentric mapping of the square [-1,1]^2 to the unit disk
+        double a = 2 * u - 1, b = 2 * v - 1;
+        double r, phi;
+        if (a == 0 && b == 0)
+            return _position;
+        if (Math.abs(a) > Math.abs(b)) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        }
+        double x = _radius * r * Math.cos(phi), y = _radius * r * Math.sin(phi);
+
+        // the disk is orthogonal to the direction of the lighted point
+        Vector w = p.subtract(_position).normalize();
+        Vector helper = Math.abs(w.get_head().get_x().get()) < 0.9 ? new Vector(1, 0, 0) : new Vector(0, 1, 0);
+        Vector axisX = w.crossProduct(helper).normalize();
+        Vector axisY = w.crossProduct(axisX);
+        Point3D point = _position;
+        if (!isZero(x))
+            point = point.add(axisX.scale(x));
+        if (!isZero(y))
+            point = point.add(axisY.scale(y));
+        return point;
+    }
+}
@@ -21,6 +21,8 @@ import primitives.Vector;
  * <p>
  * A spot light contributes to diffuse and specular reflections, which depend on the orientation and position
  * of an object's surface. A spot light does not contribute to ambient reflections.
+ * <p>
+ * The influence of a spot light is bounded by its cone in addition to the attenuation.
  *
  * @author Dr Eliezer
  */
@@ -60,6 +62,25 @@ public class SpotLight extends PointLight {
     }
 
 
+    /**
+     * get the direction of the axis of the cone
+     *
+     * @return the normalized direction
+     */
+    public Vector getDirection() {
+        return _direction;
+    }
+
+    /**
+     * the spot light shines only into the half space in front of it
+     *
+     * @return the direction of the axis of the cone
+     */
+    @Override
+    public Vector getEmissionAxis() {
+        return _direction;
+    }
+
     /**
      * get the spot light intensity
      *
@@ -82,4 +103,30 @@ public class SpotLight extends PointLight {
 
         return (spotlightIntensity.scale(factor));
     }
-}
\ No newline at end of file
+
+    /**
+     * the light influences a point inside its cone if the attenuated intensity, scaled by the
+     * concentration factor, reaches the threshold
+     *
+     * @param p         the lighted point
+     * @param threshold the least intensity (of the strongest color component) to take into account
+     * @return false if the point is behind the light or the intensity there is below the threshold
+     */
+    @Override
+    public boolean influences(Point3D p, double threshold) {
+        double dx = p.get_x().get() - _position.get_x().get();
+        double dy = p.get_y().get() - _position.get_y().get();
+        double dz = p.get_z().get() - _position.get_z().get();
+        double dSquared = dx * dx + dy * dy + dz * dz;
+        if (dSquared == 0)
+            return true;
+        double d = Math.sqrt(dSquared);
+        Point3D direction = _direction.get_head();
+        double projection = (dx * direction.get_x().get() + dy * direction.get_y().get()
+                + dz * direction.get_z().get()) / d;
+        if (projection <= 0) // the cone points away
+            return false;
+        double factor = _concentration == 1 ? projection : Math.pow(projection, _concentration);
+        return factor * _intensity.getMaxComponent() >= threshold * (_kC + _kL * d + _kQ * dSquared);
+    }
+}
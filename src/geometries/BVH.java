@@ -0,0 +1,192 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounding volume hierarchy over a flat list of intersectables, built by {@link BVHBuilder}.
+ * The hierarchy is a snapshot - it must be built again after the intersectables have been changed.
+ * Intersectables without a bounding box (planes, tubes) are not put in the tree - an infinite box
+ * would be in the box of every node above it. They are kept in a side list that is tested with every ray.
+ */
+public class BVH implements Intersectable {
+    /**
+     * the intersectables in the order of the leaves
+     */
+    final Intersectable[] _intersectables;
+    /**
+     * the intersectables without a bounding box
+     */
+    final Intersectable[] _unbounded;
+    final BVHBuilder.Node _root;
+    private final BVHBuilder.Stats _stats;
+    private final LongAdder _rays = new LongAdder();
+    private final LongAdder _steps = new LongAdder();
+
+    /**
+     * constructor - builds the hierarchy
+     *
+     * @param intersectables the intersectables (without nested Geometries)
+     * @param quality        quality of the build
+     */
+    public BVH(List<Intersectable> intersectables, BVHBuilder.Quality quality) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        List<Intersectable> unbounded = new ArrayList<>();
+        for (Intersectable geo : intersectables) {
+            BoundingBox box = geo.getBoundingBox();
+            if (box == null) {
+                unbounded.add(geo);
+            } else {
+                bounded.add(geo);
+                boxes.add(box);
+            }
+        }
+        _unbounded = unbounded.toArray(new Intersectable[0]);
+
+        int n = bounded.size();
+        double[] bounds = new double[n * 6];
+        for (int i = 0; i < n; ++i)
+            for (int axis = 0; axis < 3; ++axis) {
+                bounds[i * 6 + axis] = boxes.get(i).getMin(axis);
+                bounds[i * 6 + axis + 3] = boxes.get(i).getMax(axis);
+            }
+        int[] order = new int[n];
+        for (int i = 0; i < n; ++i)
+            order[i] = i;
+        BVHBuilder builder = new BVHBuilder(quality);
+        _root = builder.build(bounds, order);
+        _stats = builder.getStats();
+        _intersectables = new Intersectable[n];
+        for (int i = 0; i < n; ++i)
+            _intersectables[i] = bounded.get(order[i]);
+    }
+
+    /**
+     * get the metrics of the build of the hierarchy
+     *
+     * @return the build stats
+     */
+    public BVHBuilder.Stats getBuildStats() {
+        return _stats;
+    }
+
+    /**
+     * get the average amount of nodes visited by a ray since the creation of the hierarchy
+     *
+     * @return the average traversal steps per ray
+     */
+    public double getAverageTraversalSteps() {
+        long rays = _rays.sum();
+        return rays == 0 ? 0 : (double) _steps.sum() / rays;
+    }
+
+    /**
+     * get the bounding box of all the intersectables
+     *
+     * @return the box, or null if empty or any of them is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (_root == null || _unbounded.length > 0) return null;
+        double[] box = _root._box;
+        return new BoundingBox(box[0], box[1], box[2], box[3], box[4], box[5]);
+    }
+
+    /**
+     * find the intersections - only the intersectables whose boxes are hit by the ray are tested
+     *
+     * @param ray         the ray
+     * @param maxDistance the max distance along the ray
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geo : _unbounded) {
+            List<GeoPoint> tempIntersections = geo.findIntersections(ray, maxDistance);
+            if (tempIntersections != null) {
+                if (intersections == null)
+                    intersections = new ArrayList<>();
+                intersections.addAll(tempIntersections);
+            }
+        }
+        if (_root == null) return intersections;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        List<BVHBuilder.Node> stack = new ArrayList<>();
+        stack.add(_root);
+        int steps = 0;
+        while (!stack.isEmpty()) {
+            BVHBuilder.Node node = stack.remove(stack.size() - 1);
+            ++steps;
+            if (!hits(node._box, ox, oy, oz, ix, iy, iz, maxDistance)) continue;
+            if (!node.isLeaf()) {
+                stack.add(node._right);
+                stack.add(node._left);
+                continue;
+            }
+            for (int i = node._first; i < node._first + node._count; ++i) {
+                List<GeoPoint> tempIntersections = _intersectables[i].findIntersections(ray, maxDistance);
+                if (tempIntersections != null) {
+                    if (intersections == null)
+                        intersections = new ArrayList<>();
+                    intersections.addAll(tempIntersections);
+                }
+            }
+        }
+        _rays.increment();
+        _steps.add(steps);
+        return intersections;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the intersectables hit by a ray - only the
+     * intersectables whose boxes are hit are tested, and the traversal stops when the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        for (Intersectable geo : _unbounded)
+            if (geo.accumulateTransmittance(ray, maxDistance, transmittance))
+                return true;
+        if (_root == null) return false;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        List<BVHBuilder.Node> stack = new ArrayList<>();
+        stack.add(_root);
+        while (!stack.isEmpty()) {
+            BVHBuilder.Node node = stack.remove(stack.size() - 1);
+            if (!hits(node._box, ox, oy, oz, ix, iy, iz, maxDistance)) continue;
+            if (!node.isLeaf()) {
+                stack.add(node._right);
+                stack.add(node._left);
+                continue;
+            }
+            for (int i = node._first; i < node._first + node._count; ++i)
+                if (_intersectables[i].accumulateTransmittance(ray, maxDistance, transmittance))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * slab test of a ray against a node box
+     */
+    private static boolean hits(double[] box, double ox, double oy, double oz, double ix, double iy, double iz,
+                                double maxDistance) {
+        return BoundingBox.entry(box[0], box[1], box[2], box[3], box[4], box[5], ox, oy, oz, ix, iy, iz,
+                maxDistance) >= 0;
+    }
+}
@@ -0,0 +1,500 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builder of bounding volume hierarchies over the boxes of primitives.<br/>
+ * Two build qualities are supported:
+ * <ul>
+ * <li>SAH - top down build with the surface area heuristic evaluated over bins of the centroids,
+ * the big sub trees are built in parallel on a fork join pool</li>
+ * <li>LBVH - the primitives are sorted by the Morton codes of their centroids and split by the
+ * code bits - a much faster build of a lower quality tree, good for preview renders</li>
+ * </ul>
+ * The builder reports the time of the last build and the quality of the tree it built.
+ */
+public final class BVHBuilder {
+    /**
+     * Quality of the built tree
+     */
+    public enum Quality {
+        /**
+         * binned surface area heuristic
+         */
+        SAH,
+        /**
+         * linear BVH by Morton codes
+         */
+        LBVH
+    }
+
+    /**
+     * amount of bins of the SAH
+     */
+    private static final int BINS = 16;
+    /**
+     * max amount of primitives in a leaf
+     */
+    private static final int MAX_LEAF_SIZE = 8;
+    /**
+     * sub trees of more primitives than this are built as separate fork join tasks
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+    /**
+     * cost of the traversal of a node relatively to the intersection of a primitive
+     */
+    private static final double TRAVERSAL_COST = 1;
+
+    /**
+     * A node of the built tree. An inner node has two children, a leaf has a range of the primitives order.
+     */
+    public static final class Node {
+        /**
+         * box of the node: min x, y, z and max x, y, z
+         */
+        final double[] _box;
+        Node _left, _right;
+        int _first, _count;
+        /**
+         * the axis the children of an inner node were split on
+         */
+        int _axis;
+
+        Node(double[] box) {
+            _box = box;
+        }
+
+        /**
+         * check if the node is a leaf
+         *
+         * @return true for a leaf
+         */
+        public boolean isLeaf() {
+            return _left == null;
+        }
+    }
+
+    /**
+     * Metrics of a build: time and quality of the tree
+     */
+    public static final class Stats {
+        private final Quality _quality;
+        private final long _buildNanos;
+        private final int _primitives, _nodes, _leaves, _maxDepth;
+        private final double _sahCost;
+
+        private Stats(Quality quality, long buildNanos, int primitives, int nodes, int leaves, int maxDepth,
+                      double sahCost) {
+            _quality = quality;
+            _buildNanos = buildNanos;
+            _primitives = primitives;
+            _nodes = nodes;
+            _leaves = leaves;
+            _maxDepth = maxDepth;
+            _sahCost = sahCost;
+        }
+
+        /**
+         * @return the build time in milliseconds
+         */
+        public double getBuildMillis() {
+            return _buildNanos / 1e6;
+        }
+
+        /**
+         * @return amount of primitives in the tree
+         */
+        public int getPrimitives() {
+            return _primitives;
+        }
+
+        /**
+         * @return amount of nodes
+         */
+        public int getNodes() {
+            return _nodes;
+        }
+
+        /**
+         * @return amount of leaves
+         */
+        public int getLeaves() {
+            return _leaves;
+        }
+
+        /**
+         * @return the depth of the deepest leaf
+         */
+        public int getMaxDepth() {
+            return _maxDepth;
+        }
+
+        /**
+         * the expected cost of a ray by the surface area heuristic (lower is better)
+         *
+         * @return the cost relatively to the intersection of one primitive
+         */
+        public double getSahCost() {
+            return _sahCost;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s build of %d primitives: %.2f ms, %d nodes, %d leaves, depth %d, SAH cost %.2f",
+                    _quality, _primitives, getBuildMillis(), _nodes, _leaves, _maxDepth, _sahCost);
+        }
+    }
+
+    private final Quality _quality;
+    private ForkJoinPool _pool = ForkJoinPool.commonPool();
+    private Stats _stats = null;
+
+    /**
+     * constructor
+     *
+     * @param quality quality of the built trees
+     */
+    public BVHBuilder(Quality quality) {
+        _quality = quality;
+    }
+
+    /**
+     * set the pool the sub trees are built on
+     *
+     * @param pool the pool
+     * @return the builder itself
+     */
+    public BVHBuilder setPool(ForkJoinPool pool) {
+        _pool = pool;
+        return this;
+    }
+
+    /**
+     * get the metrics of the last build
+     *
+     * @return the stats, null before the first build
+     */
+    public Stats getStats() {
+        return _stats;
+    }
+
+    /**
+     * build a tree
+     *
+     * @param bounds the boxes of the primitives - 6 values per primitive (min x, y, z, max x, y, z)
+     * @param order  filled with the order of the primitives - every leaf is a range of this order
+     * @return the root of the tree (null if there are no primitives)
+     */
+    public Node build(double[] bounds, int[] order) {
+        long start = System.nanoTime();
+        int n = order.length;
+        Node root = null;
+        if (n > 0) {
+            double[] centroids = new double[n * 3];
+            for (int i = 0; i < n; ++i)
+                for (int axis = 0; axis < 3; ++axis) {
+                    double center = (bounds[i * 6 + axis] + bounds[i * 6 + axis + 3]) / 2;
+                    centroids[i * 3 + axis] = Double.isFinite(center) ? center : 0;
+                }
+            root = _quality == Quality.SAH
+                    ? _pool.invoke(new SahTask(bounds, centroids, order, 0, n))
+                    : buildLinear(bounds, centroids, order);
+        }
+        long time = System.nanoTime() - start;
+
+        int[] counts = new int[3]; // nodes, leaves, max depth
+        double cost = root == null ? 0 : measure(root, 0, area(root._box), counts);
+        _stats = new Stats(_quality, time, n, counts[0], counts[1], counts[2], cost);
+        return root;
+    }
+
+    /**
+     * count the nodes, leaves and depth of a sub tree and calculate its SAH cost
+     *
+     * @return the SAH cost of the sub tree
+     */
+    private static double measure(Node node, int depth, double rootArea, int[] counts) {
+        ++counts[0];
+        double relative = rootArea > 0 && Double.isFinite(rootArea) ? area(node._box) / rootArea : 1;
+        if (node.isLeaf()) {
+            ++counts[1];
+            counts[2] = Math.max(counts[2], depth);
+            return relative * node._count;
+        }
+        return relative * TRAVERSAL_COST
+                + measure(node._left, depth + 1, rootArea, counts) + measure(node._right, depth + 1, rootArea, counts);
+    }
+
+    private static double area(double[] box) {
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    private static double[] emptyBox() {
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    private static void grow(double[] box, double[] bounds, int primitive) {
+        for (int k = 0; k < 3; ++k) {
+            box[k] = Math.min(box[k], bounds[primitive * 6 + k]);
+            box[k + 3] = Math.max(box[k + 3], bounds[primitive * 6 + k + 3]);
+        }
+    }
+
+    private static Node leaf(double[] box, int from, int to) {
+        Node node = new Node(box);
+        node._first = from;
+        node._count = to - from;
+        return node;
+    }
+
+    /**
+     * Task of a SAH sub tree - a range of the primitives order
+     */
+    @SuppressWarnings("serial") // a task is never serialized
+    private static final class SahTask extends RecursiveTask<Node> {
+        private final double[] _bounds, _centroids;
+        private final int[] _order;
+        private final int _from, _to;
+
+        SahTask(double[] bounds, double[] centroids, int[] order, int from, int to) {
+            _bounds = bounds;
+            _centroids = centroids;
+            _order = order;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(_from, _to);
+        }
+
+        private Node build(int from, int to) {
+            double[] box = emptyBox();
+            double[] centroidBox = emptyBox();
+            for (int i = from; i < to; ++i) {
+                int primitive = _order[i];
+                grow(box, _bounds, primitive);
+                for (int k = 0; k < 3; ++k) {
+                    double c = _centroids[primitive * 3 + k];
+                    centroidBox[k] = Math.min(centroidBox[k], c);
+                    centroidBox[k + 3] = Math.max(centroidBox[k + 3], c);
+                }
+            }
+            int count = to - from;
+            if (count <= 2)
+                return leaf(box, from, to);
+
+            int axis = 0;
+            for (int k = 1; k < 3; ++k)
+                if (centroidBox[k + 3] - centroidBox[k] > centroidBox[axis + 3] - centroidBox[axis])
+                    axis = k;
+            double min = centroidBox[axis], extent = centroidBox[axis + 3] - min;
+            if (extent <= 0) // all the centroids are in the same point
+                return count <= MAX_LEAF_SIZE ? leaf(box, from, to) : split(box, axis, from, to, (from + to) >>> 1);
+
+            // fill the bins
+            double[][] binBoxes = new double[BINS][];
+            int[] binCounts = new int[BINS];
+            for (int b = 0; b < BINS; ++b)
+                binBoxes[b] = emptyBox();
+            double scale = BINS / extent;
+            for (int i = from; i < to; ++i) {
+                int primitive = _order[i];
+                int b = Math.min(BINS - 1, (int) ((_centroids[primitive * 3 + axis] - min) * scale));
+                ++binCounts[b];
+                grow(binBoxes[b], _bounds, primitive);
+            }
+
+            // sweep from the right to get the area and count to the right of every split
+            double[] rightAreas = new double[BINS];
+            int[] rightCounts = new int[BINS];
+            double[] sweep = emptyBox();
+            int sweepCount = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                union(sweep, binBoxes[b]);
+                sweepCount += binCounts[b];
+                rightAreas[b] = sweepCount == 0 ? 0 : area(sweep);
+                rightCounts[b] = sweepCount;
+            }
+            // sweep from the left and find the split of the least cost
+            sweep = emptyBox();
+            sweepCount = 0;
+            int bestSplit = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int b = 1; b < BINS; ++b) {
+                union(sweep, binBoxes[b - 1]);
+                sweepCount += binCounts[b - 1];
+                if (sweepCount == 0 || rightCounts[b] == 0) continue;
+                double cost = area(sweep) * sweepCount + rightAreas[b] * rightCounts[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = b;
+                }
+            }
+
+            double nodeArea = area(box);
+            if (bestSplit < 0) // no finite split (e.g. infinite boxes) - split by count
+                return count <= MAX_LEAF_SIZE ? leaf(box, from, to) : split(box, axis, from, to, (from + to) >>> 1);
+            if (count <= MAX_LEAF_SIZE && bestCost / nodeArea + TRAVERSAL_COST >= count)
+                return leaf(box, from, to);
+
+            // partition the order by the chosen bin
+            int i = from, j = to - 1;
+            while (i <= j) {
+                int b = Math.min(BINS - 1, (int) ((_centroids[_order[i] * 3 + axis] - min) * scale));
+                if (b < bestSplit) {
+                    ++i;
+                } else {
+                    int tmp = _order[i];
+                    _order[i] = _order[j];
+                    _order[j--] = tmp;
+                }
+            }
+            return split(box, axis, from, to, i);
+        }
+
+        /**
+         * build the two children of a node, the big ones in parallel
+         */
+        private Node split(double[] box, int axis, int from, int to, int middle) {
+            Node node = new Node(box);
+            node._axis = axis;
+            if (to - from > PARALLEL_THRESHOLD) {
+                SahTask left = new SahTask(_bounds, _centroids, _order, from, middle);
+                left.fork();
+                node._right = build(middle, to);
+                node._left = left.join();
+            } else {
+                node._left = build(from, middle);
+                node._right = build(middle, to);
+            }
+            return node;
+        }
+    }
+
+    private static void union(double[] box, double[] other) {
+        for (int k = 0; k < 3; ++k) {
+            box[k] = Math.min(box[k], other[k]);
+            box[k + 3] = Math.max(box[k + 3], other[k + 3]);
+        }
+    }
+
+    /**
+     * build a linear BVH - sort the primitives by the Morton codes of their centroids
+     * and split the ranges by the highest different bit of the codes
+     */
+    private Node buildLinear(double[] bounds, double[] centroids, int[] order) {
+        int n = order.length;
+        double[] centroidBox = emptyBox();
+        for (int i = 0; i < n; ++i)
+            for (int k = 0; k < 3; ++k) {
+                centroidBox[k] = Math.min(centroidBox[k], centroids[i * 3 + k]);
+                centroidBox[k + 3] = Math.max(centroidBox[k + 3], centroids[i * 3 + k]);
+            }
+        // the code is in the high bits and the primitive in the low bits, so sorting sorts both
+        long[] keys = new long[n];
+        for (int i = 0; i < n; ++i) {
+            long code = 0;
+            for (int k = 0; k < 3; ++k) {
+                double extent = centroidBox[k + 3] - centroidBox[k];
+                double normalized = extent > 0 ? (centroids[i * 3 + k] - centroidBox[k]) / extent : 0;
+                code |= spread(Math.min(1023, (int) (normalized * 1024))) << (2 - k);
+            }
+            keys[i] = (code << 32) | i;
+        }
+        Arrays.parallelSort(keys);
+        int[] codes = new int[n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = (int) keys[i];
+            codes[i] = (int) (keys[i] >>> 32);
+        }
+        return _pool.invoke(new LinearTask(bounds, order, codes, 0, n));
+    }
+
+    /**
+     * spread the 10 bits of a value to every third bit
+     */
+    private static long spread(int value) {
+        long x = value & 0x3FF;
+        x = (x | (x << 16)) & 0x030000FFL;
+        x = (x | (x << 8)) & 0x0300F00FL;
+        x = (x | (x << 4)) & 0x030C30C3L;
+        x = (x | (x << 2)) & 0x09249249L;
+        return x;
+    }
+
+    /**
+     * Task of a linear BVH sub tree - a range of primitives sorted by their codes
+     */
+    @SuppressWarnings("serial") // a task is never serialized
+    private static final class LinearTask extends RecursiveTask<Node> {
+        private final double[] _bounds;
+        private final int[] _order, _codes;
+        private final int _from, _to;
+
+        LinearTask(double[] bounds, int[] order, int[] codes, int from, int to) {
+            _bounds = bounds;
+            _order = order;
+            _codes = codes;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(_from, _to);
+        }
+
+        private Node build(int from, int to) {
+            if (to - from <= 2) {
+                double[] box = emptyBox();
+                for (int i = from; i < to; ++i)
+                    grow(box, _bounds, _order[i]);
+                return leaf(box, from, to);
+            }
+            int middle, axis = 0;
+            int first = _codes[from], last = _codes[to - 1];
+            if (first == last) {
+                middle = (from + to) >>> 1;
+            } else {
+                // the first primitive that has the highest different bit set
+                int bit = 31 - Integer.numberOfLeadingZeros(first ^ last);
+                axis = 2 - bit % 3;
+                int mask = 1 << bit;
+                int lo = from, hi = to - 1;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if ((_codes[mid] & mask) == 0) lo = mid + 1;
+                    else hi = mid;
+                }
+                middle = lo;
+            }
+
+            Node node;
+            if (to - from > PARALLEL_THRESHOLD) {
+                LinearTask left = new LinearTask(_bounds, _order, _codes, from, middle);
+                left.fork();
+                Node right = build(middle, to);
+                node = join(left.join(), right);
+            } else {
+                node = join(build(from, middle), build(middle, to));
+            }
+            node._axis = axis;
+            return node;
+        }
+
+        private static Node join(Node left, Node right) {
+            double[] box = left._box.clone();
+            union(box, right._box);
+            Node node = new Node(box);
+            node._left = left;
+            node._right = right;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package geometries;
+
+import primitives.*;
+
+/**
+ * Axis aligned bounding box, used by the acceleration structures to skip
+ * the geometries that a ray cannot hit.
+ */
+public final class BoundingBox {
+    /**
+     * the minimal and maximal corners of the box
+     */
+    final double _minX, _minY, _minZ, _maxX, _maxY, _maxZ;
+
+    /**
+     * constructor
+     *
+     * @param minX
+     * @param minY
+     * @param minZ
+     * @param maxX
+     * @param maxY
+     * @param maxZ
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        _minX = minX;
+        _minY = minY;
+        _minZ = minZ;
+        _maxX = maxX;
+        _maxY = maxY;
+        _maxZ = maxZ;
+    }
+
+    /**
+     * create the box of some points
+     *
+     * @param points the points (at least one)
+     * @return the box
+     */
+    public static BoundingBox of(Point3D... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point3D p : points) {
+            double x = p.get_x().get(), y = p.get_y().get(), z = p.get_z().get();
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * get the minimum of an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the minimum
+     */
+    public double getMin(int axis) {
+        return axis == 0 ? _minX : axis == 1 ? _minY : _minZ;
+    }
+
+    /**
+     * get the maximum of an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the maximum
+     */
+    public double getMax(int axis) {
+        return axis == 0 ? _maxX : axis == 1 ? _maxY : _maxZ;
+    }
+
+    /**
+     * get the center of the box on an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the center (0 for an infinite axis)
+     */
+    public double getCenter(int axis) {
+        double center = (getMin(axis) + getMax(axis)) / 2;
+        return Double.isFinite(center) ? center : 0;
+    }
+
+    /**
+     * create the box that contains this box and another one
+     *
+     * @param other the other box
+     * @return the united box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(_minX, other._minX), Math.min(_minY, other._minY), Math.min(_minZ, other._minZ),
+                Math.max(_maxX, other._maxX), Math.max(_maxY, other._maxY), Math.max(_maxZ, other._maxZ));
+    }
+
+    /**
+     * create the box of this box moved by a transformation
+     *
+     * @param transform the transformation
+     * @return the box of the 8 transformed corners
+     */
+    public BoundingBox transform(Transform transform) {
+        Point3D[] corners = new Point3D[8];
+        for (int i = 0; i < 8; ++i)
+            corners[i] = transform.transform(new Point3D(
+                    (i & 1) == 0 ? _minX : _maxX, (i & 2) == 0 ? _minY : _maxY, (i & 4) == 0 ? _minZ : _maxZ));
+        return of(corners);
+    }
+
+    /**
+     * get the surface area of the box
+     *
+     * @return the surface area
+     */
+    public double surfaceArea() {
+        double dx = _maxX - _minX, dy = _maxY - _minY, dz = _maxZ - _minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * slab test of a ray against the box
+     *
+     * @param ray         the ray
+     * @param maxDistance the max distance along the ray
+     * @return true if the ray enters the box before the max distance
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        return intersects(ray.getOriginX(), ray.getOriginY(), ray.getOriginZ(),
+                ray.getInverseX(), ray.getInverseY(), ray.getInverseZ(), maxDistance);
+    }
+
+    /**
+     * slab test of a ray against the box
+     *
+     * @param ox          x of the ray head
+     * @param oy          y of the ray head
+     * @param oz          z of the ray head
+     * @param ix          reciprocal of x of the ray direction
+     * @param iy          reciprocal of y of the ray direction
+     * @param iz          reciprocal of z of the ray direction
+     * @param maxDistance the max distance along the ray
+     * @return true if the ray enters the box before the max distance
+     */
+    public boolean intersects(double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        return entry(_minX, _minY, _minZ, _maxX, _maxY, _maxZ, ox, oy, oz, ix, iy, iz, maxDistance) >= 0;
+    }
+
+    /**
+     * slab test of a ray against a box - the box test of all the acceleration structures.<br/>
+     * A ray in the plane of a side of the box (a NaN distance on the axis) is kept by the other axes.
+     *
+     * @param minX        the minimal x of the box
+     * @param minY        the minimal y of the box
+     * @param minZ        the minimal z of the box
+     * @param maxX        the maximal x of the box
+     * @param maxY        the maximal y of the box
+     * @param maxZ        the maximal z of the box
+     * @param ox          x of the ray head
+     * @param oy          y of the ray head
+     * @param oz          z of the ray head
+     * @param ix          reciprocal of x of the ray direction
+     * @param iy          reciprocal of y of the ray direction
+     * @param iz          reciprocal of z of the ray direction
+     * @param maxDistance the max distance along the ray
+     * @return the distance where the ray enters the box (0 if it starts in the box), or -1 if it does not
+     * enter the box before the max distance
+     */
+    public static double entry(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                               double ox, double oy, double oz, double ix, double iy, double iz,
+                               double maxDistance) {
+        double tMin = 0, tMax = maxDistance;
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        if (t1 > t2) {
+            double t = t1;
+            t1 = t2;
+            t2 = t;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        if (t1 > t2) {
+            double t = t1;
+            t1 = t2;
+            t2 = t;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        if (t1 > t2) {
+            double t = t1;
+            t1 = t2;
+            t2 = t;
+        }
+        if (t1 > tMin) tMin = t1;
+        if (t2 < tMax) tMax = t2;
+        return tMin <= tMax ? tMin : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox: (" + _minX + ", " + _minY + ", " + _minZ + ") - (" + _maxX + ", " + _maxY + ", " + _maxZ + ')';
+    }
+}
@@ -0,0 +1,366 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Compiled (structure of arrays) form of a flat list of intersectables.
+ * The shapes are grouped by their type and their data is copied into contiguous
+ * primitive arrays, so every group is intersected in a tight monomorphic loop
+ * instead of a virtual call per shape.<br/>
+ * Shapes of any other type are kept as they are and tested one by one.
+ * The compiled form is a snapshot - it must be compiled again after the
+ * original geometries have been changed.
+ */
+public class CompiledGeometries implements Intersectable {
+    /**
+     * the spheres and their centers and radii
+     */
+    private final Sphere[] _spheres;
+    private final double[] _sphereX, _sphereY, _sphereZ, _sphereRadius;
+    /**
+     * the triangles, their vertices and the normals of their planes
+     */
+    private final Triangle[] _triangles;
+    private final double[] _ax, _ay, _az, _bx, _by, _bz, _cx, _cy, _cz;
+    private final double[] _triangleNx, _triangleNy, _triangleNz;
+    /**
+     * the planes, their normals and offsets (n * p for any point p of the plane)
+     */
+    private final Plane[] _planes;
+    private final double[] _planeNx, _planeNy, _planeNz, _planeOffset;
+    /**
+     * all the intersectables that have no compiled form
+     */
+    private final Intersectable[] _others;
+    /**
+     * the box of all the shapes (null if any of them is unbounded)
+     */
+    private final BoundingBox _box;
+
+    /**
+     * constructor - compiles a flat list of intersectables
+     *
+     * @param intersectables the intersectables (without nested Geometries)
+     */
+    CompiledGeometries(List<Intersectable> intersectables) {
+        List<Sphere> spheres = new ArrayList<>();
+        List<Triangle> triangles = new ArrayList<>();
+        List<Plane> planes = new ArrayList<>();
+        List<Intersectable> others = new ArrayList<>();
+        for (Intersectable geo : intersectables) {
+            // exact types only - a subclass may override the intersection
+            if (geo.getClass() == Sphere.class)
+                spheres.add((Sphere) geo);
+            else if (geo.getClass() == Triangle.class)
+                triangles.add((Triangle) geo);
+            else if (geo.getClass() == Plane.class)
+                planes.add((Plane) geo);
+            else
+                others.add(geo);
+        }
+
+        int n = spheres.size();
+        _spheres = spheres.toArray(new Sphere[n]);
+        _sphereX = new double[n];
+        _sphereY = new double[n];
+        _sphereZ = new double[n];
+        _sphereRadius = new double[n];
+        for (int i = 0; i < n; ++i) {
+            Point3D center = _spheres[i].getCenter();
+            _sphereX[i] = center.get_x().get();
+            _sphereY[i] = center.get_y().get();
+            _sphereZ[i] = center.get_z().get();
+            _sphereRadius[i] = _spheres[i].get_radius();
+        }
+
+        n = triangles.size();
+        _triangles = triangles.toArray(new Triangle[n]);
+        _ax = new double[n];
+        _ay = new double[n];
+        _az = new double[n];
+        _bx = new double[n];
+        _by = new double[n];
+        _bz = new double[n];
+        _cx = new double[n];
+        _cy = new double[n];
+        _cz = new double[n];
+        _triangleNx = new double[n];
+        _triangleNy = new double[n];
+        _triangleNz = new double[n];
+        for (int i = 0; i < n; ++i) {
+            List<Point3D> vertices = _triangles[i]._vertices;
+            Point3D a = vertices.get(0), b = vertices.get(1), c = vertices.get(2);
+            _ax[i] = a.get_x().get();
+            _ay[i] = a.get_y().get();
+            _az[i] = a.get_z().get();
+            _bx[i] = b.get_x().get();
+            _by[i] = b.get_y().get();
+            _bz[i] = b.get_z().get();
+            _cx[i] = c.get_x().get();
+            _cy[i] = c.get_y().get();
+            _cz[i] = c.get_z().get();
+            Point3D normal = _triangles[i].getNormal(null).get_head();
+            _triangleNx[i] = normal.get_x().get();
+            _triangleNy[i] = normal.get_y().get();
+            _triangleNz[i] = normal.get_z().get();
+        }
+
+        n = planes.size();
+        _planes = planes.toArray(new Plane[n]);
+        _planeNx = new double[n];
+        _planeNy = new double[n];
+        _planeNz = new double[n];
+        _planeOffset = new double[n];
+        for (int i = 0; i < n; ++i) {
+            Point3D normal = _planes[i]._normal.get_head();
+            Point3D p = _planes[i]._p;
+            _planeNx[i] = normal.get_x().get();
+            _planeNy[i] = normal.get_y().get();
+            _planeNz[i] = normal.get_z().get();
+            _planeOffset[i] = _planeNx[i] * p.get_x().get() + _planeNy[i] * p.get_y().get() + _planeNz[i] * p.get_z().get();
+        }
+
+        _others = others.toArray(new Intersectable[others.size()]);
+
+        BoundingBox box = null;
+        for (Intersectable geo : intersectables) {
+            BoundingBox geoBox = geo.getBoundingBox();
+            if (geoBox == null) {
+                box = null;
+                break;
+            }
+            box = box == null ? geoBox : box.union(geoBox);
+        }
+        _box = box;
+    }
+
+    /**
+     * get the bounding box of the compiled geometries
+     *
+     * @return the united box, or null if empty or any of the geometries is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return _box;
+    }
+
+    /**
+     * get the amount of compiled shapes (without the shapes that have no compiled form)
+     *
+     * @return the amount of spheres, triangles and planes
+     */
+    public int getCompiledCount() {
+        return _spheres.length + _triangles.length + _planes.length;
+    }
+
+    /**
+     * find the intersections
+     *
+     * @param ray         the ray that intersect the geometries
+     * @param maxDistance the max distance between the ray and the geometries
+     * @return list of GeoPoints that intersect the geometries or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+
+        List<GeoPoint> intersections = null;
+        intersections = intersectSpheres(ray, maxDistance, ox, oy, oz, vx, vy, vz, intersections, null, null);
+        intersections = intersectTriangles(ray, maxDistance, ox, oy, oz, vx, vy, vz, intersections, null, null);
+        intersections = intersectPlanes(ray, maxDistance, ox, oy, oz, vx, vy, vz, intersections, null, null);
+
+        for (Intersectable geo : _others) {
+            List<GeoPoint> tempIntersections = geo.findIntersections(ray, maxDistance);
+            if (tempIntersections != null) {
+                if (intersections == null)
+                    intersections = new ArrayList<>();
+                intersections.addAll(tempIntersections);
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the shapes hit by a ray - the shapes are
+     * tested in the same order as the intersections are found, and the test stops when the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+
+        intersectSpheres(ray, maxDistance, ox, oy, oz, vx, vy, vz, null, transmittance, null);
+        intersectTriangles(ray, maxDistance, ox, oy, oz, vx, vy, vz, null, transmittance, null);
+        intersectPlanes(ray, maxDistance, ox, oy, oz, vx, vy, vz, null, transmittance, null);
+        if (transmittance.isBlocked())
+            return true;
+        for (Intersectable geo : _others)
+            if (geo.accumulateTransmittance(ray, maxDistance, transmittance))
+                return true;
+        return false;
+    }
+
+    /**
+     * find the closest hit - every group keeps only the hits that are closer than the hit
+     * found so far, and no point is created
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+        double maxDistance = hit.getT();
+
+        intersectSpheres(ray, hit.getT(), ox, oy, oz, vx, vy, vz, null, null, hit);
+        intersectTriangles(ray, hit.getT(), ox, oy, oz, vx, vy, vz, null, null, hit);
+        intersectPlanes(ray, hit.getT(), ox, oy, oz, vx, vy, vz, null, null, hit);
+        for (Intersectable geo : _others)
+            geo.intersect(ray, hit);
+        return hit.getT() < maxDistance;
+    }
+
+    /**
+     * add an intersection point to the list - create the list if needed, or only multiply
+     * the transmittance of a shadow ray, or only keep a closer hit (no point is created then)
+     *
+     * @param intersections the list (may be null)
+     * @param transmittance the transmittance of a shadow ray, null to add the point to the list
+     * @param hit           the closest hit of a closest hit query, null to add the point to the list
+     * @param geometry      the intersected geometry
+     * @param ray           the ray
+     * @param t             the distance of the point along the ray
+     * @return the list
+     */
+    private static List<GeoPoint> addPoint(List<GeoPoint> intersections, Transmittance transmittance, Hit hit,
+                                           Geometry geometry, Ray ray, double t) {
+        if (transmittance != null) {
+            transmittance.add(geometry);
+            return intersections;
+        }
+        if (hit != null) {
+            if (hit.isCloser(t))
+                hit.set(t, geometry);
+            return intersections;
+        }
+        if (intersections == null)
+            intersections = new ArrayList<>();
+        intersections.add(new GeoPoint(geometry, ray, t));
+        return intersections;
+    }
+
+    /**
+     * intersect the ray with all the spheres (same calculation as {@link Sphere#findIntersections(Ray, double)})
+     */
+    private List<GeoPoint> intersectSpheres(Ray ray, double maxDistance, double ox, double oy, double oz,
+                                            double vx, double vy, double vz, List<GeoPoint> intersections,
+                                            Transmittance transmittance, Hit hit) {
+        for (int i = 0; i < _spheres.length && (transmittance == null || !transmittance.isBlocked()); ++i) {
+            double ux = alignZero(_sphereX[i] - ox);
+            double uy = alignZero(_sphereY[i] - oy);
+            double uz = alignZero(_sphereZ[i] - oz);
+            double radius = _sphereRadius[i];
+            if (ux == 0 && uy == 0 && uz == 0) { // p0 == center
+                intersections = addPoint(intersections, transmittance, hit, _spheres[i], ray, radius);
+                continue;
+            }
+            double tm = alignZero(vx * ux + vy * uy + vz * uz);
+            double uSquared = ux * ux + uy * uy + uz * uz;
+            double dSquared = (tm == 0) ? uSquared : uSquared - tm * tm;
+            double thSquared = alignZero(radius * radius - dSquared);
+            if (thSquared <= 0) continue;
+
+            double th = alignZero(Math.sqrt(thSquared));
+            if (th == 0) continue;
+
+            double t1 = alignZero(tm - th);
+            double t2 = alignZero(tm + th);
+            if (t1 > 0 && alignZero(maxDistance - t1) > 0)
+                intersections = addPoint(intersections, transmittance, hit, _spheres[i], ray, t1);
+            if (t2 > 0 && alignZero(maxDistance - t2) > 0)
+                intersections = addPoint(intersections, transmittance, hit, _spheres[i], ray, t2);
+        }
+        return intersections;
+    }
+
+    /**
+     * intersect the ray with all the triangles (same calculation as {@link Polygon#findIntersections(Ray, double)})
+     */
+    private List<GeoPoint> intersectTriangles(Ray ray, double maxDistance, double ox, double oy, double oz,
+                                              double vx, double vy, double vz, List<GeoPoint> intersections,
+                                              Transmittance transmittance, Hit hit) {
+        for (int i = 0; i < _triangles.length && (transmittance == null || !transmittance.isBlocked()); ++i) {
+            // the vertices relative to the ray head
+            double ax = _ax[i] - ox, ay = _ay[i] - oy, az = _az[i] - oz;
+            if (isZero(ax) && isZero(ay) && isZero(az)) continue; // ray starts at the plane point
+
+            double nx = _triangleNx[i], ny = _triangleNy[i], nz = _triangleNz[i];
+            double nv = nx * vx + ny * vy + nz * vz;
+            if (isZero(nv)) continue; // ray is parallel to the plane
+            double t = alignZero((nx * ax + ny * ay + nz * az) / nv);
+            if (t <= 0 || alignZero(maxDistance - t) <= 0) continue;
+
+            double bx = _bx[i] - ox, by = _by[i] - oy, bz = _bz[i] - oz;
+            double cx = _cx[i] - ox, cy = _cy[i] - oy, cz = _cz[i] - oz;
+            // the edges are checked in the same order as the polygon does: (b,a), (a,c), (c,b)
+            double s1 = edgeSign(vx, vy, vz, bx, by, bz, ax, ay, az);
+            if (s1 == 0) continue;
+            double s2 = edgeSign(vx, vy, vz, ax, ay, az, cx, cy, cz);
+            if (s2 == 0 || (s1 > 0) != (s2 > 0)) continue;
+            double s3 = edgeSign(vx, vy, vz, cx, cy, cz, bx, by, bz);
+            if (s3 == 0 || (s1 > 0) != (s3 > 0)) continue;
+
+            intersections = addPoint(intersections, transmittance, hit, _triangles[i], ray, t);
+        }
+        return intersections;
+    }
+
+    /**
+     * the sign of the ray direction against the normalized cross product of two vertices (relative to the ray head)
+     *
+     * @return the aligned dot product - 0 if the ray goes on the edge
+     */
+    static double edgeSign(double vx, double vy, double vz,
+                                   double x1, double y1, double z1, double x2, double y2, double z2) {
+        double nx = y1 * z2 - z1 * y2;
+        double ny = z1 * x2 - x1 * z2;
+        double nz = x1 * y2 - y1 * x2;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (isZero(length)) return 0;
+        return alignZero((vx * nx + vy * ny + vz * nz) / length);
+    }
+
+    /**
+     * intersect the ray with all the planes (same calculation as {@link Plane#findIntersections(Ray, double)})
+     */
+    private List<GeoPoint> intersectPlanes(Ray ray, double maxDistance, double ox, double oy, double oz,
+                                           double vx, double vy, double vz, List<GeoPoint> intersections,
+                                           Transmittance transmittance, Hit hit) {
+        for (int i = 0; i < _planes.length && (transmittance == null || !transmittance.isBlocked()); ++i) {
+            double nx = _planeNx[i], ny = _planeNy[i], nz = _planeNz[i];
+            double nv = nx * vx + ny * vy + nz * vz;
+            if (isZero(nv)) continue; // ray is parallel to the plane
+            double np0 = _planeOffset[i] - (nx * ox + ny * oy + nz * oz);
+            if (isZero(np0)) continue; // ray starts on the plane
+            double t = alignZero(np0 / nv);
+            if (t <= 0 || alignZero(maxDistance - t) <= 0) continue;
+
+            intersections = addPoint(intersections, transmittance, hit, _planes[i], ray, t);
+        }
+        return intersections;
+    }
+}
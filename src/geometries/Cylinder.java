@@ -38,6 +38,24 @@ public class Cylinder extends Tube {
         return _height;
     }
 
+    /**
+     * get the bounding box of the cylinder - the box of the two base discs
+     *
+     * @return the bounding box
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        Point3D o = _ray.get_origin();
+        Point3D top = o.add(_ray.get_vector().scale(_height));
+        BoundingBox axis = BoundingBox.of(o, top);
+        // the extent of a disc along an axis is the radius times the sine of the angle to its normal
+        double eX = _radius * Math.sqrt(Math.max(0, 1 - _ray.getDirectionX() * _ray.getDirectionX())),
+                eY = _radius * Math.sqrt(Math.max(0, 1 - _ray.getDirectionY() * _ray.getDirectionY())),
+                eZ = _radius * Math.sqrt(Math.max(0, 1 - _ray.getDirectionZ() * _ray.getDirectionZ()));
+        return new BoundingBox(axis._minX - eX, axis._minY - eY, axis._minZ - eZ,
+                axis._maxX + eX, axis._maxY + eY, axis._maxZ + eZ);
+    }
+
     /**
      * @param point point to calculate the normal
      * @return normal
@@ -64,18 +82,57 @@ public class Cylinder extends Tube {
     }
 
     /**
-     * find the intersections
-     * @param ray ray pointing toward a Geometry
-     * @return a list of GeoPoints
+     * find the intersections with the side between the bases and with the two bases
+     *
+     * @param ray         ray pointing toward the cylinder
+     * @param maxDistance the max distance along the ray
+     * @return a list of GeoPoints, or null if there are no intersections
      */
     @Override
-    public List<GeoPoint> findIntersections(Ray ray) {
-        List<GeoPoint> intersections = super.findIntersections(ray);
-        if (intersections != null) {
-            for (GeoPoint geoPoint : intersections) {
-                geoPoint._geometry = this;
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        // the vector from the origin of the axis to the ray head and its projection on the axis
+        double wX = ray.getOriginX() - _ray.getOriginX(),
+                wY = ray.getOriginY() - _ray.getOriginY(),
+                wZ = ray.getOriginZ() - _ray.getOriginZ();
+        double axisW = wX * _ray.getDirectionX() + wY * _ray.getDirectionY() + wZ * _ray.getDirectionZ();
+        double axisDir = ray.getDirectionX() * _ray.getDirectionX() + ray.getDirectionY() * _ray.getDirectionY()
+                + ray.getDirectionZ() * _ray.getDirectionZ();
+
+        List<GeoPoint> intersections = null;
+        // the side - the tube equation on the components orthogonal to the axis, between the bases
+        double vX = _ray.getDirectionX(), vY = _ray.getDirectionY(), vZ = _ray.getDirectionZ();
+        double dX = ray.getDirectionX() - axisDir * vX, dY = ray.getDirectionY() - axisDir * vY,
+                dZ = ray.getDirectionZ() - axisDir * vZ;
+        double qX = wX - axisW * vX, qY = wY - axisW * vY, qZ = wZ - axisW * vZ;
+        double a = dX * dX + dY * dY + dZ * dZ;
+        if (!isZero(a)) { // a ray parallel to the axis may only cross the bases
+            double b = dX * qX + dY * qY + dZ * qZ;
+            double c = qX * qX + qY * qY + qZ * qZ - _radius * _radius;
+            double discriminant = alignZero(b * b - a * c);
+            if (discriminant > 0) {
+                double root = Math.sqrt(discriminant);
+                for (double t : new double[]{(-b - root) / a, (-b + root) / a}) {
+                    t = alignZero(t);
+                    double height = alignZero(axisW + t * axisDir);
+                    if (t > 0 && alignZero(t - maxDistance) <= 0 && height > 0 && alignZero(height - _height) < 0) {
+                        if (intersections == null) intersections = new LinkedList<>();
+                        intersections.add(new GeoPoint(this, ray, t));
+                    }
+                }
+            }
+        }
+
+        // the bases - a ray parallel to the bases may only cross the side
+        if (isZero(axisDir)) return intersections;
+        for (double base : new double[]{0, _height}) {
+            double t = alignZero((base - axisW) / axisDir);
+            if (t <= 0 || alignZero(t - maxDistance) > 0) continue;
+            double pX = wX + t * ray.getDirectionX(), pY = wY + t * ray.getDirectionY(), pZ = wZ + t * ray.getDirectionZ();
+            if (alignZero(pX * pX + pY * pY + pZ * pZ - base * base - _radius * _radius) < 0) {
+                if (intersections == null) intersections = new LinkedList<>();
+                intersections.add(new GeoPoint(this, ray, t));
             }
         }
         return intersections;
     }
-}
\ No newline at end of file
+}
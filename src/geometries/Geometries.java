@@ -4,6 +4,7 @@ import primitives.Point3D;
 import primitives.Ray;
 
 import javax.print.DocFlavor;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.Arrays;
 import java.util.List;
@@ -56,6 +57,131 @@ public class Geometries implements Intersectable {
 
     }
 
+    /**
+     * find the closest hit - every geometry keeps its hit only if it is closer than the hit found so far
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        boolean found = false;
+        for (Intersectable geo : _geometries)
+            found |= geo.intersect(ray, hit);
+        return found;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the geometries hit by a ray, until the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        for (Intersectable geo : _geometries)
+            if (geo.accumulateTransmittance(ray, maxDistance, transmittance))
+                return true;
+        return false;
+    }
+
+    /**
+     * get the bounding box of all the geometries
+     *
+     * @return the united box, or null if the list is empty or any of the geometries is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable geo : _geometries) {
+            BoundingBox geoBox = geo.getBoundingBox();
+            if (geoBox == null)
+                return null;
+            box = box == null ? geoBox : box.union(geoBox);
+        }
+        return box;
+    }
+
+    /**
+     * get the bounding box of the bounded geometries - the unbounded geometries are left out
+     *
+     * @return the united box, or null if there are no bounded geometries
+     */
+    public BoundingBox getFiniteBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable geo : _geometries) {
+            BoundingBox geoBox = geo instanceof Geometries ? ((Geometries) geo).getFiniteBoundingBox()
+                    : geo.getBoundingBox();
+            if (geoBox != null)
+                box = box == null ? geoBox : box.union(geoBox);
+        }
+        return box;
+    }
+
+    /**
+     * compile the geometries (and all the nested Geometries) into a structure of arrays
+     * that is faster to intersect
+     *
+     * @return the compiled geometries
+     */
+    public CompiledGeometries compile() {
+        List<Intersectable> flat = new ArrayList<>();
+        flatten(flat);
+        return new CompiledGeometries(flat);
+    }
+
+    /**
+     * build a bounding volume hierarchy over the geometries (and all the nested Geometries)
+     *
+     * @param quality quality of the build - SAH for final renders, LBVH for fast preview builds
+     * @return the hierarchy
+     */
+    public BVH buildHierarchy(BVHBuilder.Quality quality) {
+        List<Intersectable> flat = new ArrayList<>();
+        flatten(flat);
+        return new BVH(flat, quality);
+    }
+
+    /**
+     * build a uniform grid over the geometries (and all the nested Geometries)
+     *
+     * @return the grid
+     */
+    public UniformGrid buildGrid() {
+        List<Intersectable> flat = new ArrayList<>();
+        flatten(flat);
+        return new UniformGrid(flat);
+    }
+
+    /**
+     * get the amount of the geometries including the content of the nested Geometries
+     *
+     * @return the amount of geometries
+     */
+    public int flatSize() {
+        int size = 0;
+        for (Intersectable geo : _geometries)
+            size += geo instanceof Geometries ? ((Geometries) geo).flatSize() : 1;
+        return size;
+    }
+
+    /**
+     * add all the intersectables to a list, replacing nested Geometries by their content
+     *
+     * @param flat the list to fill
+     */
+    void flatten(List<Intersectable> flat) {
+        for (Intersectable geo : _geometries) {
+            if (geo instanceof Geometries)
+                ((Geometries) geo).flatten(flat);
+            else
+                flat.add(geo);
+        }
+    }
+
     /**
      * remove the some intersectables from the list
      *
@@ -2,6 +2,8 @@ package geometries;
 
 import primitives.*;
 
+import static primitives.Util.alignZero;
+
 /**
  * interface Geometry is the basic interface for all geometric objects
  * who are implementing getNormal method.
@@ -66,4 +68,21 @@ public abstract class Geometry implements Intersectable {
      * @return the normal vector
      */
     abstract public Vector getNormal(Point3D p);
-}
\ No newline at end of file
+
+    /**
+     * keep a hit of a ray with the geometry found by a direct calculation - as the closest hit of
+     * a closest hit query, or multiply the transmittance of a shadow ray by the transparency of the geometry
+     *
+     * @param t             the distance of the hit along the ray
+     * @param maxDistance   the max distance along the ray
+     * @param hit           the closest hit of a closest hit query, null for a shadow ray
+     * @param transmittance the transmittance of a shadow ray, null for a closest hit query
+     * @return true if the hit was kept as the closest one, or if the light is blocked
+     */
+    boolean addHit(double t, double maxDistance, Hit hit, Transmittance transmittance) {
+        if (t <= 0 || alignZero(maxDistance - t) <= 0) return false;
+        if (transmittance != null) return transmittance.add(this);
+        hit.set(t, this);
+        return true;
+    }
+}
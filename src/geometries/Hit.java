@@ -0,0 +1,170 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Ray;
+
+import static primitives.Util.alignZero;
+
+/**
+ * Mutable record of the closest hit of a ray found so far - the distance along the ray,
+ * the hit geometry and the parametric data of the hit (the primitive of a mesh and the
+ * barycentric coordinates of a triangle).<br/>
+ * The closest hit queries only shrink the distance and replace the geometry, no point is
+ * created until the winning hit is shaded through {@link #toGeoPoint(Ray)}.
+ * A record is used by a single query at a time.
+ */
+public class Hit {
+    private double _t;
+    private Geometry _geometry;
+    private int _primitive;
+    private double _u, _v;
+    /**
+     * the intersection of a hit found by a query that created it anyway (null for the parametric hits)
+     */
+    private GeoPoint _geoPoint;
+
+    /**
+     * constructor - no hit up to an infinite distance
+     */
+    public Hit() {
+        this(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * constructor - no hit up to a max distance
+     *
+     * @param maxDistance the max distance along the ray
+     */
+    public Hit(double maxDistance) {
+        reset(maxDistance);
+    }
+
+    /**
+     * clear the record for a new query
+     *
+     * @param maxDistance the max distance along the ray
+     * @return the record itself
+     */
+    public Hit reset(double maxDistance) {
+        _t = maxDistance;
+        _geometry = null;
+        _primitive = -1;
+        _u = _v = 0;
+        _geoPoint = null;
+        return this;
+    }
+
+    /**
+     * check if a distance is a valid hit closer than the current one
+     *
+     * @param t the distance along the ray
+     * @return true if the distance is positive and before the current distance
+     */
+    public boolean isCloser(double t) {
+        return t > 0 && alignZero(_t - t) > 0;
+    }
+
+    /**
+     * keep a closer hit of a geometry
+     *
+     * @param t        the distance along the ray
+     * @param geometry the hit geometry
+     */
+    public void set(double t, Geometry geometry) {
+        set(t, geometry, -1, 0, 0);
+    }
+
+    /**
+     * keep a closer hit of a primitive of a geometry
+     *
+     * @param t         the distance along the ray
+     * @param geometry  the hit geometry
+     * @param primitive the index of the hit primitive (as the triangle of a mesh)
+     * @param u         the first barycentric coordinate of the hit
+     * @param v         the second barycentric coordinate of the hit
+     */
+    public void set(double t, Geometry geometry, int primitive, double u, double v) {
+        _t = t;
+        _geometry = geometry;
+        _primitive = primitive;
+        _u = u;
+        _v = v;
+        _geoPoint = null;
+    }
+
+    /**
+     * keep a closer hit that was found as an intersection
+     *
+     * @param t        the distance of the intersection along the ray
+     * @param geoPoint the intersection
+     */
+    void set(double t, GeoPoint geoPoint) {
+        set(t, geoPoint.getGeometry());
+        _geoPoint = geoPoint;
+    }
+
+    /**
+     * check if a hit was found
+     *
+     * @return true if the record keeps a geometry
+     */
+    public boolean isHit() {
+        return _geometry != null;
+    }
+
+    /**
+     * get the distance of the hit (the max distance while there is no hit)
+     *
+     * @return the distance along the ray
+     */
+    public double getT() {
+        return _t;
+    }
+
+    /**
+     * get the hit geometry
+     *
+     * @return the geometry, null if there is no hit
+     */
+    public Geometry getGeometry() {
+        return _geometry;
+    }
+
+    /**
+     * get the hit primitive
+     *
+     * @return the index of the primitive, -1 if the geometry has no primitives
+     */
+    public int getPrimitive() {
+        return _primitive;
+    }
+
+    /**
+     * get the first barycentric coordinate of the hit
+     *
+     * @return u
+     */
+    public double getU() {
+        return _u;
+    }
+
+    /**
+     * get the second barycentric coordinate of the hit
+     *
+     * @return v
+     */
+    public double getV() {
+        return _v;
+    }
+
+    /**
+     * get the intersection of the hit - its point is calculated only when it is used
+     *
+     * @param ray the ray of the query
+     * @return the intersection with the hit geometry, or null if there is no hit
+     */
+    public GeoPoint toGeoPoint(Ray ray) {
+        if (_geometry == null) return null;
+        return _geoPoint != null ? _geoPoint : new GeoPoint(_geometry, ray, _t);
+    }
+}
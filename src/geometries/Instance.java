@@ -0,0 +1,236 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An instance of a shared geometry (a single shape, a Geometries group, a mesh...) placed
+ * in the scene by an affine transformation, optionally with its own emission and material.<br/>
+ * The shared geometry is never copied - the ray is transformed into the object space of the
+ * geometry instead, so a thousand instances cost a thousand small objects and not a thousand
+ * copies of the geometry.
+ */
+public class Instance implements Intersectable {
+    /**
+     * the shared geometry
+     */
+    private final Intersectable _geometry;
+    /**
+     * object space to world space transformation
+     */
+    private final Transform _toWorld;
+    /**
+     * world space to object space transformation
+     */
+    private final Transform _toObject;
+    /**
+     * override of the emission and the material of the shared geometry (null for none)
+     */
+    private final Color _emission;
+    private final Material _material;
+    /**
+     * the geometries of the shared geometry as they appear in this instance - one per geometry of the
+     * shared geometry, created on its first hit
+     */
+    private final Map<Geometry, InstanceGeometry> _instanceGeometries = new ConcurrentHashMap<>();
+
+    /**
+     * constructor
+     *
+     * @param geometry the shared geometry
+     * @param toWorld  the transformation that places the geometry in the world
+     * @throws IllegalArgumentException if the transformation cannot be inverted
+     */
+    public Instance(Intersectable geometry, Transform toWorld) {
+        this(geometry, toWorld, null, null);
+    }
+
+    /**
+     * constructor with emission and material that override the ones of the shared geometry
+     *
+     * @param geometry the shared geometry
+     * @param toWorld  the transformation that places the geometry in the world
+     * @param emission the emission of the instance (null to keep the shared one)
+     * @param material the material of the instance (null to keep the shared one)
+     * @throws IllegalArgumentException if the transformation cannot be inverted
+     */
+    public Instance(Intersectable geometry, Transform toWorld, Color emission, Material material) {
+        _geometry = geometry;
+        _toWorld = toWorld;
+        _toObject = toWorld.inverse();
+        _emission = emission == null ? null : new Color(emission);
+        _material = material == null ? null : new Material(material);
+    }
+
+    /**
+     * get the shared geometry
+     *
+     * @return the shared geometry
+     */
+    public Intersectable getGeometry() {
+        return _geometry;
+    }
+
+    /**
+     * get the object space to world space transformation
+     *
+     * @return the transformation
+     */
+    public Transform getTransform() {
+        return _toWorld;
+    }
+
+    /**
+     * get the bounding box of the instance in the world
+     *
+     * @return the transformed box of the shared geometry, or null if it is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = _geometry.getBoundingBox();
+        return box == null ? null : box.transform(_toWorld);
+    }
+
+    /**
+     * find the intersections - the ray is moved to the object space of the shared geometry
+     * and the points found are moved back to the world
+     *
+     * @param ray         the ray in the world
+     * @param maxDistance the max distance in the world
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        Vector direction = _toObject.transform(ray.get_vector());
+        // distances along the normalized object ray are scaled by the length of the transformed direction
+        double objectMax = maxDistance * direction.length();
+        List<GeoPoint> objectIntersections = _geometry.findIntersections(
+                new Ray(_toObject.transform(ray.get_origin()), direction), objectMax);
+        if (objectIntersections == null)
+            return null;
+
+        List<GeoPoint> intersections = new ArrayList<>(objectIntersections.size());
+        for (GeoPoint gp : objectIntersections)
+            intersections.add(new GeoPoint(getInstanceGeometry(gp.getGeometry()), _toWorld.transform(gp.getPoint())));
+        return intersections;
+    }
+
+    /**
+     * find the closest hit in the object space of the shared geometry - the distances along the
+     * normalized object ray are divided by the length of the transformed direction, and only the
+     * geometry of the winning hit is wrapped
+     *
+     * @param ray the ray in the world
+     * @param hit the closest hit so far in the world
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        Vector direction = _toObject.transform(ray.get_vector());
+        double scale = direction.length();
+        Hit objectHit = new Hit(hit.getT() * scale);
+        if (!_geometry.intersect(new Ray(_toObject.transform(ray.get_origin()), direction), objectHit))
+            return false;
+        hit.set(objectHit.getT() / scale, getInstanceGeometry(objectHit.getGeometry()), objectHit.getPrimitive(),
+                objectHit.getU(), objectHit.getV());
+        return true;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the geometries hit in the object space of the
+     * shared geometry - they are added as they appear in this instance (with its material)
+     *
+     * @param ray           the shadow ray in the world
+     * @param maxDistance   the max distance in the world
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        Vector direction = _toObject.transform(ray.get_vector());
+        double objectMax = maxDistance * direction.length();
+        return _geometry.accumulateTransmittance(new Ray(_toObject.transform(ray.get_origin()), direction),
+                objectMax, new Transmittance(transmittance, this));
+    }
+
+    /**
+     * get a geometry of the shared geometry as it appears in this instance
+     *
+     * @param source the geometry in object space
+     * @return the geometry of the instance - the same one on every hit of the source
+     */
+    InstanceGeometry getInstanceGeometry(Geometry source) {
+        return _instanceGeometries.computeIfAbsent(source, InstanceGeometry::new);
+    }
+
+    /**
+     * A geometry of the shared geometry as it appears in this instance - it transforms the normals
+     * and replaces the emission and the material.
+     */
+    public class InstanceGeometry extends Geometry {
+        /**
+         * the geometry in object space
+         */
+        private final Geometry _source;
+
+        /**
+         * constructor
+         *
+         * @param source the geometry in object space
+         */
+        private InstanceGeometry(Geometry source) {
+            super(Instance.this._emission == null ? source.getEmissionLight() : Instance.this._emission,
+                    Instance.this._material == null ? source.getMaterial() : Instance.this._material);
+            _source = source;
+        }
+
+        /**
+         * get the normal in the world
+         *
+         * @param p a point on the geometry in the world
+         * @return the normal
+         */
+        @Override
+        public Vector getNormal(Point3D p) {
+            return _toObject.transformNormal(_source.getNormal(_toObject.transform(p)));
+        }
+
+        /**
+         * intersect only this geometry of the instance
+         */
+        @Override
+        public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+            Vector direction = _toObject.transform(ray.get_vector());
+            double objectMax = maxDistance * direction.length();
+            List<GeoPoint> objectIntersections = _source.findIntersections(
+                    new Ray(_toObject.transform(ray.get_origin()), direction), objectMax);
+            if (objectIntersections == null)
+                return null;
+            List<GeoPoint> intersections = new ArrayList<>(objectIntersections.size());
+            for (GeoPoint gp : objectIntersections)
+                intersections.add(new GeoPoint(this, _toWorld.transform(gp.getPoint())));
+            return intersections;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof InstanceGeometry)) return false;
+            InstanceGeometry other = (InstanceGeometry) o;
+            return getInstance() == other.getInstance() && _source.equals(other._source);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(getInstance()) * 31 + _source.hashCode();
+        }
+
+        private Instance getInstance() {
+            return Instance.this;
+        }
+    }
+}
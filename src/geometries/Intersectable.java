@@ -29,29 +29,135 @@ public interface Intersectable {
      */
     List<GeoPoint> findIntersections(Ray ray, double maxDistance);
 
+    /**
+     * find the intersection closest to the ray head
+     *
+     * @param ray         pointing toward a Geometry
+     * @param maxDistance the max distance between the ray and the geometry
+     * @return the closest intersection or null if there are none
+     */
+    default GeoPoint findClosestIntersection(Ray ray, double maxDistance) {
+        Hit hit = new Hit(maxDistance);
+        return intersect(ray, hit) ? hit.toGeoPoint(ray) : null;
+    }
+
+    /**
+     * find an intersection closer than the hit found so far and keep it in the hit record
+     *
+     * @param ray pointing toward a Geometry
+     * @param hit the closest hit so far - its distance is the max distance of the query
+     * @return true if a closer hit was found
+     */
+    default boolean intersect(Ray ray, Hit hit) {
+        List<GeoPoint> intersections = findIntersections(ray, hit.getT());
+        if (intersections == null)
+            return false;
+
+        boolean found = false;
+        for (GeoPoint geoPoint : intersections) {
+            double distance = geoPoint.getDistance(ray);
+            if (distance < hit.getT()) {
+                hit.set(distance, geoPoint);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the geometries hit by a ray up to a max distance
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray (the distance of the light)
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked - the query stops there
+     */
+    default boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        List<GeoPoint> intersections = findIntersections(ray, maxDistance);
+        if (intersections != null)
+            for (GeoPoint geoPoint : intersections)
+                if (transmittance.add(geoPoint.getGeometry()))
+                    return true;
+        return false;
+    }
+
+    /**
+     * get the bounding box of the intersectable
+     *
+     * @return the bounding box, or null if the intersectable is unbounded (as a plane)
+     */
+    default BoundingBox getBoundingBox() {
+        return null;
+    }
+
     /**
      * GeoPoint is just a tuple holding
-     * references to a specific point ain a specific geometry
+     * references to a specific point ain a specific geometry.<br/>
+     * A point found by a ray may keep only the ray and its distance along the ray - the point
+     * and the normal are calculated on first use, so the intersections that are not shaded
+     * (all but the closest one) never create them.
      */
     class GeoPoint {
 
         protected Geometry _geometry;
         protected Point3D _point;
+        /**
+         * the ray and the distance of the point along it (null ray for a point given as is)
+         */
+        private Ray _ray;
+        private double _t;
+        private Vector _normal;
 
         public GeoPoint(Geometry geometry, Point3D pt) {
             this._geometry = geometry;
             this._point = pt;
         }
 
+        /**
+         * constructor - a point on a ray, calculated on first use
+         *
+         * @param geometry the geometry
+         * @param ray      the ray that hits the geometry
+         * @param t        the distance of the point along the ray
+         */
+        public GeoPoint(Geometry geometry, Ray ray, double t) {
+            this._geometry = geometry;
+            this._ray = ray;
+            this._t = t;
+        }
+
         /**
          * get the point of the GeoPoint
          *
          * @return the point
          */
         public Point3D getPoint() {
+            if (_point == null)
+                _point = _ray.getTargetPoint(_t);
             return _point;
         }
 
+        /**
+         * get the distance of the point from the head of the ray that found it
+         *
+         * @param ray the ray that found the point
+         * @return the distance along the ray
+         */
+        public double getDistance(Ray ray) {
+            return _ray != null ? _t : ray.get_origin().distance(_point);
+        }
+
+        /**
+         * get the normal of the geometry at the point
+         *
+         * @return the normal
+         */
+        public Vector getNormal() {
+            if (_normal == null)
+                _normal = _geometry.getNormal(getPoint());
+            return _normal;
+        }
+
         /**
          * get the Geometry of the GeoPoint
          *
@@ -68,7 +174,7 @@ public interface Intersectable {
 
             GeoPoint geoPoint = (GeoPoint) o;
 
-            return ((_geometry.equals(geoPoint._geometry)) && (_point.equals(geoPoint._point)));
+            return ((_geometry.equals(geoPoint._geometry)) && (getPoint().equals(geoPoint.getPoint())));
         }
     }
     //end of GeoPoint
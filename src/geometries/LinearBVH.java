@@ -0,0 +1,297 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Linear (flattened) form of a {@link BVH}.<br/>
+ * The nodes are stored depth first in two arrays instead of node objects: the boxes in a float
+ * array (6 values per node, rounded outwards) and the structure in an int array (2 values per node).
+ * The first child of an inner node is the next node, the second child is kept by its index.
+ * A leaf keeps the range of its intersectables.
+ * The intersectables without a bounding box are kept aside as in the hierarchy.
+ * The traversal uses an explicit int stack and visits the near child first, so a closest hit
+ * query skips the far nodes that are behind the closest intersection found so far.
+ */
+public class LinearBVH implements Intersectable {
+    /**
+     * memory of a node in the arrays: 6 floats of the box and 2 ints
+     */
+    private static final int BYTES_PER_NODE = 6 * Float.BYTES + 2 * Integer.BYTES;
+
+    /**
+     * the boxes of the nodes: min x, y, z and max x, y, z
+     */
+    private final float[] _bounds;
+    /**
+     * per node: for an inner node the index of the second child and -(axis + 1),
+     * for a leaf the first intersectable and the amount of its intersectables
+     */
+    private final int[] _nodes;
+    final Intersectable[] _intersectables;
+    final Intersectable[] _unbounded;
+    private final int _nodeCount;
+    /**
+     * depth of the tree - the size of the traversal stack
+     */
+    private final int _depth;
+    private final LongAdder _rays = new LongAdder();
+    private final LongAdder _steps = new LongAdder();
+
+    /**
+     * constructor - flattens the nodes of a hierarchy
+     *
+     * @param bvh the hierarchy
+     */
+    public LinearBVH(BVH bvh) {
+        _intersectables = bvh._intersectables;
+        _unbounded = bvh._unbounded;
+        _nodeCount = bvh.getBuildStats().getNodes();
+        _depth = bvh.getBuildStats().getMaxDepth() + 1;
+        _bounds = new float[_nodeCount * 6];
+        _nodes = new int[_nodeCount * 2];
+        if (bvh._root != null)
+            flatten(bvh._root, 0);
+    }
+
+    /**
+     * store a sub tree depth first
+     *
+     * @param node  the root of the sub tree
+     * @param index the index of the root
+     * @return the index after the last node of the sub tree
+     */
+    private int flatten(BVHBuilder.Node node, int index) {
+        for (int k = 0; k < 3; ++k) {
+            _bounds[index * 6 + k] = roundDown(node._box[k]);
+            _bounds[index * 6 + k + 3] = roundUp(node._box[k + 3]);
+        }
+        if (node.isLeaf()) {
+            _nodes[index * 2] = node._first;
+            _nodes[index * 2 + 1] = node._count;
+            return index + 1;
+        }
+        int second = flatten(node._left, index + 1);
+        _nodes[index * 2] = second;
+        _nodes[index * 2 + 1] = -(node._axis + 1);
+        return flatten(node._right, second);
+    }
+
+    private static float roundDown(double value) {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    private static float roundUp(double value) {
+        float f = (float) value;
+        return f < value ? Math.nextUp(f) : f;
+    }
+
+    /**
+     * get the amount of nodes
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        return _nodeCount;
+    }
+
+    /**
+     * get the memory of a node
+     *
+     * @return bytes per node
+     */
+    public int getBytesPerNode() {
+        return BYTES_PER_NODE;
+    }
+
+    /**
+     * get the average amount of nodes visited by a ray since the creation of the hierarchy
+     *
+     * @return the average traversal steps per ray
+     */
+    public double getAverageTraversalSteps() {
+        long rays = _rays.sum();
+        return rays == 0 ? 0 : (double) _steps.sum() / rays;
+    }
+
+    /**
+     * get the amount of rays that traversed the hierarchy
+     *
+     * @return amount of rays
+     */
+    long getRays() {
+        return _rays.sum();
+    }
+
+    /**
+     * get the amount of nodes visited by all the rays
+     *
+     * @return amount of traversal steps
+     */
+    long getTraversalSteps() {
+        return _steps.sum();
+    }
+
+    /**
+     * get the bounding box of all the intersectables
+     *
+     * @return the box, or null if empty or any of them is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (_nodeCount == 0 || _unbounded.length > 0) return null;
+        return new BoundingBox(_bounds[0], _bounds[1], _bounds[2], _bounds[3], _bounds[4], _bounds[5]);
+    }
+
+    /**
+     * slab test of a ray against the box of a node
+     */
+    private boolean hits(int node, double ox, double oy, double oz, double ix, double iy, double iz,
+                         double maxDistance) {
+        int i = node * 6;
+        return BoundingBox.entry(_bounds[i], _bounds[i + 1], _bounds[i + 2], _bounds[i + 3], _bounds[i + 4],
+                _bounds[i + 5], ox, oy, oz, ix, iy, iz, maxDistance) >= 0;
+    }
+
+    /**
+     * find the intersections - only the intersectables whose boxes are hit by the ray are tested
+     *
+     * @param ray         the ray
+     * @param maxDistance the max distance along the ray
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geo : _unbounded) {
+            List<GeoPoint> tempIntersections = geo.findIntersections(ray, maxDistance);
+            if (tempIntersections != null) {
+                if (intersections == null)
+                    intersections = new ArrayList<>();
+                intersections.addAll(tempIntersections);
+            }
+        }
+        if (_nodeCount == 0) return intersections;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        int[] stack = new int[_depth];
+        int top = 0, node = 0, steps = 0;
+        while (true) {
+            ++steps;
+            if (hits(node, ox, oy, oz, ix, iy, iz, maxDistance)) {
+                int info = _nodes[node * 2 + 1];
+                if (info < 0) { // inner node
+                    stack[top++] = _nodes[node * 2];
+                    ++node;
+                    continue;
+                }
+                int first = _nodes[node * 2];
+                for (int i = first; i < first + info; ++i) {
+                    List<GeoPoint> tempIntersections = _intersectables[i].findIntersections(ray, maxDistance);
+                    if (tempIntersections != null) {
+                        if (intersections == null)
+                            intersections = new ArrayList<>();
+                        intersections.addAll(tempIntersections);
+                    }
+                }
+            }
+            if (top == 0) break;
+            node = stack[--top];
+        }
+        _rays.increment();
+        _steps.add(steps);
+        return intersections;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the intersectables hit by a ray - the
+     * traversal stops when the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        for (Intersectable geo : _unbounded)
+            if (geo.accumulateTransmittance(ray, maxDistance, transmittance))
+                return true;
+        if (_nodeCount == 0) return false;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        int[] stack = new int[_depth];
+        int top = 0, node = 0;
+        while (true) {
+            if (hits(node, ox, oy, oz, ix, iy, iz, maxDistance)) {
+                int info = _nodes[node * 2 + 1];
+                if (info < 0) { // inner node
+                    stack[top++] = _nodes[node * 2];
+                    ++node;
+                    continue;
+                }
+                int first = _nodes[node * 2];
+                for (int i = first; i < first + info; ++i)
+                    if (_intersectables[i].accumulateTransmittance(ray, maxDistance, transmittance))
+                        return true;
+            }
+            if (top == 0) return false;
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * find the closest hit - the near child is visited first and the nodes behind the closest
+     * hit found so far are skipped
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        double maxDistance = hit.getT();
+        for (Intersectable geo : _unbounded)
+            geo.intersect(ray, hit);
+        if (_nodeCount == 0) return hit.getT() < maxDistance;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        int[] stack = new int[_depth];
+        int top = 0, node = 0, steps = 0;
+        while (true) {
+            ++steps;
+            if (hits(node, ox, oy, oz, ix, iy, iz, hit.getT())) {
+                int info = _nodes[node * 2 + 1];
+                if (info < 0) { // inner node - visit the near child first
+                    int second = _nodes[node * 2];
+                    if (ray.isNegative(-info - 1)) {
+                        stack[top++] = node + 1;
+                        node = second;
+                    } else {
+                        stack[top++] = second;
+                        ++node;
+                    }
+                    continue;
+                }
+                int first = _nodes[node * 2];
+                for (int i = first; i < first + info; ++i)
+                    _intersectables[i].intersect(ray, hit);
+            }
+            if (top == 0) break;
+            node = stack[--top];
+        }
+        _rays.increment();
+        _steps.add(steps);
+        return hit.getT() < maxDistance;
+    }
+}
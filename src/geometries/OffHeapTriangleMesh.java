@@ -0,0 +1,575 @@
+package geometries;
+
+import primitives.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * A triangle mesh that keeps all its data outside of the java heap.<br/>
+ * The vertices, the triangle indices and the nodes of its bounding volume hierarchy
+ * are stored in direct byte buffers, so a mesh of tens of millions of triangles
+ * costs the heap (and the garbage collector) only a few objects.
+ * A {@link Face} object is created only for an intersection that is found - the
+ * mesh has no per-triangle objects at all.
+ * <p>
+ * Layout of the buffers (native byte order):
+ * <ul>
+ * <li>vertices - 3 floats (x, y, z) per vertex</li>
+ * <li>indices - 3 ints per triangle, ordered by the hierarchy leaves</li>
+ * <li>nodes - 32 bytes per node, stored depth first: 6 floats of the node box (min x,y,z, max x,y,z),
+ * an int that is the index of the second child for an inner node (the first child is the next node)
+ * or the first triangle for a leaf, and an int with the amount of triangles (0 for an inner node)</li>
+ * </ul>
+ */
+public class OffHeapTriangleMesh implements Intersectable {
+    /**
+     * maximal amount of triangles in a leaf of the hierarchy
+     */
+    private static final int LEAF_SIZE = 4;
+    /**
+     * size of a node in the nodes buffer
+     */
+    private static final int NODE_BYTES = 32;
+    /**
+     * max depth of the hierarchy traversal stack
+     */
+    private static final int STACK_SIZE = 64;
+
+    private final Color _emission;
+    private final Material _material;
+    private final ByteBuffer _vertices;
+    private final ByteBuffer _indices;
+    private final ByteBuffer _nodes;
+    private final int _vertexCount;
+    private final int _triangleCount;
+    private int _nodeCount;
+
+    /**
+     * constructor - builds the hierarchy of the mesh. The triangles are reordered by the leaves in
+     * the indices buffer itself, which the mesh takes over
+     *
+     * @param emission      emission color of the whole mesh
+     * @param material      material of the whole mesh
+     * @param vertices      the vertices buffer (3 floats per vertex)
+     * @param vertexCount   amount of vertices
+     * @param indices       the indices buffer (3 ints per triangle)
+     * @param triangleCount amount of triangles
+     */
+    private OffHeapTriangleMesh(Color emission, Material material, ByteBuffer vertices, int vertexCount,
+                                ByteBuffer indices, int triangleCount) {
+        _emission = new Color(emission);
+        _material = new Material(material);
+        _vertices = vertices;
+        _indices = indices;
+        _vertexCount = vertexCount;
+        _triangleCount = triangleCount;
+
+        _nodes = allocate((long) nodeCount(triangleCount) * NODE_BYTES);
+        _nodeCount = 0;
+        if (triangleCount > 0)
+            buildNode(0, triangleCount);
+    }
+
+    /**
+     * allocate a direct buffer in the native byte order
+     *
+     * @param bytes the size of the buffer
+     * @return the buffer
+     * @throws IllegalArgumentException if the size is over the limit of a single buffer
+     */
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The mesh is too big for a single buffer - split it into several meshes");
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * trim a buffer to its used part - a buffer with spare capacity is copied to a buffer of the used size
+     *
+     * @param buffer the buffer
+     * @param bytes  the used size
+     * @return the buffer itself if it is full, or its copy
+     */
+    private static ByteBuffer trim(ByteBuffer buffer, long bytes) {
+        if (buffer.capacity() == bytes)
+            return buffer;
+        ByteBuffer trimmed = allocate(bytes);
+        ByteBuffer used = buffer.duplicate();
+        used.clear().limit((int) bytes);
+        trimmed.put(used).clear();
+        return trimmed;
+    }
+
+    /**
+     * get the amount of nodes of the hierarchy of a range of triangles - as it is split by {@link #buildNode}
+     *
+     * @param count the amount of triangles
+     * @return the amount of nodes
+     */
+    private static int nodeCount(int count) {
+        if (count == 0) return 0;
+        if (count <= LEAF_SIZE) return 1;
+        return 1 + nodeCount(count >>> 1) + nodeCount(count - (count >>> 1));
+    }
+
+    /**
+     * get a coordinate of a vertex of a triangle (in the leaves order)
+     *
+     * @param triangle the triangle
+     * @param corner   0, 1 or 2
+     * @param axis     0 for x, 1 for y, 2 for z
+     * @return the coordinate
+     */
+    private float vertex(int triangle, int corner, int axis) {
+        int vertex = _indices.getInt((triangle * 3 + corner) * Integer.BYTES);
+        return _vertices.getFloat((vertex * 3 + axis) * Float.BYTES);
+    }
+
+    /**
+     * get a coordinate of the centroid of a triangle multiplied by 3 (the sum of its vertices)
+     */
+    private float centroid(int triangle, int axis) {
+        return vertex(triangle, 0, axis) + vertex(triangle, 1, axis) + vertex(triangle, 2, axis);
+    }
+
+    /**
+     * build a node (and its sub tree) for a range of the triangles,
+     * splitting the range at the median of the centroids on the longest axis
+     *
+     * @return the index of the node
+     */
+    private int buildNode(int from, int to) {
+        int node = _nodeCount++;
+        int base = node * NODE_BYTES;
+
+        float[] box = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        float[] centroidBox = box.clone();
+        for (int triangle = from; triangle < to; ++triangle) {
+            for (int axis = 0; axis < 3; ++axis) {
+                for (int corner = 0; corner < 3; ++corner) {
+                    float c = vertex(triangle, corner, axis);
+                    box[axis] = Math.min(box[axis], c);
+                    box[axis + 3] = Math.max(box[axis + 3], c);
+                }
+                float c = centroid(triangle, axis);
+                centroidBox[axis] = Math.min(centroidBox[axis], c);
+                centroidBox[axis + 3] = Math.max(centroidBox[axis + 3], c);
+            }
+        }
+        for (int k = 0; k < 6; ++k)
+            _nodes.putFloat(base + k * Float.BYTES, box[k]);
+
+        if (to - from <= LEAF_SIZE) {
+            _nodes.putInt(base + 24, from);
+            _nodes.putInt(base + 28, to - from);
+            return node;
+        }
+
+        int axis = 0;
+        for (int k = 1; k < 3; ++k)
+            if (centroidBox[k + 3] - centroidBox[k] > centroidBox[axis + 3] - centroidBox[axis])
+                axis = k;
+        int middle = (from + to) >>> 1;
+        select(axis, from, to - 1, middle);
+
+        buildNode(from, middle);
+        int second = buildNode(middle, to);
+        _nodes.putInt(base + 24, second);
+        _nodes.putInt(base + 28, 0);
+        return node;
+    }
+
+    /**
+     * partial sort of the triangles (quick select) so the k-th triangle by its centroid is in its place,
+     * all the smaller are before it and all the bigger are after it
+     */
+    private void select(int axis, int left, int right, int k) {
+        while (right > left) {
+            float pivot = centroid((left + right) >>> 1, axis);
+            int i = left, j = right;
+            while (i <= j) {
+                while (centroid(i, axis) < pivot) ++i;
+                while (centroid(j, axis) > pivot) --j;
+                if (i <= j) {
+                    swap(i, j);
+                    ++i;
+                    --j;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    /**
+     * swap the vertex indices of two triangles
+     */
+    private void swap(int a, int b) {
+        for (int k = 0; k < 3; ++k) {
+            int tmp = _indices.getInt((a * 3 + k) * Integer.BYTES);
+            _indices.putInt((a * 3 + k) * Integer.BYTES, _indices.getInt((b * 3 + k) * Integer.BYTES));
+            _indices.putInt((b * 3 + k) * Integer.BYTES, tmp);
+        }
+    }
+
+    /**
+     * get the amount of triangles
+     *
+     * @return amount of triangles
+     */
+    public int getTriangleCount() {
+        return _triangleCount;
+    }
+
+    /**
+     * get the amount of nodes in the hierarchy
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        return _nodeCount;
+    }
+
+    /**
+     * get the amount of memory the mesh holds outside of the heap
+     *
+     * @return the size of the vertices, the triangles and the nodes in bytes
+     */
+    public long getOffHeapBytes() {
+        return (long) _vertexCount * 3 * Float.BYTES + (long) _triangleCount * 3 * Integer.BYTES
+                + (long) _nodeCount * NODE_BYTES;
+    }
+
+    /**
+     * get the bounding box of the mesh - the box of the hierarchy root
+     *
+     * @return the bounding box, or null for an empty mesh
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (_triangleCount == 0) return null;
+        return new BoundingBox(_nodes.getFloat(0), _nodes.getFloat(4), _nodes.getFloat(8),
+                _nodes.getFloat(12), _nodes.getFloat(16), _nodes.getFloat(20));
+    }
+
+    /**
+     * find the intersections of a ray with the mesh triangles
+     *
+     * @param ray         pointing toward the mesh
+     * @param maxDistance the max distance between the ray and the intersections
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        if (_triangleCount == 0) return null;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        List<GeoPoint> intersections = null;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int base = stack[--top] * NODE_BYTES;
+            if (!hitsBox(base, ox, oy, oz, ix, iy, iz, maxDistance)) continue;
+
+            int count = _nodes.getInt(base + 28);
+            if (count == 0) {
+                stack[top++] = _nodes.getInt(base + 24);
+                stack[top++] = base / NODE_BYTES + 1;
+                continue;
+            }
+            int first = _nodes.getInt(base + 24);
+            for (int triangle = first; triangle < first + count; ++triangle) {
+                double t = intersectTriangle(triangle, ox, oy, oz, vx, vy, vz, null);
+                if (t > 0 && alignZero(maxDistance - t) > 0) {
+                    if (intersections == null)
+                        intersections = new ArrayList<>();
+                    intersections.add(new GeoPoint(new Face(this, triangle), ray, t));
+                }
+            }
+        }
+        return intersections;
+    }
+
+    /**
+     * find the closest hit - the hit keeps the index of the triangle and the barycentric
+     * coordinates of the hit, and a {@link Face} is created only for the closest triangle
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        if (_triangleCount == 0) return false;
+
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+        double ix = ray.getInverseX(), iy = ray.getInverseY(), iz = ray.getInverseZ();
+
+        double closest = hit.getT();
+        int closestTriangle = -1;
+        double[] uv = new double[2];
+        double u = 0, v = 0;
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int base = stack[--top] * NODE_BYTES;
+            if (!hitsBox(base, ox, oy, oz, ix, iy, iz, closest)) continue;
+
+            int count = _nodes.getInt(base + 28);
+            if (count == 0) {
+                stack[top++] = _nodes.getInt(base + 24);
+                stack[top++] = base / NODE_BYTES + 1;
+                continue;
+            }
+            int first = _nodes.getInt(base + 24);
+            for (int triangle = first; triangle < first + count; ++triangle) {
+                double t = intersectTriangle(triangle, ox, oy, oz, vx, vy, vz, uv);
+                if (t > 0 && alignZero(closest - t) > 0) {
+                    closest = t;
+                    closestTriangle = triangle;
+                    u = uv[0];
+                    v = uv[1];
+                }
+            }
+        }
+        if (closestTriangle < 0) return false;
+        hit.set(closest, new Face(this, closestTriangle), closestTriangle, u, v);
+        return true;
+    }
+
+    /**
+     * slab test of the ray against the box of a node
+     */
+    private boolean hitsBox(int base, double ox, double oy, double oz, double ix, double iy, double iz,
+                            double maxDistance) {
+        return BoundingBox.entry(_nodes.getFloat(base), _nodes.getFloat(base + 4), _nodes.getFloat(base + 8),
+                _nodes.getFloat(base + 12), _nodes.getFloat(base + 16), _nodes.getFloat(base + 20),
+                ox, oy, oz, ix, iy, iz, maxDistance) >= 0;
+    }
+
+    /**
+     * Moller-Trumbore intersection of the ray with a triangle
+     *
+     * @param uv the array for the barycentric coordinates of the intersection (may be null)
+     * @return the distance along the ray, or 0 if there is no intersection
+     */
+    private double intersectTriangle(int triangle, double ox, double oy, double oz, double vx, double vy, double vz,
+                                     double[] uv) {
+        double ax = vertex(triangle, 0, 0), ay = vertex(triangle, 0, 1), az = vertex(triangle, 0, 2);
+        double e1x = vertex(triangle, 1, 0) - ax, e1y = vertex(triangle, 1, 1) - ay, e1z = vertex(triangle, 1, 2) - az;
+        double e2x = vertex(triangle, 2, 0) - ax, e2y = vertex(triangle, 2, 1) - ay, e2z = vertex(triangle, 2, 2) - az;
+
+        double px = vy * e2z - vz * e2y, py = vz * e2x - vx * e2z, pz = vx * e2y - vy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) return 0; // ray is parallel to the triangle
+        double inv = 1 / det;
+
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = alignZero((sx * px + sy * py + sz * pz) * inv);
+        if (u <= 0 || u >= 1) return 0;
+
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero((vx * qx + vy * qy + vz * qz) * inv);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return 0;
+        if (uv != null) {
+            uv[0] = u;
+            uv[1] = v;
+        }
+
+        return alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+    }
+
+    /**
+     * A triangle of the mesh, created only for an intersection point
+     */
+    public static class Face extends Geometry {
+        /**
+         * the mesh of the triangle
+         */
+        private final OffHeapTriangleMesh _mesh;
+        /**
+         * the index of the triangle in the mesh
+         */
+        private final int _triangle;
+
+        /**
+         * constructor
+         *
+         * @param mesh     the mesh of the triangle
+         * @param triangle the index of the triangle in the mesh
+         */
+        private Face(OffHeapTriangleMesh mesh, int triangle) {
+            super(mesh._emission, mesh._material);
+            _mesh = mesh;
+            _triangle = triangle;
+        }
+
+        /**
+         * get the normal of the triangle
+         *
+         * @param p is not used - the normal is the same in all the triangle
+         * @return the normal
+         */
+        @Override
+        public Vector getNormal(Point3D p) {
+            double ax = _mesh.vertex(_triangle, 0, 0), ay = _mesh.vertex(_triangle, 0, 1), az = _mesh.vertex(_triangle, 0, 2);
+            Vector e1 = new Vector(_mesh.vertex(_triangle, 1, 0) - ax, _mesh.vertex(_triangle, 1, 1) - ay,
+                    _mesh.vertex(_triangle, 1, 2) - az);
+            Vector e2 = new Vector(_mesh.vertex(_triangle, 2, 0) - ax, _mesh.vertex(_triangle, 2, 1) - ay,
+                    _mesh.vertex(_triangle, 2, 2) - az);
+            return e1.crossProduct(e2).normalize();
+        }
+
+        /**
+         * intersect the ray with this triangle only
+         */
+        @Override
+        public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+            double t = _mesh.intersectTriangle(_triangle, ray.getOriginX(), ray.getOriginY(), ray.getOriginZ(),
+                    ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ(), null);
+            if (t <= 0 || alignZero(maxDistance - t) <= 0) return null;
+            return List.of(new GeoPoint(this, ray, t));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Face)) return false;
+            Face face = (Face) o;
+            return _triangle == face._triangle && _mesh == face._mesh;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(_mesh) * 31 + _triangle;
+        }
+    }
+
+    /**
+     * Builder of an off-heap mesh - the vertices and the triangles are written directly to
+     * the direct buffers, so the mesh is never held in the heap. The built mesh takes over the
+     * buffers (trimmed to the used size), so a builder builds a single mesh
+     */
+    public static class Builder {
+        private ByteBuffer _vertices;
+        private ByteBuffer _indices;
+        private final int _maxVertices;
+        private final int _maxTriangles;
+        private int _vertexCount = 0;
+        private int _triangleCount = 0;
+        private Color _emission = Color.BLACK;
+        private Material _material = new Material(0, 0, 0);
+
+        /**
+         * Constructor
+         *
+         * @param maxVertices  the capacity of vertices
+         * @param maxTriangles the capacity of triangles
+         */
+        public Builder(int maxVertices, int maxTriangles) {
+            _maxVertices = maxVertices;
+            _maxTriangles = maxTriangles;
+            _vertices = allocate((long) maxVertices * 3 * Float.BYTES);
+            _indices = allocate((long) maxTriangles * 3 * Integer.BYTES);
+        }
+
+        /**
+         * set the emission color of the mesh
+         *
+         * @param emission
+         * @return the Builder
+         */
+        public Builder setEmission(Color emission) {
+            _emission = emission;
+            return this;
+        }
+
+        /**
+         * set the material of the mesh
+         *
+         * @param material
+         * @return the Builder
+         */
+        public Builder setMaterial(Material material) {
+            _material = material;
+            return this;
+        }
+
+        /**
+         * add a vertex
+         *
+         * @param x
+         * @param y
+         * @param z
+         * @return the index of the vertex
+         */
+        public int addVertex(double x, double y, double z) {
+            checkBuilt();
+            if (_vertexCount == _maxVertices)
+                throw new IllegalStateException("The mesh vertices capacity is full");
+            int base = _vertexCount * 3 * Float.BYTES;
+            _vertices.putFloat(base, (float) x);
+            _vertices.putFloat(base + Float.BYTES, (float) y);
+            _vertices.putFloat(base + 2 * Float.BYTES, (float) z);
+            return _vertexCount++;
+        }
+
+        /**
+         * add a triangle of three vertices that were added already
+         *
+         * @param a index of the first vertex
+         * @param b index of the second vertex
+         * @param c index of the third vertex
+         * @return the Builder
+         */
+        public Builder addTriangle(int a, int b, int c) {
+            checkBuilt();
+            if (_triangleCount == _maxTriangles)
+                throw new IllegalStateException("The mesh triangles capacity is full");
+            if (a < 0 || b < 0 || c < 0 || a >= _vertexCount || b >= _vertexCount || c >= _vertexCount)
+                throw new IllegalArgumentException("Triangle vertex index out of range");
+            int base = _triangleCount * 3 * Integer.BYTES;
+            _indices.putInt(base, a);
+            _indices.putInt(base + Integer.BYTES, b);
+            _indices.putInt(base + 2 * Integer.BYTES, c);
+            ++_triangleCount;
+            return this;
+        }
+
+        /**
+         * build the mesh (and its hierarchy) - the mesh takes over the buffers of the builder
+         *
+         * @return the mesh
+         * @throws IllegalStateException if the mesh was built already
+         */
+        public OffHeapTriangleMesh build() {
+            checkBuilt();
+            ByteBuffer vertices = trim(_vertices, (long) _vertexCount * 3 * Float.BYTES);
+            ByteBuffer indices = trim(_indices, (long) _triangleCount * 3 * Integer.BYTES);
+            _vertices = _indices = null;
+            return new OffHeapTriangleMesh(_emission, _material, vertices, _vertexCount, indices, _triangleCount);
+        }
+
+        /**
+         * check that the mesh was not built yet - the buffers belong to the mesh after it is built
+         */
+        private void checkBuilt() {
+            if (_vertices == null)
+                throw new IllegalStateException("The mesh was built already");
+        }
+    }
+}
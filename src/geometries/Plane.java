@@ -19,6 +19,10 @@ public class Plane extends FlatGeometry {
      * a normal of the plane
      */
     Vector _normal;
+    /**
+     * the coordinates of the normal and the offset of the plane (n * p for any point p of the plane)
+     */
+    double _nx, _ny, _nz, _offset;
 
     /**
      * constructor of the plane
@@ -43,6 +47,7 @@ public class Plane extends FlatGeometry {
         N.normalize();
 
         _normal = N;
+        setComponents();
     }
 
     /**
@@ -80,6 +85,7 @@ public class Plane extends FlatGeometry {
         this._p = new Point3D(_p);
         this._normal = new Vector(_normal);
         this._plane = null;
+        setComponents();
     }
 
     /**
@@ -94,6 +100,7 @@ public class Plane extends FlatGeometry {
         this._p = new Point3D(_p);
         this._normal = new Vector(_normal);
         this._plane = null;
+        setComponents();
     }
 
     /**
@@ -107,6 +114,18 @@ public class Plane extends FlatGeometry {
         this._p = new Point3D(_p);
         this._normal = new Vector(_normal);
         this._plane = null;
+        setComponents();
+    }
+
+    /**
+     * keep the coordinates of the normal and the offset of the plane
+     */
+    private void setComponents() {
+        Point3D normal = _normal.get_head();
+        _nx = normal.get_x().get();
+        _ny = normal.get_y().get();
+        _nz = normal.get_z().get();
+        _offset = _nx * _p.get_x().get() + _ny * _p.get_y().get() + _nz * _p.get_z().get();
     }
 
     /**
@@ -146,7 +165,46 @@ public class Plane extends FlatGeometry {
         if ((t <= 0) || (tdist <= 0)) {
             return null;
         } else {
-            return List.of(new GeoPoint(this, ray.getTargetPoint(t)));
+            return List.of(new GeoPoint(this, ray, t));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * find the closest hit - the distance to the plane on the coordinates of the ray, no point is created
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return addHit(distance(ray), hit.getT(), hit, null);
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the plane if it is hit, no list is built
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        return addHit(distance(ray), maxDistance, null, transmittance);
+    }
+
+    /**
+     * the distance of the plane along a ray - the same calculation as {@link #findIntersections(Ray, double)}
+     *
+     * @param ray the ray
+     * @return the distance, 0 if the ray is parallel to the plane or starts on it
+     */
+    double distance(Ray ray) {
+        double nv = _nx * ray.getDirectionX() + _ny * ray.getDirectionY() + _nz * ray.getDirectionZ();
+        if (isZero(nv)) return 0; // ray is parallel to the plane
+        double np0 = _offset - (_nx * ray.getOriginX() + _ny * ray.getOriginY() + _nz * ray.getOriginZ());
+        if (isZero(np0)) return 0; // ray starts on the plane
+        return alignZero(np0 / nv);
+    }
+}
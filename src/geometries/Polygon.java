@@ -19,6 +19,10 @@ public class Polygon extends FlatGeometry {
      * List of polygon's vertices
      */
     protected List<Point3D> _vertices;
+    /**
+     * the coordinates of the vertices - x, y and z of every vertex
+     */
+    private final double[] _coordinates;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -48,6 +52,12 @@ public class Polygon extends FlatGeometry {
         if (vertices.length < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
         _vertices = List.of(vertices);
+        _coordinates = new double[vertices.length * 3];
+        for (int i = 0; i < vertices.length; ++i) {
+            _coordinates[i * 3] = vertices[i].get_x().get();
+            _coordinates[i * 3 + 1] = vertices[i].get_y().get();
+            _coordinates[i * 3 + 2] = vertices[i].get_z().get();
+        }
         // Generate the plane according to the first three vertices and associate the
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
@@ -101,6 +111,16 @@ public class Polygon extends FlatGeometry {
         return _plane.getNormal(null);
     }
 
+    /**
+     * get the bounding box of the polygon
+     *
+     * @return the box of the vertices
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return BoundingBox.of(_vertices.toArray(new Point3D[0]));
+    }
+
     /**
      * @param ray
      * @param maxDistance
@@ -134,8 +154,63 @@ public class Polygon extends FlatGeometry {
         //for GeoPoint
         List<GeoPoint> result = new LinkedList<>();
         for (GeoPoint geo : planeIntersections) {
-            result.add(new GeoPoint(this, geo.getPoint()));
+            result.add(new GeoPoint(this, ray, geo.getDistance(ray)));
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * find the closest hit - the same calculation as {@link #findIntersections(Ray, double)}
+     * on the coordinates of the ray, no point is created
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        double t = _plane.distance(ray);
+        return hit.isCloser(t) && isInside(ray) && addHit(t, hit.getT(), hit, null);
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the polygon if it is hit, no list is built
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        double t = _plane.distance(ray);
+        return t > 0 && alignZero(maxDistance - t) > 0 && isInside(ray) && addHit(t, maxDistance, null, transmittance);
+    }
+
+    /**
+     * check if a ray that crosses the plane of the polygon crosses it inside the edges - the ray must
+     * be on the same side of the planes of all the edges and the ray head
+     *
+     * @param ray the ray
+     * @return true if the ray crosses the polygon, false if it crosses the plane outside or on an edge
+     */
+    boolean isInside(Ray ray) {
+        double ox = ray.getOriginX(), oy = ray.getOriginY(), oz = ray.getOriginZ();
+        double vx = ray.getDirectionX(), vy = ray.getDirectionY(), vz = ray.getDirectionZ();
+        double[] c = _coordinates;
+        // the edges are checked in the same order as findIntersections: (1,0), (0,n-1), ..., (2,1)
+        double x2 = c[0] - ox, y2 = c[1] - oy, z2 = c[2] - oz;
+        double sign = CompiledGeometries.edgeSign(vx, vy, vz, c[3] - ox, c[4] - oy, c[5] - oz, x2, y2, z2);
+        if (sign == 0) return false;
+        boolean positive = sign > 0;
+        for (int i = c.length / 3 - 1; i > 0; --i) {
+            double x1 = x2, y1 = y2, z1 = z2;
+            x2 = c[i * 3] - ox;
+            y2 = c[i * 3 + 1] - oy;
+            z2 = c[i * 3 + 2] - oz;
+            sign = CompiledGeometries.edgeSign(vx, vy, vz, x1, y1, z1, x2, y2, z2);
+            if (sign == 0 || positive != (sign > 0)) return false;
+        }
+        return true;
+    }
+}
@@ -14,6 +14,10 @@ public class Sphere extends RadialGeometry {
      * The center of the sphere
      */
     private final Point3D _center;
+    /**
+     * the coordinates of the center
+     */
+    private final double _centerX, _centerY, _centerZ;
 
     /**
      * constructor for a new sphere object.
@@ -25,6 +29,9 @@ public class Sphere extends RadialGeometry {
     public Sphere(Color emissionLight, Material material, double radius, Point3D center) {
         super(emissionLight, radius, material);
         this._center = new Point3D(center);
+        _centerX = _center.get_x().get();
+        _centerY = _center.get_y().get();
+        _centerZ = _center.get_z().get();
     }
 
     /**
@@ -64,6 +71,17 @@ public class Sphere extends RadialGeometry {
     }
 
 
+    /**
+     * get the bounding box of the sphere
+     *
+     * @return the bounding box
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        double x = _center.get_x().get(), y = _center.get_y().get(), z = _center.get_z().get();
+        return new BoundingBox(x - _radius, y - _radius, z - _radius, x + _radius, y + _radius, z + _radius);
+    }
+
     /**
      * get the normal to this sphere in a given point
      */
@@ -89,7 +107,7 @@ public class Sphere extends RadialGeometry {
         try {
             u = _center.subtract(p0);   // p0 == _center
         } catch (IllegalArgumentException e) {
-            return List.of(new GeoPoint(this, (ray.getTargetPoint(this._radius))));
+            return List.of(new GeoPoint(this, ray, this._radius));
         }
         double tm = alignZero(v.dotProduct(u));
         double dSquared = (tm == 0) ? u.lengthSquared() : u.lengthSquared() - tm * tm;
@@ -113,21 +131,76 @@ public class Sphere extends RadialGeometry {
         if (t1 > 0 && t2 > 0) {
             if (t1dist > 0 && t2dist > 0) {
                 return List.of(
-                        new GeoPoint(this, (ray.getTargetPoint(t1))),
-                        new GeoPoint(this, (ray.getTargetPoint(t2)))); //P1 , P2
+                        new GeoPoint(this, ray, t1),
+                        new GeoPoint(this, ray, t2)); //P1 , P2
             } else if (t1dist > 0) {
                 return List.of(
-                        new GeoPoint(this, (ray.getTargetPoint(t1))));
+                        new GeoPoint(this, ray, t1));
             } else if (t2dist > 0) {
                 return List.of(
-                        new GeoPoint(this, (ray.getTargetPoint(t2))));
+                        new GeoPoint(this, ray, t2));
             }
         }
 
         if ((t1 > 0) && (t1dist > 0))
-            return List.of(new GeoPoint(this, (ray.getTargetPoint(t1))));
+            return List.of(new GeoPoint(this, ray, t1));
         else if ((t2 > 0) && (t2dist > 0))
-            return List.of(new GeoPoint(this, (ray.getTargetPoint(t2))));
+            return List.of(new GeoPoint(this, ray, t2));
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * find the closest hit - the same calculation as {@link #findIntersections(Ray, double)}
+     * on the coordinates of the ray, no point is created
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return intersect(ray, hit.getT(), hit, null);
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the sphere once for every hit, no list is built
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        return intersect(ray, maxDistance, null, transmittance);
+    }
+
+    /**
+     * pass the hits of a ray in the order of their distances to {@link #addHit(double, double, Hit, Transmittance)}
+     *
+     * @param ray           the ray
+     * @param maxDistance   the max distance along the ray
+     * @param hit           the closest hit of a closest hit query, null for a shadow ray
+     * @param transmittance the transmittance of a shadow ray, null for a closest hit query
+     * @return true if a closer hit was found, or if the light is blocked
+     */
+    private boolean intersect(Ray ray, double maxDistance, Hit hit, Transmittance transmittance) {
+        double ux = alignZero(_centerX - ray.getOriginX());
+        double uy = alignZero(_centerY - ray.getOriginY());
+        double uz = alignZero(_centerZ - ray.getOriginZ());
+        if (ux == 0 && uy == 0 && uz == 0) // p0 == center
+            return addHit(_radius, maxDistance, hit, transmittance);
+        double tm = alignZero(ray.getDirectionX() * ux + ray.getDirectionY() * uy + ray.getDirectionZ() * uz);
+        double uSquared = ux * ux + uy * uy + uz * uz;
+        double dSquared = (tm == 0) ? uSquared : uSquared - tm * tm;
+        double thSquared = alignZero(_radius * _radius - dSquared);
+        if (thSquared <= 0) return false;
+
+        double th = alignZero(Math.sqrt(thSquared));
+        if (th == 0) return false;
+
+        // the far hit is needed only if the near one was not kept or did not block the light
+        return addHit(alignZero(tm - th), maxDistance, hit, transmittance)
+                || addHit(alignZero(tm + th), maxDistance, hit, transmittance);
+    }
+}
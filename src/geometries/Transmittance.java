@@ -0,0 +1,99 @@
+package geometries;
+
+/**
+ * Accumulator of the transmittance of a shadow ray - the product of the transparency (kt)
+ * of the geometries crossed by the ray.<br/>
+ * The intersectables feed it with the geometries of their hits as they are found, and stop
+ * as soon as the light is blocked, so no list of the hits is built.
+ */
+public final class Transmittance {
+    /**
+     * a transmittance below the threshold blocks the light
+     */
+    private final double _threshold;
+    private double _value = 1;
+    private boolean _blocked = false;
+    /**
+     * the geometry that blocked the light by itself
+     */
+    private Geometry _occluder = null;
+    /**
+     * the transmittance of the world and the instance of a view of it in the object space of the
+     * instance (null for the transmittance of the world)
+     */
+    private final Transmittance _world;
+    private final Instance _instance;
+
+    /**
+     * constructor
+     *
+     * @param threshold the least transmittance that does not block the light
+     */
+    public Transmittance(double threshold) {
+        _threshold = threshold;
+        _world = null;
+        _instance = null;
+    }
+
+    /**
+     * constructor of a view of a transmittance in the object space of an instance - the geometries
+     * are added to the transmittance as they appear in the instance
+     *
+     * @param world    the transmittance of the ray in the world
+     * @param instance the instance
+     */
+    Transmittance(Transmittance world, Instance instance) {
+        _threshold = world._threshold;
+        _world = world;
+        _instance = instance;
+    }
+
+    /**
+     * multiply the transmittance by the transparency of a crossed geometry
+     *
+     * @param geometry the geometry of a hit
+     * @return true if the light is blocked
+     */
+    public boolean add(Geometry geometry) {
+        if (_world != null)
+            return _world.add(_instance.getInstanceGeometry(geometry));
+        if (_blocked)
+            return true;
+        double kt = geometry.getMaterial().getKt();
+        _value *= kt;
+        if (_value < _threshold) {
+            _value = 0;
+            _blocked = true;
+            if (kt < _threshold)
+                _occluder = geometry;
+        }
+        return _blocked;
+    }
+
+    /**
+     * check if the light is blocked
+     *
+     * @return true if the transmittance fell below the threshold
+     */
+    public boolean isBlocked() {
+        return _world != null ? _world.isBlocked() : _blocked;
+    }
+
+    /**
+     * get the transmittance
+     *
+     * @return the product of the transparency of the geometries, 0 if the light is blocked
+     */
+    public double getValue() {
+        return _world != null ? _world.getValue() : _value;
+    }
+
+    /**
+     * get the geometry that blocked the light by itself (as an opaque geometry)
+     *
+     * @return the geometry, or null if the light is not blocked or was blocked by a few transparent geometries
+     */
+    public Geometry getOccluder() {
+        return _world != null ? _world.getOccluder() : _occluder;
+    }
+}
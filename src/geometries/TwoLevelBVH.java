@@ -0,0 +1,355 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.*;
+
+/**
+ * Two level acceleration structure for scenes that are edited.<br/>
+ * Every object added to the structure keeps its own bottom level structure (a small Geometries
+ * group is compiled, a big one gets a {@link LinearBVH}, a mesh or an instance already has its own
+ * hierarchy) that is built once.
+ * The single geometries added one by one (as the shapes of a scene) share one bottom level that is
+ * built as a group of them, so they do not make a top level entry each - it is rebuilt lazily
+ * after one of them is added, removed or updated.
+ * A small top level hierarchy over the bounding boxes of the objects is rebuilt lazily after
+ * objects are added, removed or updated - an edit of the scene costs only the changed objects
+ * and the rebuild of the top level. The top level is kept in the linear form of
+ * {@link LinearBVH} (the boxes in a float array, traversed with an int stack).
+ * Objects without a bounding box (planes, tubes) are kept out of the top level in a small side list
+ * that is tested with every ray, so they do not spoil the boxes of the hierarchy - the unbounded
+ * members of a group are put in the side list too, and the group keeps the box of the others.
+ */
+public class TwoLevelBVH implements Intersectable {
+    /**
+     * Geometries groups of more shapes than this get a hierarchy instead of a compiled list
+     */
+    private static final int HIERARCHY_THRESHOLD = 32;
+
+    /**
+     * An object of the scene with its bottom level structure
+     */
+    private static class Entry {
+        final Intersectable _object;
+        /**
+         * the bottom level of the bounded part of the object and its unbounded parts
+         */
+        Intersectable[] _bottoms;
+
+        Entry(Intersectable object) {
+            _object = object;
+        }
+    }
+
+    /**
+     * the objects by their identity
+     */
+    private final Map<Intersectable, Entry> _entries = new IdentityHashMap<>();
+    /**
+     * the single geometries in the order they were added, and the same geometries by their identity
+     */
+    private final List<Geometry> _geometries = new ArrayList<>();
+    private final Set<Geometry> _geometrySet = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * the bottom levels of the single geometries - the group of the bounded ones and the unbounded
+     * ones as they are, null when they must be rebuilt
+     */
+    private Intersectable[] _geometryBottoms = null;
+    /**
+     * the top level, null when it must be rebuilt
+     */
+    private volatile LinearBVH _topLevel = null;
+    private BVHBuilder.Quality _quality = BVHBuilder.Quality.SAH;
+    private BVHBuilder.Stats _topLevelStats = null;
+    private int _topLevelBuilds = 0;
+    private int _bottomLevelBuilds = 0;
+
+    /**
+     * constructor
+     *
+     * @param objects the objects of the structure
+     */
+    public TwoLevelBVH(Intersectable... objects) {
+        add(objects);
+    }
+
+    /**
+     * add objects - their bottom level is built now (the bottom level of single geometries and
+     * the top level will be rebuilt on the next intersection)
+     *
+     * @param objects the added objects
+     */
+    public synchronized void add(Intersectable... objects) {
+        for (Intersectable object : objects) {
+            if (object instanceof Geometry) {
+                if (_geometrySet.add((Geometry) object)) {
+                    _geometries.add((Geometry) object);
+                    _geometryBottoms = null;
+                }
+                continue;
+            }
+            if (_entries.containsKey(object)) continue;
+            Entry entry = new Entry(object);
+            buildBottomLevel(entry);
+            _entries.put(object, entry);
+        }
+        _topLevel = null;
+    }
+
+    /**
+     * remove objects - the top level will be rebuilt on the next intersection
+     *
+     * @param objects the removed objects
+     */
+    public synchronized void remove(Intersectable... objects) {
+        for (Intersectable object : objects) {
+            _entries.remove(object);
+            if (_geometrySet.remove(object)) {
+                _geometries.removeIf(geometry -> geometry == object);
+                _geometryBottoms = null;
+            }
+        }
+        _topLevel = null;
+    }
+
+    /**
+     * rebuild the bottom level of objects that were changed (moved, or a group that has been edited)
+     *
+     * @param objects the changed objects
+     */
+    public synchronized void update(Intersectable... objects) {
+        for (Intersectable object : objects) {
+            Entry entry = _entries.get(object);
+            if (entry != null)
+                buildBottomLevel(entry);
+            else if (_geometrySet.contains(object))
+                _geometryBottoms = null;
+        }
+        _topLevel = null;
+    }
+
+    /**
+     * set the quality of the builds - all the bottom levels are rebuilt
+     *
+     * @param quality SAH for final renders, LBVH for fast preview builds
+     */
+    public synchronized void setQuality(BVHBuilder.Quality quality) {
+        if (_quality == quality) return;
+        _quality = quality;
+        for (Entry entry : _entries.values())
+            buildBottomLevel(entry);
+        _geometryBottoms = null;
+        _topLevel = null;
+    }
+
+    /**
+     * get the quality of the builds
+     *
+     * @return the quality
+     */
+    public synchronized BVHBuilder.Quality getQuality() {
+        return _quality;
+    }
+
+    /**
+     * get the metrics of the last build of the top level
+     *
+     * @return the build stats, null before the first build
+     */
+    public synchronized BVHBuilder.Stats getTopLevelStats() {
+        return _topLevelStats;
+    }
+
+    /**
+     * get the amount of nodes of the top level and of the hierarchies of the bottom levels
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        LinearBVH topLevel = getTopLevel();
+        int nodes = topLevel.getNodeCount();
+        for (Intersectable bottom : topLevel._intersectables)
+            if (bottom instanceof LinearBVH)
+                nodes += ((LinearBVH) bottom).getNodeCount();
+        return nodes;
+    }
+
+    /**
+     * get the memory of a node of the top level and of the hierarchies of the bottom levels
+     *
+     * @return bytes per node
+     */
+    public int getBytesPerNode() {
+        return getTopLevel().getBytesPerNode();
+    }
+
+    /**
+     * get the average amount of nodes of both levels visited by a ray since the last build of the top level
+     *
+     * @return the average traversal steps per ray
+     */
+    public double getAverageTraversalSteps() {
+        LinearBVH topLevel = getTopLevel();
+        long rays = topLevel.getRays();
+        if (rays == 0) return 0;
+        long steps = topLevel.getTraversalSteps();
+        for (Intersectable bottom : topLevel._intersectables)
+            if (bottom instanceof LinearBVH)
+                steps += ((LinearBVH) bottom).getTraversalSteps();
+        return (double) steps / rays;
+    }
+
+    /**
+     * get the amount of objects
+     *
+     * @return amount of objects
+     */
+    public synchronized int size() {
+        return _entries.size() + _geometries.size();
+    }
+
+    /**
+     * get the amount of top level builds since the creation of the structure
+     *
+     * @return the amount of builds
+     */
+    public synchronized int getTopLevelBuilds() {
+        return _topLevelBuilds;
+    }
+
+    /**
+     * get the amount of bottom level builds since the creation of the structure
+     *
+     * @return the amount of builds
+     */
+    public synchronized int getBottomLevelBuilds() {
+        return _bottomLevelBuilds;
+    }
+
+    /**
+     * build the bottom level structure of an object
+     *
+     * @param entry the object entry
+     */
+    private void buildBottomLevel(Entry entry) {
+        if (entry._object instanceof Geometries) {
+            List<Intersectable> flat = new ArrayList<>();
+            ((Geometries) entry._object).flatten(flat);
+            entry._bottoms = buildBottomLevel(flat);
+        } else
+            entry._bottoms = new Intersectable[]{entry._object};
+        ++_bottomLevelBuilds;
+    }
+
+    /**
+     * build the bottom level structure of a flat list of intersectables - the bounded ones are
+     * compiled (or get a hierarchy if there are many of them), the unbounded ones are left
+     * as they are for the side list of the top level, so they do not take the box of the others
+     *
+     * @param flat the intersectables (without nested Geometries)
+     * @return the bottom level of the bounded intersectables and the unbounded intersectables
+     */
+    private Intersectable[] buildBottomLevel(List<Intersectable> flat) {
+        List<Intersectable> bottoms = new ArrayList<>();
+        List<Intersectable> bounded = new ArrayList<>();
+        for (Intersectable geo : flat)
+            (geo.getBoundingBox() == null ? bottoms : bounded).add(geo);
+        if (bounded.size() > HIERARCHY_THRESHOLD)
+            bottoms.add(new LinearBVH(new BVH(bounded, _quality)));
+        else if (!bounded.isEmpty())
+            bottoms.add(new CompiledGeometries(bounded));
+        return bottoms.toArray(new Intersectable[0]);
+    }
+
+    /**
+     * build the bottom level of the single geometries as one group
+     */
+    private void buildGeometryBottoms() {
+        _geometryBottoms = buildBottomLevel(new ArrayList<>(_geometries));
+        if (!_geometries.isEmpty())
+            ++_bottomLevelBuilds;
+    }
+
+    /**
+     * get the top level, rebuild it if it was dropped
+     *
+     * @return the top level
+     */
+    private LinearBVH getTopLevel() {
+        LinearBVH topLevel = _topLevel;
+        if (topLevel != null)
+            return topLevel;
+        synchronized (this) {
+            if (_topLevel == null)
+                buildTopLevel();
+            return _topLevel;
+        }
+    }
+
+    /**
+     * build the top level over the boxes of the bounded objects - the unbounded ones are kept aside
+     */
+    private void buildTopLevel() {
+        if (_geometryBottoms == null)
+            buildGeometryBottoms();
+        List<Intersectable> bottoms = new ArrayList<>(_entries.size() + _geometryBottoms.length);
+        for (Entry entry : _entries.values())
+            Collections.addAll(bottoms, entry._bottoms);
+        Collections.addAll(bottoms, _geometryBottoms);
+        BVH bvh = new BVH(bottoms, _quality);
+        if (!bottoms.isEmpty()) {
+            _topLevelStats = bvh.getBuildStats();
+            ++_topLevelBuilds;
+        }
+        _topLevel = new LinearBVH(bvh);
+    }
+
+    /**
+     * get the bounding box of all the objects
+     *
+     * @return the box, or null if there are no objects or any of them is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return getTopLevel().getBoundingBox();
+    }
+
+    /**
+     * find the intersections - only the objects whose boxes are hit by the ray are tested
+     *
+     * @param ray         the ray
+     * @param maxDistance the max distance along the ray
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        return getTopLevel().findIntersections(ray, maxDistance);
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the objects hit by a ray - only the objects
+     * whose boxes are hit are tested, and the traversal stops when the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        return getTopLevel().accumulateTransmittance(ray, maxDistance, transmittance);
+    }
+
+    /**
+     * find the closest hit - the near child is visited first and the nodes behind the closest
+     * hit found so far are skipped
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        return getTopLevel().intersect(ray, hit);
+    }
+}
@@ -0,0 +1,368 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform grid over a flat list of intersectables - an alternative to the hierarchies for dense
+ * scenes of shapes of about the same size (like a floor of equal triangles with some spheres).<br/>
+ * The resolution is chosen from the amount of shapes and the extent of their box, every cell keeps
+ * the shapes whose boxes overlap it, and a ray walks through the cells it crosses in order (3D-DDA).
+ * A shape that overlaps several cells is tested once per ray.
+ * Intersectables without a bounding box are kept aside and tested with every ray.
+ * The grid is a snapshot - it must be built again after the intersectables have been changed.
+ */
+public class UniformGrid implements Intersectable {
+    /**
+     * the wanted amount of cells per shape
+     */
+    private static final double DENSITY = 3;
+    /**
+     * max amount of cells on an axis
+     */
+    private static final int MAX_RESOLUTION = 128;
+
+    /**
+     * the shapes that are in the cells
+     */
+    private final Intersectable[] _bounded;
+    /**
+     * the shapes without a bounding box
+     */
+    private final Intersectable[] _unbounded;
+    /**
+     * the box of the grid
+     */
+    private final BoundingBox _box;
+    /**
+     * the amount of cells, the size of a cell and its reciprocal per axis
+     */
+    private final int[] _resolution = new int[3];
+    private final double[] _cellSize = new double[3];
+    private final double[] _inverseCellSize = new double[3];
+    /**
+     * the shapes of cell c are _cellItems[_cellStart[c] .. _cellStart[c + 1])
+     */
+    private final int[] _cellStart;
+    private final int[] _cellItems;
+
+    /**
+     * constructor - builds the grid
+     *
+     * @param intersectables the intersectables (without nested Geometries)
+     */
+    public UniformGrid(List<Intersectable> intersectables) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        List<Intersectable> unbounded = new ArrayList<>();
+        BoundingBox box = null;
+        for (Intersectable geo : intersectables) {
+            BoundingBox geoBox = geo.getBoundingBox();
+            if (geoBox == null) {
+                unbounded.add(geo);
+            } else {
+                bounded.add(geo);
+                boxes.add(geoBox);
+                box = box == null ? geoBox : box.union(geoBox);
+            }
+        }
+        _bounded = bounded.toArray(new Intersectable[0]);
+        _unbounded = unbounded.toArray(new Intersectable[0]);
+        _box = box;
+
+        int n = _bounded.length;
+        if (n == 0) {
+            _cellStart = new int[1];
+            _cellItems = new int[0];
+            return;
+        }
+
+        // cubic cells, DENSITY cells per shape in the volume of the axes that have an extent
+        double volume = 1;
+        int dimensions = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = box.getMax(axis) - box.getMin(axis);
+            if (extent > 0) {
+                volume *= extent;
+                ++dimensions;
+            }
+        }
+        double cellsPerUnit = dimensions == 0 ? 0 : Math.pow(DENSITY * n / volume, 1d / dimensions);
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = box.getMax(axis) - box.getMin(axis);
+            _resolution[axis] = (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extent * cellsPerUnit)));
+            _cellSize[axis] = extent / _resolution[axis];
+            _inverseCellSize[axis] = extent > 0 ? _resolution[axis] / extent : 0;
+        }
+
+        // count the shapes of every cell, then fill the cells
+        _cellStart = new int[getCellCount() + 1];
+        int[][] ranges = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            ranges[i] = cellRange(boxes.get(i));
+            forEachCell(ranges[i], cell -> ++_cellStart[cell + 1]);
+        }
+        for (int c = 0; c < getCellCount(); ++c)
+            _cellStart[c + 1] += _cellStart[c];
+        _cellItems = new int[_cellStart[getCellCount()]];
+        int[] fill = _cellStart.clone();
+        for (int i = 0; i < n; ++i) {
+            final int item = i;
+            forEachCell(ranges[i], cell -> _cellItems[fill[cell]++] = item);
+        }
+    }
+
+    /**
+     * get the cells that a box overlaps
+     *
+     * @return min and max cell on every axis
+     */
+    private int[] cellRange(BoundingBox box) {
+        int[] range = new int[6];
+        for (int axis = 0; axis < 3; ++axis) {
+            range[axis] = cell(axis, box.getMin(axis));
+            range[axis + 3] = cell(axis, box.getMax(axis));
+        }
+        return range;
+    }
+
+    private void forEachCell(int[] range, IntConsumer action) {
+        for (int z = range[2]; z <= range[5]; ++z)
+            for (int y = range[1]; y <= range[4]; ++y)
+                for (int x = range[0]; x <= range[3]; ++x)
+                    action.accept(index(x, y, z));
+    }
+
+    /**
+     * the cell of a coordinate on an axis (clamped to the grid)
+     */
+    private int cell(int axis, double value) {
+        int cell = (int) ((value - _box.getMin(axis)) * _inverseCellSize[axis]);
+        return Math.max(0, Math.min(_resolution[axis] - 1, cell));
+    }
+
+    private int index(int x, int y, int z) {
+        return (z * _resolution[1] + y) * _resolution[0] + x;
+    }
+
+    /**
+     * get the amount of cells on an axis
+     *
+     * @param axis 0 for x, 1 for y, 2 for z
+     * @return the resolution of the axis
+     */
+    public int getResolution(int axis) {
+        return _resolution[axis];
+    }
+
+    /**
+     * get the amount of cells
+     *
+     * @return amount of cells
+     */
+    public int getCellCount() {
+        return _resolution[0] * _resolution[1] * _resolution[2];
+    }
+
+    /**
+     * get the bounding box of the grid
+     *
+     * @return the box, or null if empty or any of the intersectables is unbounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return _unbounded.length == 0 ? _box : null;
+    }
+
+    /**
+     * find the intersections - only the shapes in the cells crossed by the ray are tested
+     *
+     * @param ray         the ray
+     * @param maxDistance the max distance along the ray
+     * @return list of the intersections or null if there are none
+     */
+    @Override
+    public List<GeoPoint> findIntersections(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geo : _unbounded)
+            intersections = addAll(intersections, geo.findIntersections(ray, maxDistance));
+
+        Walk walk = start(ray, maxDistance);
+        if (walk == null)
+            return intersections;
+        long[] tested = new long[(_bounded.length + 63) / 64];
+        do {
+            int cell = index(walk._cell[0], walk._cell[1], walk._cell[2]);
+            for (int i = _cellStart[cell]; i < _cellStart[cell + 1]; ++i) {
+                int item = _cellItems[i];
+                if (mark(tested, item))
+                    intersections = addAll(intersections, _bounded[item].findIntersections(ray, maxDistance));
+            }
+        } while (walk.next(maxDistance));
+        return intersections;
+    }
+
+    /**
+     * multiply a transmittance by the transparency of the shapes hit by a ray - the walk through
+     * the cells stops when the light is blocked
+     *
+     * @param ray           the shadow ray
+     * @param maxDistance   the max distance along the ray
+     * @param transmittance the transmittance of the ray
+     * @return true if the light is blocked
+     */
+    @Override
+    public boolean accumulateTransmittance(Ray ray, double maxDistance, Transmittance transmittance) {
+        for (Intersectable geo : _unbounded)
+            if (geo.accumulateTransmittance(ray, maxDistance, transmittance))
+                return true;
+
+        Walk walk = start(ray, maxDistance);
+        if (walk == null)
+            return false;
+        long[] tested = new long[(_bounded.length + 63) / 64];
+        do {
+            int cell = index(walk._cell[0], walk._cell[1], walk._cell[2]);
+            for (int i = _cellStart[cell]; i < _cellStart[cell + 1]; ++i) {
+                int item = _cellItems[i];
+                if (mark(tested, item) && _bounded[item].accumulateTransmittance(ray, maxDistance, transmittance))
+                    return true;
+            }
+        } while (walk.next(maxDistance));
+        return false;
+    }
+
+    /**
+     * find the closest hit - the cells are walked in order and the walk stops at the
+     * first cell that ends after the closest hit found so far
+     *
+     * @param ray the ray
+     * @param hit the closest hit so far
+     * @return true if a closer hit was found
+     */
+    @Override
+    public boolean intersect(Ray ray, Hit hit) {
+        double maxDistance = hit.getT();
+        for (Intersectable geo : _unbounded)
+            geo.intersect(ray, hit);
+
+        Walk walk = start(ray, hit.getT());
+        if (walk == null)
+            return hit.getT() < maxDistance;
+        long[] tested = new long[(_bounded.length + 63) / 64];
+        do {
+            int cell = index(walk._cell[0], walk._cell[1], walk._cell[2]);
+            for (int i = _cellStart[cell]; i < _cellStart[cell + 1]; ++i) {
+                int item = _cellItems[i];
+                if (mark(tested, item))
+                    _bounded[item].intersect(ray, hit);
+            }
+            if (hit.isHit() && hit.getT() <= walk._cellExit)
+                break;
+        } while (walk.next(hit.getT()));
+        return hit.getT() < maxDistance;
+    }
+
+    /**
+     * mark a shape as tested by the ray
+     *
+     * @return true if it was not tested before
+     */
+    private static boolean mark(long[] tested, int item) {
+        long bit = 1L << item;
+        if ((tested[item >>> 6] & bit) != 0)
+            return false;
+        tested[item >>> 6] |= bit;
+        return true;
+    }
+
+    private static List<GeoPoint> addAll(List<GeoPoint> intersections, List<GeoPoint> tempIntersections) {
+        if (tempIntersections != null) {
+            if (intersections == null)
+                intersections = new ArrayList<>();
+            intersections.addAll(tempIntersections);
+        }
+        return intersections;
+    }
+
+    /**
+     * start the walk of a ray through the cells
+     *
+     * @return the walk at the first cell, or null if the ray misses the grid
+     */
+    private Walk start(Ray ray, double maxDistance) {
+        if (_bounded.length == 0)
+            return null;
+        double[] o = {ray.getOriginX(), ray.getOriginY(), ray.getOriginZ()};
+        double[] d = {ray.getDirectionX(), ray.getDirectionY(), ray.getDirectionZ()};
+        double[] inverse = {ray.getInverseX(), ray.getInverseY(), ray.getInverseZ()};
+
+        // the distance where the ray enters the grid - the walk leaves the grid when it steps out of the cells
+        double tEnter = BoundingBox.entry(_box._minX, _box._minY, _box._minZ, _box._maxX, _box._maxY, _box._maxZ,
+                o[0], o[1], o[2], inverse[0], inverse[1], inverse[2], maxDistance);
+        if (tEnter < 0)
+            return null;
+
+        Walk walk = new Walk();
+        walk._exit = maxDistance;
+        for (int axis = 0; axis < 3; ++axis) {
+            int cell = cell(axis, o[axis] + tEnter * d[axis]);
+            walk._cell[axis] = cell;
+            if (_resolution[axis] == 1 || d[axis] == 0) { // the ray leaves the grid before it crosses a cell on the axis
+                walk._next[axis] = Double.POSITIVE_INFINITY;
+                walk._delta[axis] = Double.POSITIVE_INFINITY;
+                walk._step[axis] = 0;
+                continue;
+            }
+            if (d[axis] > 0) {
+                walk._step[axis] = 1;
+                walk._next[axis] = (_box.getMin(axis) + (cell + 1) * _cellSize[axis] - o[axis]) * inverse[axis];
+                walk._delta[axis] = _cellSize[axis] * inverse[axis];
+            } else {
+                walk._step[axis] = -1;
+                walk._next[axis] = (_box.getMin(axis) + cell * _cellSize[axis] - o[axis]) * inverse[axis];
+                walk._delta[axis] = -_cellSize[axis] * inverse[axis];
+            }
+        }
+        walk._cellExit = Math.min(maxDistance, Math.min(walk._next[0], Math.min(walk._next[1], walk._next[2])));
+        return walk;
+    }
+
+    /**
+     * The state of a ray walking through the cells
+     */
+    private class Walk {
+        final int[] _cell = new int[3];
+        final int[] _step = new int[3];
+        /**
+         * the distance along the ray to the next cell on every axis and between the cells of the axis
+         */
+        final double[] _next = new double[3];
+        final double[] _delta = new double[3];
+        /**
+         * the max distance of the walk and the distance where the ray leaves the current cell
+         */
+        double _exit, _cellExit;
+
+        /**
+         * move to the next cell
+         *
+         * @param maxDistance the max distance along the ray
+         * @return false if the ray leaves the grid or passes the max distance
+         */
+        boolean next(double maxDistance) {
+            if (_cellExit >= _exit || _cellExit > maxDistance)
+                return false;
+            int axis = _next[0] < _next[1] ? (_next[0] < _next[2] ? 0 : 2) : (_next[1] < _next[2] ? 1 : 2);
+            _cell[axis] += _step[axis];
+            if (_cell[axis] < 0 || _cell[axis] >= _resolution[axis])
+                return false;
+            _next[axis] += _delta[axis];
+            _cellExit = Math.min(_exit, Math.min(_next[0], Math.min(_next[1], _next[2])));
+            return true;
+        }
+    }
+}
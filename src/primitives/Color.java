@@ -129,6 +129,51 @@ public class Color {
         return new java.awt.Color(r > 255 ? 255 : r, g > 255 ? 255 : g, b > 255 ? 255 : b);
     }
 
+    /**
+     * get the red component of the color (without the upper limit of 255)
+     *
+     * @return the red component
+     */
+    public double getRed() {
+        return _r;
+    }
+
+    /**
+     * get the green component of the color (without the upper limit of 255)
+     *
+     * @return the green component
+     */
+    public double getGreen() {
+        return _g;
+    }
+
+    /**
+     * get the blue component of the color (without the upper limit of 255)
+     *
+     * @return the blue component
+     */
+    public double getBlue() {
+        return _b;
+    }
+
+    /**
+     * get the strongest component of the color (without the upper limit of 255)
+     *
+     * @return the biggest of the RGB components
+     */
+    public double getMaxComponent() {
+        return Math.max(_r, Math.max(_g, _b));
+    }
+
+    /**
+     * get the luminance of the color - the brightness seen by the eye (Rec. 709 weights)
+     *
+     * @return the luminance (without the upper limit of 255)
+     */
+    public double getLuminance() {
+        return 0.2126 * _r + 0.7152 * _g + 0.0722 * _b;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
@@ -19,8 +19,8 @@ public final class Coordinate {
      * @param coord coordinate value
      */
     public Coordinate(double coord) {
-        // if it too close to zero make it zero
-        _coord = alignZero(coord);
+        // if it too close to zero make it zero (unless in fast math mode)
+        _coord = Util._fastMath ? coord : alignZero(coord);
     }
 
     /**
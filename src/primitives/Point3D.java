@@ -1,6 +1,6 @@
 package primitives;
 
-import static java.lang.StrictMath.sqrt;
+import static java.lang.Math.sqrt;
 
 /**
  * Point3D basic point with coordinates in X, Y, Z axes
@@ -136,9 +136,10 @@ public class Point3D {
      * @return double
      */
     public double distanceSquared(Point3D p) {
-        return (p._x.get() - this._x.get()) * (p._x.get() - this._x.get())
-                + (p._y.get() - this._y.get()) * (p._y.get() - this._y.get())
-                + (p._z.get() - this._z.get()) * (p._z.get() - this._z.get());
+        double dx = p._x._coord - _x._coord, dy = p._y._coord - _y._coord, dz = p._z._coord - _z._coord;
+        if (Util._fastMath)
+            return Math.fma(dx, dx, Math.fma(dy, dy, dz * dz));
+        return dx * dx + dy * dy + dz * dz;
     }
 
     /**
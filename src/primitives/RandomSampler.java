@@ -0,0 +1,57 @@
+package primitives;
+
+/**
+ * Sampler of a stream of pseudo random numbers that is fully defined by its seed (SplitMix64).<br/>
+ * It is not thread safe - every thread keeps its own sampler, and may reset it with the seed
+ * of every pixel so the image does not depend on the threads that rendered it.
+ */
+public class RandomSampler implements Sampler {
+    private long _state;
+
+    /**
+     * constructor
+     *
+     * @param seed the seed of the stream
+     */
+    public RandomSampler(long seed) {
+        _state = seed;
+    }
+
+    /**
+     * restart the stream with a seed
+     *
+     * @param seed the seed of the stream
+     * @return the sampler itself
+     */
+    public RandomSampler reset(long seed) {
+        _state = seed;
+        return this;
+    }
+
+    /**
+     * get the seed of the stream of a pixel
+     *
+     * @param seed the seed of the image
+     * @param x    the column of the pixel
+     * @param y    the row of the pixel
+     * @return the seed of the pixel
+     */
+    public static long pixelSeed(long seed, int x, int y) {
+        return mix(seed ^ mix(((long) y << 32) | (x & 0xFFFFFFFFL)));
+    }
+
+    @Override
+    public double nextDouble() {
+        _state += 0x9E3779B97F4A7C15L;
+        return (mix(_state) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * the mixing function of SplitMix64 - every bit of the result depends on all the bits of the value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,10 +1,8 @@
 package primitives;
-import java.util.Random;
 import java.util.Objects;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-import static java.lang.StrictMath.sqrt;
 import static primitives.Util.isZero;
 
 /**
@@ -17,18 +15,24 @@ public class Ray {
      * over the normal’s line
      */
     private static final double DELTA = 0.1;
-    /**
-     * create new random number
-     */
-    private static final Random rnd = new Random();
     /**
      * The origin from which the ray starts.
      */
-    Point3D _origin;
+    final Point3D _origin;
     /**
      * The direction of the ray.
      */
-    Vector _vector;
+    final Vector _vector;
+    /**
+     * the components of the origin and of the direction, and the reciprocals of the direction
+     * components (for the slab tests of the boxes) - cached, so the intersection code reads them
+     * without creating copies
+     */
+    private final double _ox, _oy, _oz, _dx, _dy, _dz, _ix, _iy, _iz;
+    /**
+     * bit per axis - set if the direction is negative on the axis
+     */
+    private final int _signs;
 
     //********** Constructors ***********//
 
@@ -41,6 +45,41 @@ public class Ray {
     public Ray(Point3D point, Vector vector) {
         this._origin = new Point3D(point);
         this._vector = new Vector(vector.normalized());
+        _ox = _origin._x._coord;
+        _oy = _origin._y._coord;
+        _oz = _origin._z._coord;
+        _dx = _vector._head._x._coord;
+        _dy = _vector._head._y._coord;
+        _dz = _vector._head._z._coord;
+        _ix = 1 / _dx;
+        _iy = 1 / _dy;
+        _iz = 1 / _dz;
+        _signs = (_ix < 0 ? 1 : 0) | (_iy < 0 ? 2 : 0) | (_iz < 0 ? 4 : 0);
+    }
+
+    /**
+     * Constructor of a ray with a direction that is already normalized - the origin is shared and
+     * the components are kept as they are (for the rays of the camera frame, that normalizes them
+     * once in its buffer)
+     *
+     * @param point the origin of the ray
+     * @param dx    the x of the normalized direction
+     * @param dy    the y of the normalized direction
+     * @param dz    the z of the normalized direction
+     */
+    public Ray(Point3D point, double dx, double dy, double dz) {
+        this._origin = point;
+        this._vector = new Vector(dx, dy, dz);
+        _ox = _origin._x._coord;
+        _oy = _origin._y._coord;
+        _oz = _origin._z._coord;
+        _dx = _vector._head._x._coord;
+        _dy = _vector._head._y._coord;
+        _dz = _vector._head._z._coord;
+        _ix = 1 / _dx;
+        _iy = 1 / _dy;
+        _iz = 1 / _dz;
+        _signs = (_ix < 0 ? 1 : 0) | (_iy < 0 ? 2 : 0) | (_iz < 0 ? 4 : 0);
     }
 
     /**
@@ -53,10 +92,7 @@ public class Ray {
      * @param normal
      */
     public Ray(Point3D point, Vector direction, Vector normal) {
-        _vector = new Vector(direction).normalized();
-        double nv = normal.dotProduct(direction);
-        Vector normalDelta = normal.scale((nv > 0 ? DELTA : -DELTA));
-        _origin = point.add(normalDelta);
+        this(point.add(normal.scale(normal.dotProduct(direction) > 0 ? DELTA : -DELTA)), new Vector(direction));
     }
 
     /**
@@ -65,8 +101,7 @@ public class Ray {
      * @param r is a Ray
      */
     public Ray(Ray r) {
-        this._origin = new Point3D(r._origin);
-        this._vector = r._vector.normalized();
+        this(r._origin, r._vector);
     }
 
     @Override
@@ -101,7 +136,7 @@ public class Ray {
      * represented by this object.
      */
     public Vector get_vector() {
-        return new Vector(_vector.normalized());
+        return new Vector(_vector);
     }
 
     /**
@@ -113,6 +148,97 @@ public class Ray {
         return new Point3D(_origin);
     }
 
+    /**
+     * get the x of the origin
+     *
+     * @return the x coordinate
+     */
+    public double getOriginX() {
+        return _ox;
+    }
+
+    /**
+     * get the y of the origin
+     *
+     * @return the y coordinate
+     */
+    public double getOriginY() {
+        return _oy;
+    }
+
+    /**
+     * get the z of the origin
+     *
+     * @return the z coordinate
+     */
+    public double getOriginZ() {
+        return _oz;
+    }
+
+    /**
+     * get the x of the (normalized) direction
+     *
+     * @return the x component
+     */
+    public double getDirectionX() {
+        return _dx;
+    }
+
+    /**
+     * get the y of the (normalized) direction
+     *
+     * @return the y component
+     */
+    public double getDirectionY() {
+        return _dy;
+    }
+
+    /**
+     * get the z of the (normalized) direction
+     *
+     * @return the z component
+     */
+    public double getDirectionZ() {
+        return _dz;
+    }
+
+    /**
+     * get the reciprocal of the x of the direction
+     *
+     * @return 1 / x, infinite if the ray is parallel to the x axis plane
+     */
+    public double getInverseX() {
+        return _ix;
+    }
+
+    /**
+     * get the reciprocal of the y of the direction
+     *
+     * @return 1 / y, infinite if the ray is parallel to the y axis plane
+     */
+    public double getInverseY() {
+        return _iy;
+    }
+
+    /**
+     * get the reciprocal of the z of the direction
+     *
+     * @return 1 / z, infinite if the ray is parallel to the z axis plane
+     */
+    public double getInverseZ() {
+        return _iz;
+    }
+
+    /**
+     * check if the direction is negative on an axis (the far side of a box is its min side)
+     *
+     * @param axis 0, 1 or 2 for x, y or z
+     * @return true if the direction is negative on the axis
+     */
+    public boolean isNegative(int axis) {
+        return (_signs & (1 << axis)) != 0;
+    }
+
     /**
      * create a beam of rays
      * @param focalPoint
@@ -122,6 +248,19 @@ public class Ray {
      * @return
      */
     public List<Ray> getBeamThroughPoint(Point3D focalPoint, double ratio, double radius, int amount) {
+        return getBeamThroughPoint(focalPoint, ratio, radius, amount, Sampler.THREAD_LOCAL);
+    }
+
+    /**
+     * create a beam of rays with the random numbers of a sampler
+     * @param focalPoint
+     * @param ratio
+     * @param radius
+     * @param amount
+     * @param sampler the source of the random numbers
+     * @return the rays
+     */
+    public List<Ray> getBeamThroughPoint(Point3D focalPoint, double ratio, double radius, int amount, Sampler sampler) {
 
         double distance = this._origin.distance(focalPoint);
 
@@ -129,19 +268,18 @@ public class Ray {
             throw new IllegalArgumentException("distance cannot be 0");
         }
 
-        Vector v = this._vector.normalized();
+        Vector v = new Vector(this._vector);
         Vector normX = new Vector(v._head._y._coord * -1, v._head._x._coord, 0).normalized();
         Vector normY = v.crossProduct(normX).normalized();
 
-        List<Ray> rays = new LinkedList<>();
-
+        List<Ray> rays = new ArrayList<>(amount + 1);
 
         for (int counter = 0; counter < amount; counter++) {
             Point3D newPoint = new Point3D(focalPoint);
-            double cosTheta = 2 * rnd.nextDouble() - 1;
+            double cosTheta = 2 * sampler.nextDouble() - 1;
             double sinTheta = Math.sqrt(1d - cosTheta * cosTheta);
 
-            double d = radius * (2 * rnd.nextDouble() - 1);
+            double d = radius * (2 * sampler.nextDouble() - 1);
             double x = d * cosTheta;
             double y = d * sinTheta;
 
@@ -0,0 +1,204 @@
+package primitives;
+
+/**
+ * Patterns of the sample points in a unit square (as the area of a pixel).<br/>
+ * The low discrepancy patterns cover the square evenly by few points, so the average of the
+ * samples converges faster than the average of independent random points.
+ * Every pattern is randomized per call by the sampler (a random shift or scrambling that keeps its
+ * structure), so the neighbour pixels do not repeat the same points.
+ */
+public enum SamplePattern {
+    /**
+     * independent uniform random points
+     */
+    RANDOM {
+        @Override
+        void fill(double[] points, int amount, Sampler sampler) {
+            for (int k = 0; k < amount; ++k) {
+                points[2 * k] = sampler.nextDouble();
+                points[2 * k + 1] = sampler.nextDouble();
+            }
+        }
+    },
+    /**
+     * a random point in every cell of a grid of exactly the amount of cells - the rows of the grid
+     * may have different amounts of columns, and every row is as tall as its part of the cells,
+     * so every cell is 1/amount of the square
+     */
+    STRATIFIED {
+        @Override
+        void fill(double[] points, int amount, Sampler sampler) {
+            int rows = (int) Math.sqrt(amount);
+            int columns = amount / rows, extra = amount % rows;
+            double top = 0;
+            for (int row = 0, k = 0; row < rows; ++row) {
+                int rowColumns = row < extra ? columns + 1 : columns;
+                double height = (double) rowColumns / amount;
+                for (int column = 0; column < rowColumns; ++column, ++k) {
+                    points[2 * k] = (column + sampler.nextDouble()) / rowColumns;
+                    points[2 * k + 1] = top + sampler.nextDouble() * height;
+                }
+                top += height;
+            }
+        }
+    },
+    /**
+     * the Halton sequence of the bases 2 and 3 with a random toroidal shift
+     */
+    HALTON {
+        @Override
+        void fill(double[] points, int amount, Sampler sampler) {
+            double shiftX = sampler.nextDouble(), shiftY = sampler.nextDouble();
+            for (int k = 0; k < amount; ++k) {
+                points[2 * k] = wrap(radicalInverse(k + 1, 2) + shiftX);
+                points[2 * k + 1] = wrap(radicalInverse(k + 1, 3) + shiftY);
+            }
+        }
+    },
+    /**
+     * the first two dimensions of the Sobol sequence with a random digit scrambling -
+     * every power of 4 of points has a single point in every cell of every grid of that amount of cells
+     */
+    SOBOL {
+        @Override
+        void fill(double[] points, int amount, Sampler sampler) {
+            int scrambleX = (int) (long) (sampler.nextDouble() * 0x1p32);
+            int scrambleY = (int) (long) (sampler.nextDouble() * 0x1p32);
+            for (int k = 0; k < amount; ++k) {
+                points[2 * k] = toUnit(Integer.reverse(k) ^ scrambleX);
+                int y = 0;
+                for (int i = 0, bits = k; bits != 0; ++i, bits >>>= 1)
+                    if ((bits & 1) != 0)
+                        y ^= SOBOL_DIRECTIONS[i];
+                points[2 * k + 1] = toUnit(y ^ scrambleY);
+            }
+        }
+    },
+    /**
+     * a precomputed tile of blue noise points (no two points are close) with a random toroidal shift -
+     * every prefix of the tile is spread evenly too, so any amount of points is well distributed
+     */
+    BLUE_NOISE {
+        @Override
+        void fill(double[] points, int amount, Sampler sampler) {
+            double[] tile = BlueNoiseTile.POINTS;
+            double shiftX = sampler.nextDouble(), shiftY = sampler.nextDouble();
+            for (int k = 0; k < amount; ++k)
+                if (k < BlueNoiseTile.SIZE) {
+                    points[2 * k] = wrap(tile[2 * k] + shiftX);
+                    points[2 * k + 1] = wrap(tile[2 * k + 1] + shiftY);
+                } else {
+                    points[2 * k] = sampler.nextDouble();
+                    points[2 * k + 1] = sampler.nextDouble();
+                }
+        }
+    };
+
+    /**
+     * the direction numbers of the second dimension of the Sobol sequence (primitive polynomial x + 1)
+     */
+    private static final int[] SOBOL_DIRECTIONS = new int[32];
+
+    static {
+        int m = 1;
+        for (int i = 0; i < 32; ++i) {
+            SOBOL_DIRECTIONS[i] = m << (31 - i);
+            m ^= m << 1;
+        }
+    }
+
+    /**
+     * the tile of the blue noise points - built on first use by Mitchell's best candidate algorithm
+     * on the torus, with a fixed seed
+     */
+    private static class BlueNoiseTile {
+        static final int SIZE = 256;
+        /**
+         * the candidates per point already in the tile
+         */
+        static final int CANDIDATES = 8;
+        static final double[] POINTS = new double[2 * SIZE];
+
+        static {
+            RandomSampler sampler = new RandomSampler(0x5EED);
+            POINTS[0] = sampler.nextDouble();
+            POINTS[1] = sampler.nextDouble();
+            for (int k = 1; k < SIZE; ++k) {
+                double bestDistance = -1;
+                for (int c = 0; c < CANDIDATES * k; ++c) {
+                    double x = sampler.nextDouble(), y = sampler.nextDouble();
+                    double distance = Double.POSITIVE_INFINITY;
+                    for (int i = 0; i < k && distance > bestDistance; ++i) {
+                        double dx = Math.abs(x - POINTS[2 * i]), dy = Math.abs(y - POINTS[2 * i + 1]);
+                        dx = Math.min(dx, 1 - dx);
+                        dy = Math.min(dy, 1 - dy);
+                        distance = Math.min(distance, dx * dx + dy * dy);
+                    }
+                    if (distance > bestDistance) {
+                        bestDistance = distance;
+                        POINTS[2 * k] = x;
+                        POINTS[2 * k + 1] = y;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * check if the pattern is progressive - every prefix of its points is spread evenly, so the
+     * points may be taken in batches until enough samples are taken
+     *
+     * @return true for the sequences and the blue noise, false for the random and the stratified points
+     */
+    public boolean isProgressive() {
+        return this == HALTON || this == SOBOL || this == BLUE_NOISE;
+    }
+
+    /**
+     * fill an array with sample points of the unit square
+     *
+     * @param points  the array of the points - x and y of every point
+     * @param amount  amount of points
+     * @param sampler the source of the random numbers of the randomization
+     */
+    abstract void fill(double[] points, int amount, Sampler sampler);
+
+    /**
+     * get sample points of the unit square
+     *
+     * @param amount  amount of points
+     * @param sampler the source of the random numbers of the randomization
+     * @return the x and y of every point, every coordinate in [0, 1)
+     */
+    public double[] getPoints(int amount, Sampler sampler) {
+        if (amount < 1)
+            throw new IllegalArgumentException("The amount of sample points must be positive");
+        double[] points = new double[2 * amount];
+        fill(points, amount, sampler);
+        return points;
+    }
+
+    /**
+     * the radical inverse of an index - its digits in a base mirrored around the point
+     */
+    private static double radicalInverse(int index, int base) {
+        double inverse = 0, digit = 1d / base;
+        for (; index > 0; index /= base, digit /= base)
+            inverse += (index % base) * digit;
+        return inverse;
+    }
+
+    /**
+     * the fraction of a number in [0, 2)
+     */
+    private static double wrap(double value) {
+        return value >= 1 ? value - 1 : value;
+    }
+
+    /**
+     * the unsigned 32 bits fraction of an int
+     */
+    private static double toUnit(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1p-32;
+    }
+}
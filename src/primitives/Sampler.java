@@ -0,0 +1,24 @@
+package primitives;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of the random numbers of the sampling - the rays of the supersampling beams,
+ * the points of the soft shadows etc.<br/>
+ * A sampler is used by a single thread at a time. The shared {@link #THREAD_LOCAL} sampler
+ * draws from the generator of the calling thread, so the threads never contend on a common seed.
+ */
+@FunctionalInterface
+public interface Sampler {
+    /**
+     * sampler that draws from the random generator of the calling thread
+     */
+    Sampler THREAD_LOCAL = () -> ThreadLocalRandom.current().nextDouble();
+
+    /**
+     * get the next random number
+     *
+     * @return a number in [0, 1)
+     */
+    double nextDouble();
+}
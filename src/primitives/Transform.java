@@ -0,0 +1,182 @@
+package primitives;
+
+/**
+ * Affine transformation of the 3D space - a 3x3 linear part and a translation.
+ * The transformation is immutable, combining transformations creates new ones.
+ */
+public final class Transform {
+    /**
+     * the matrix in row order: m[0..2] first row, m[3..5] second row, m[6..8] third row
+     */
+    private final double[] _m;
+    /**
+     * the translation
+     */
+    private final double _tx, _ty, _tz;
+
+    /**
+     * the identity transformation
+     */
+    public final static Transform IDENTITY = new Transform(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1}, 0, 0, 0);
+
+    /**
+     * constructor
+     *
+     * @param m  the linear part in row order
+     * @param tx x of the translation
+     * @param ty y of the translation
+     * @param tz z of the translation
+     */
+    private Transform(double[] m, double tx, double ty, double tz) {
+        _m = m;
+        _tx = tx;
+        _ty = ty;
+        _tz = tz;
+    }
+
+    /**
+     * create a translation
+     *
+     * @param v the translation vector
+     * @return the transformation
+     */
+    public static Transform translation(Vector v) {
+        return new Transform(IDENTITY._m, v._head._x._coord, v._head._y._coord, v._head._z._coord);
+    }
+
+    /**
+     * create a uniform scaling around the origin
+     *
+     * @param factor the scaling factor
+     * @return the transformation
+     * @throws IllegalArgumentException for a zero factor
+     */
+    public static Transform scaling(double factor) {
+        return scaling(factor, factor, factor);
+    }
+
+    /**
+     * create a scaling around the origin
+     *
+     * @param sx the scaling factor of x
+     * @param sy the scaling factor of y
+     * @param sz the scaling factor of z
+     * @return the transformation
+     * @throws IllegalArgumentException for a zero factor
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        if (Util.isZero(sx) || Util.isZero(sy) || Util.isZero(sz))
+            throw new IllegalArgumentException("Scaling factor cannot be zero");
+        return new Transform(new double[]{sx, 0, 0, 0, sy, 0, 0, 0, sz}, 0, 0, 0);
+    }
+
+    /**
+     * create a rotation around an axis through the origin (right hand rule)
+     *
+     * @param axis  the rotation axis
+     * @param angle the angle in radians
+     * @return the transformation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector u = axis.normalized();
+        double x = u._head._x._coord, y = u._head._y._coord, z = u._head._z._coord;
+        double c = Math.cos(angle), s = Math.sin(angle), t = 1 - c;
+        return new Transform(new double[]{
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c}, 0, 0, 0);
+    }
+
+    /**
+     * combine the transformations - the other transformation is applied first
+     * and then this one
+     *
+     * @param other the transformation to apply first
+     * @return the combined transformation
+     */
+    public Transform multiply(Transform other) {
+        double[] a = _m, b = other._m, m = new double[9];
+        for (int row = 0; row < 3; ++row)
+            for (int col = 0; col < 3; ++col)
+                m[row * 3 + col] = a[row * 3] * b[col] + a[row * 3 + 1] * b[3 + col] + a[row * 3 + 2] * b[6 + col];
+        return new Transform(m,
+                a[0] * other._tx + a[1] * other._ty + a[2] * other._tz + _tx,
+                a[3] * other._tx + a[4] * other._ty + a[5] * other._tz + _ty,
+                a[6] * other._tx + a[7] * other._ty + a[8] * other._tz + _tz);
+    }
+
+    /**
+     * calculate the inverse transformation
+     *
+     * @return the inverse transformation
+     * @throws IllegalArgumentException if the transformation cannot be inverted
+     */
+    public Transform inverse() {
+        double[] m = _m;
+        double c0 = m[4] * m[8] - m[5] * m[7];
+        double c1 = m[5] * m[6] - m[3] * m[8];
+        double c2 = m[3] * m[7] - m[4] * m[6];
+        double det = m[0] * c0 + m[1] * c1 + m[2] * c2;
+        if (Util.isZero(det))
+            throw new IllegalArgumentException("The transformation cannot be inverted");
+        double inv = 1 / det;
+        double[] r = {
+                c0 * inv, (m[2] * m[7] - m[1] * m[8]) * inv, (m[1] * m[5] - m[2] * m[4]) * inv,
+                c1 * inv, (m[0] * m[8] - m[2] * m[6]) * inv, (m[2] * m[3] - m[0] * m[5]) * inv,
+                c2 * inv, (m[1] * m[6] - m[0] * m[7]) * inv, (m[0] * m[4] - m[1] * m[3]) * inv};
+        return new Transform(r,
+                -(r[0] * _tx + r[1] * _ty + r[2] * _tz),
+                -(r[3] * _tx + r[4] * _ty + r[5] * _tz),
+                -(r[6] * _tx + r[7] * _ty + r[8] * _tz));
+    }
+
+    /**
+     * transform a point (linear part and translation)
+     *
+     * @param p the point
+     * @return the transformed point
+     */
+    public Point3D transform(Point3D p) {
+        double x = p._x._coord, y = p._y._coord, z = p._z._coord;
+        return new Point3D(
+                _m[0] * x + _m[1] * y + _m[2] * z + _tx,
+                _m[3] * x + _m[4] * y + _m[5] * z + _ty,
+                _m[6] * x + _m[7] * y + _m[8] * z + _tz);
+    }
+
+    /**
+     * transform a direction (linear part only)
+     *
+     * @param v the vector
+     * @return the transformed vector (not normalized)
+     */
+    public Vector transform(Vector v) {
+        double x = v._head._x._coord, y = v._head._y._coord, z = v._head._z._coord;
+        return new Vector(
+                _m[0] * x + _m[1] * y + _m[2] * z,
+                _m[3] * x + _m[4] * y + _m[5] * z,
+                _m[6] * x + _m[7] * y + _m[8] * z);
+    }
+
+    /**
+     * transform a normal of a surface by the transpose of this transformation - to be
+     * called on the inverse of the transformation that moved the surface
+     *
+     * @param n the normal
+     * @return the transformed normal (normalized)
+     */
+    public Vector transformNormal(Vector n) {
+        double x = n._head._x._coord, y = n._head._y._coord, z = n._head._z._coord;
+        return new Vector(
+                _m[0] * x + _m[3] * y + _m[6] * z,
+                _m[1] * x + _m[4] * y + _m[7] * z,
+                _m[2] * x + _m[5] * y + _m[8] * z).normalize();
+    }
+
+    @Override
+    public String toString() {
+        return "Transform: [" + _m[0] + ", " + _m[1] + ", " + _m[2] + ", " + _tx + "] ["
+                + _m[3] + ", " + _m[4] + ", " + _m[5] + ", " + _ty + "] ["
+                + _m[6] + ", " + _m[7] + ", " + _m[8] + ", " + _tz + ']';
+    }
+}
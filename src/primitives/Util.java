@@ -8,18 +8,38 @@ import java.util.Random;
 public abstract class Util {
     // It is binary, equivalent to ~1/1,000,000,000,000 in decimal (12 digits)
     private static final int ACCURACY = -40;
+    /**
+     * the epsilon of all the checks - a number is almost zero if its binary exponent is below
+     * the accuracy, that is if its absolute value is below 2^ACCURACY
+     */
+    private static final double EPSILON = Math.scalb(1d, ACCURACY);
     private static Random rand = new Random();
+    /**
+     * fast math mode - the coordinates are kept as they are calculated instead of being aligned
+     * to zero on construction, and only the geometric predicates (which check their values by
+     * {@link #isZero(double)} and {@link #alignZero(double)}) use the epsilon.
+     * The dot products and the squared lengths use fused multiply-add, and the normalization
+     * multiplies by the reciprocal of the length.
+     * Intentionally "package-friendly" due to performance constraints
+     */
+    static boolean _fastMath = false;
+
+    /**
+     * turn the fast math mode on or off - it must not be changed while rendering
+     *
+     * @param fastMath true to keep the coordinates without alignment
+     */
+    public static void setFastMath(boolean fastMath) {
+        _fastMath = fastMath;
+    }
 
-    // double store format (bit level): seee eeee eeee (1.)mmmm � mmmm
-    // 1 bit sign, 11 bits exponent, 53 bits (52 stored) normalized mantissa
-    // the number is m+2^e where 1<=m<2
-    // NB: exponent is stored "normalized" (i.e. always positive by adding 1023)
-    private static int getExp(double num) {
-        // 1. doubleToRawLongBits: "convert" the stored number to set of bits
-        // 2. Shift all 52 bits to the right (removing mantissa)
-        // 3. Zero the sign of number bit by mask 0x7FF
-        // 4. "De-normalize" the exponent by subtracting 1023
-        return (int) ((Double.doubleToRawLongBits(num) >> 52) & 0x7FFL) - 1023;
+    /**
+     * check if the fast math mode is on
+     *
+     * @return true if the coordinates are not aligned on construction
+     */
+    public static boolean isFastMath() {
+        return _fastMath;
     }
 
     /**
@@ -29,7 +49,7 @@ public abstract class Util {
      * @return true if the number is zero or almost zero, false otherwise
      */
     public static boolean isZero(double number) {
-        return getExp(number) < ACCURACY;
+        return Math.abs(number) < EPSILON;
     }
 
     /**
@@ -52,6 +72,6 @@ public abstract class Util {
      * @return 0.0 if the number is very close to zero, the number itself otherwise
      */
     public static double alignZero(double number) {
-        return getExp(number) < ACCURACY ? 0.0 : number;
+        return Math.abs(number) < EPSILON ? 0.0 : number;
     }
 }
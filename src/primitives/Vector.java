@@ -2,7 +2,7 @@ package primitives;
 
 import java.util.Objects;
 
-import static java.lang.StrictMath.sqrt;
+import static java.lang.Math.sqrt;
 
 public class Vector {
     Point3D _head;
@@ -58,7 +58,7 @@ public class Vector {
         if (head.equals(Point3D.ZERO))
             throw new IllegalArgumentException("Vector Zero is not valid for head");
         else
-            this._head = new Point3D(d1, d2, d3);
+            this._head = head;
     }
 
     /**
@@ -101,7 +101,9 @@ public class Vector {
      * @return double number of the dot product between two vectors
      */
     public double dotProduct(Vector other) {
-
+        if (Util._fastMath)
+            return Math.fma(_head._x._coord, other._head._x._coord,
+                    Math.fma(_head._y._coord, other._head._y._coord, _head._z._coord * other._head._z._coord));
         return _head._x.get() * other._head._x.get() +
                 _head._y.get() * other._head._y.get() +
                 _head._z.get() * other._head._z.get();
@@ -146,9 +148,10 @@ public class Vector {
      * @return double
      */
     public double lengthSquared() {
-        return (this._head._x.get() * this._head._x.get()
-                + this._head._y.get() * this._head._y.get()
-                + this._head._z.get() * this._head._z.get());
+        double x = _head._x._coord, y = _head._y._coord, z = _head._z._coord;
+        if (Util._fastMath)
+            return Math.fma(x, x, Math.fma(y, y, z * z));
+        return x * x + y * y + z * z;
     }
 
     /**
@@ -161,14 +164,23 @@ public class Vector {
     }
 
     /**
-     * function that normalizes a vector
+     * function that normalizes a vector - the length is calculated once (in fast math mode the
+     * components are multiplied by its reciprocal)
      *
      * @return the normalized vector
      */
     public Vector normalize() {
-        this._head = new Point3D(this._head._x.get() / length(),
-                this._head._y.get() / length(),
-                this._head._z.get() / length())
+        double length = length();
+        if (Util._fastMath) {
+            double inverse = 1 / length;
+            this._head = new Point3D(this._head._x._coord * inverse,
+                    this._head._y._coord * inverse,
+                    this._head._z._coord * inverse);
+            return this;
+        }
+        this._head = new Point3D(this._head._x.get() / length,
+                this._head._y.get() / length,
+                this._head._z.get() / length)
         ;
         return this;
     }
@@ -5,11 +5,14 @@ import geometries.*;
 //import org.junit.jupiter.api.Disabled;
 import primitives.*;
 import scene.Scene;
+import scene.ShadowMap;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.LinkedList;
-import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 //import java.util.concurrent.Executors;
 //import java.util.concurrent.ThreadPoolExecutor;
 //import java.util.concurrent.TimeUnit;
@@ -26,20 +29,116 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Render {
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
-    private static final boolean SOFT_SHADOW_ACTIVE = false;
-    private static final int SOFT_SHADOW_SIZE_RAYS = 50;
-    private static final double SOFT_SHADOW_RADIUS = 0.05;
     private final ImageWriter _imageWriter;
     private final Scene _scene;
+    /**
+     * the scene geometries (in their acceleration structure) the rays are traced against - prepared when rendering starts
+     */
+    private Intersectable _geometries;
     private final int SPARE_THREADS = 2;
     private double _supersamplingDensity = 0d;
     private int _rayCounter = 1;
     private int _threads = 1;
     private boolean _print = false;
+    /**
+     * amount of shadow rays toward a light with an area (1 - hard shadows)
+     */
+    private int _softShadowRays = 1;
+    /**
+     * adaptive soft shadows - the full set of shadow rays is traced only in the penumbra
+     */
+    private boolean _adaptiveSoftShadows = false;
+    /**
+     * the points of the light area that are tested first by the adaptive soft shadows:
+     * the corners of the unit square (the rim of a disk light) and its center
+     */
+    private static final double[][] SOFT_SHADOW_PROBES = {{0, 0}, {1, 0}, {0, 1}, {1, 1}, {0.5, 0.5}};
+    /**
+     * amount of shadow rays traced since the creation of the render
+     */
+    private final LongAdder _shadowRayCount = new LongAdder();
+    /**
+     * cache of the last opaque geometry that blocked a shadow ray toward every light, per thread -
+     * it is tested first because neighbour points are usually blocked by the same geometry
+     */
+    private boolean _occluderCache = true;
+    private ThreadLocal<Map<LightSource, Geometry>> _occluders;
+    private final LongAdder _occluderLookups = new LongAdder();
+    private final LongAdder _occluderHits = new LongAdder();
+    /**
+     * amount of shadow rays that were blocked by an opaque geometry found by the scene query
+     */
+    private final LongAdder _blockedQueries = new LongAdder();
+    /**
+     * light culling - a light whose contribution to a point is surely negligible is skipped
+     * before its light vector, intensity and shadow rays are calculated
+     */
+    private boolean _lightCulling = true;
+    private final LongAdder _culledLights = new LongAdder();
+    /**
+     * amount of lights chosen by importance from the light hierarchy at every point (0 - all the lights)
+     */
+    private int _lightSamples = 0;
+    private LightTree _lightTree;
+    /**
+     * resolution of the shadow maps of the spot and directional lights (0 - shadow rays only)
+     */
+    private int _shadowMapResolution = 0;
+    private Map<LightSource, ShadowMap> _shadowMaps;
+    /**
+     * the view plane of the camera prepared for the render
+     */
+    private Camera.Frame _frame;
+    /**
+     * the random numbers of every thread - an own stream per thread, so the threads never contend
+     */
+    private final ThreadLocal<RandomSampler> _samplers =
+            ThreadLocal.withInitial(() -> new RandomSampler(ThreadLocalRandom.current().nextLong()));
+    /**
+     * true if the streams are seeded per pixel by {@link #_seed} (the image is reproducible)
+     */
+    private boolean _seeded = false;
+    private long _seed;
+    /**
+     * pattern of the supersampling rays in the pixel (null - the beam around the center of the pixel)
+     */
+    private SamplePattern _samplePattern = null;
+    /**
+     * variance driven supersampling: rays per batch (0 - off), the most rays of a pixel and the
+     * target half width of the 95% confidence interval of the luminance of a pixel
+     */
+    private int _varianceBatch = 0;
+    private int _varianceMaxRays;
+    private double _varianceNoise;
+    /**
+     * 1.96 - the half width of the 95% confidence interval in standard errors
+     */
+    private static final double CONFIDENCE_Z = 1.96;
+    private final LongAdder _pixelRays = new LongAdder();
+    private final LongAdder _pixels = new LongAdder();
     /**
      * threshold for color difference (the percentage is the value / 255)
      */
     private static final double COLOR_DIFFERENCE_THRESHOLD = 20;
+    /**
+     * the deepest division of the adaptive supersampling - 4<sup>3</sup> parts of a pixel
+     */
+    private static final int MAX_ADAPTIVE_LEVEL = 3;
+    /**
+     * the values of a sample of the adaptive supersampling: 3 components of the color and 1 if all
+     * the rays of the aperture were traced
+     */
+    private static final int SAMPLE_SIZE = 4;
+    /**
+     * the samples of the adaptive supersampling of every thread: the 4 corners of every level and
+     * the 5 new samples of every division
+     */
+    private final ThreadLocal<double[]> _adaptiveColors = ThreadLocal.withInitial(
+            () -> new double[((MAX_ADAPTIVE_LEVEL + 1) * 4 + MAX_ADAPTIVE_LEVEL * 5) * SAMPLE_SIZE]);
+    /**
+     * the samples of the corners of all the pixels by rows
+     */
+    private double[] _cornerColors;
     /**
      * the rendered scene background color
      */
@@ -131,6 +230,212 @@ public class Render {
         return this;
     }
 
+    /**
+     * Set the soft shadows - the amount of shadow rays toward every light with an area.
+     * The rays are stratified over the light area: the unit square is divided into a grid
+     * of about the given amount of cells and every ray goes through a random point of its own cell.
+     *
+     * @param rays amount of shadow rays, 1 for hard shadows
+     * @return the Render object itself
+     */
+    public Render setSoftShadows(int rays) {
+        if (rays < 1)
+            throw new IllegalArgumentException("Soft shadows need at least one ray");
+        _softShadowRays = rays;
+        return this;
+    }
+
+    /**
+     * Set adaptive soft shadows - a few shadow rays toward the rim and the center of the light area
+     * are traced first, and if they all agree the point is fully lit or fully shadowed.
+     * Only the points in the penumbra get all the soft shadow rays.
+     *
+     * @param adaptive true for adaptive soft shadows
+     * @return the Render object itself
+     */
+    public Render setAdaptiveSoftShadows(boolean adaptive) {
+        _adaptiveSoftShadows = adaptive;
+        return this;
+    }
+
+    /**
+     * get the amount of shadow rays traced since the creation of the render
+     *
+     * @return the amount of shadow rays
+     */
+    public long getShadowRayCount() {
+        return _shadowRayCount.sum();
+    }
+
+    /**
+     * Set the occluder cache - the last opaque geometry that blocked a shadow ray toward a light
+     * is tested first by the next shadow ray toward the light in the same thread
+     *
+     * @param active true to use the cache
+     * @return the Render object itself
+     */
+    public Render setOccluderCache(boolean active) {
+        _occluderCache = active;
+        return this;
+    }
+
+    /**
+     * get the hit rate of the occluder cache since the creation of the render - the part of the
+     * shadow rays with a cached occluder that were still blocked by it
+     *
+     * @return the hit rate (0 if the cache was not used)
+     */
+    public double getOccluderCacheHitRate() {
+        long lookups = _occluderLookups.sum();
+        return lookups == 0 ? 0 : (double) _occluderHits.sum() / lookups;
+    }
+
+    /**
+     * get the part of the blocked shadow rays that were answered by the occluder cache
+     * without a scene query, since the creation of the render
+     *
+     * @return the part of the blocked shadow rays (0 if no shadow ray was blocked)
+     */
+    public double getOccluderCacheCoverage() {
+        long hits = _occluderHits.sum();
+        long blocked = hits + _blockedQueries.sum();
+        return blocked == 0 ? 0 : (double) hits / blocked;
+    }
+
+    /**
+     * Set the light culling - the lights that are too far (by their attenuation) or whose cone
+     * points away are skipped before any calculation
+     *
+     * @param active true to cull the lights
+     * @return the Render object itself
+     */
+    public Render setLightCulling(boolean active) {
+        _lightCulling = active;
+        return this;
+    }
+
+    /**
+     * Set the many lights mode - at every point only the given amount of lights are chosen from the
+     * hierarchy of the lights by their importance (the lights without a position are all evaluated).
+     * The image converges to the image of all the lights with more samples.
+     *
+     * @param samples amount of lights per point, 0 to evaluate all the lights
+     * @return the Render object itself
+     */
+    public Render setLightSamples(int samples) {
+        if (samples < 0)
+            throw new IllegalArgumentException("The amount of light samples cannot be negative");
+        _lightSamples = samples;
+        return this;
+    }
+
+    /**
+     * Set the shadow maps - the hard shadows of the spot and directional lights are answered by a
+     * lookup in a map of the occluders that is ray cast from the light once per scene (and kept by
+     * the scene until its geometries are changed), instead of a shadow ray
+     *
+     * @param resolution amount of texels on a side of the maps, 0 for shadow rays
+     * @return the Render object itself
+     */
+    public Render setShadowMaps(int resolution) {
+        if (resolution < 0)
+            throw new IllegalArgumentException("The resolution of the shadow maps cannot be negative");
+        _shadowMapResolution = resolution;
+        return this;
+    }
+
+    /**
+     * Set the seed of the sampling - the random numbers of every pixel are drawn from its own stream
+     * that is seeded by the seed and the pixel, so the image is reproducible whatever the amount
+     * of threads and the order of the pixels
+     *
+     * @param seed the seed of the image
+     * @return the Render object itself
+     */
+    public Render setSeed(long seed) {
+        _seed = seed;
+        _seeded = true;
+        return this;
+    }
+
+    /**
+     * Set the pattern of the supersampling - the rays of every pixel (their amount is set by
+     * {@link #setRayCounter(int)}) go through the sample points of the pattern in the area of the pixel
+     * instead of the beam. The low discrepancy patterns reach the same anti-aliasing with far fewer rays
+     *
+     * @param pattern the pattern of the sample points, null for the beam
+     * @return the Render object itself
+     */
+    public Render setSamplePattern(SamplePattern pattern) {
+        _samplePattern = pattern;
+        return this;
+    }
+
+    /**
+     * Set the variance driven supersampling - the rays of every pixel are traced in batches (through
+     * the points of the sample pattern, Sobol by default) with the running mean and variance of
+     * their luminance. The pixel is done when the 95% confidence interval of its mean luminance is
+     * narrower than the noise level, or at the max amount of rays - a flat pixel costs one batch and
+     * the edges get the budget
+     *
+     * @param batch   rays per batch (at least 2 for a variance), 0 to turn off
+     * @param maxRays the most rays of a pixel
+     * @param noise   the target half width of the confidence interval in color units (0-255)
+     * @return the Render object itself
+     */
+    public Render setVarianceSampling(int batch, int maxRays, double noise) {
+        if (batch != 0 && batch < 2)
+            throw new IllegalArgumentException("A batch needs at least 2 rays for a variance");
+        if (batch != 0 && maxRays < batch)
+            throw new IllegalArgumentException("The max amount of rays cannot be less than a batch");
+        if (batch != 0 && noise <= 0)
+            throw new IllegalArgumentException("The noise level must be positive");
+        _varianceBatch = batch;
+        _varianceMaxRays = maxRays;
+        _varianceNoise = noise;
+        return this;
+    }
+
+    /**
+     * get the average amount of rays of a pixel by the variance driven or the adaptive supersampling
+     * since the creation of the render (the rays of the corners shared by the adaptive pixels included)
+     *
+     * @return the average rays per pixel
+     */
+    public double getAverageRaysPerPixel() {
+        long pixels = _pixels.sum();
+        return pixels == 0 ? 0 : (double) _pixelRays.sum() / pixels;
+    }
+
+    /**
+     * restart the sampler of the current thread with the seed of a pixel if the render is seeded
+     *
+     * @param pixel the rendered pixel
+     */
+    private void seedSampler(Pixel pixel) {
+        seedSampler(pixel.col, pixel.row);
+    }
+
+    /**
+     * restart the sampler of the current thread with the seed of a point of the image if the render is seeded
+     *
+     * @param x the column of the point
+     * @param y the row of the point
+     */
+    private void seedSampler(int x, int y) {
+        if (_seeded)
+            _samplers.get().reset(RandomSampler.pixelSeed(_seed, x, y));
+    }
+
+    /**
+     * get the amount of lights that were skipped by the light culling since the creation of the render
+     *
+     * @return the amount of culled lights
+     */
+    public long getCulledLightCount() {
+        return _culledLights.sum();
+    }
+
     /**
      * get the ray counter
      * @return int of the ray counter
@@ -175,10 +480,32 @@ public class Render {
         _imageWriter.writeToImage();
     }
 
+    /**
+     * prepare the scene for rendering: the acceleration structure of the geometries
+     * and empty occluder caches (the scene may have been changed since the last rendering)
+     */
+    private void prepareRendering() {
+        _frame = _scene.getCamera().getFrame(_imageWriter.getNx(), _imageWriter.getNy(), _scene.getDistance(),
+                _imageWriter.getWidth(), _imageWriter.getHeight());
+        _geometries = _scene.getAccelerator();
+        _occluders = ThreadLocal.withInitial(IdentityHashMap::new);
+        _lightTree = _lightSamples > 0 ? _scene.getLightTree() : null;
+        _shadowMaps = null;
+        if (_shadowMapResolution > 0 && _scene.getLightSources() != null) {
+            _shadowMaps = new IdentityHashMap<>();
+            for (LightSource lightSource : _scene.getLightSources()) {
+                ShadowMap map = _scene.getShadowMap(lightSource, _shadowMapResolution);
+                if (map != null)
+                    _shadowMaps.put(lightSource, map);
+            }
+        }
+    }
+
     /**
      * render the image with multi-threading
      */
     public void renderImage2() {
+        prepareRendering();
         Camera camera = _scene.getCamera();
         //Intersectable geometries = _scene.getGeometries();
         Color background = _scene.getBackground();
@@ -190,22 +517,37 @@ public class Render {
         double width = _imageWriter.getWidth();
         double height = _imageWriter.getHeight();
 
-        final Pixel thePixel = new Pixel(Ny, Nx);
-
         Thread[] threads = new Thread[_threads];
-        for (int i = _threads - 1; i >= 0; --i) {
-            threads[i] = new Thread(() -> {
-                Pixel pixel = new Pixel();
-                Color resultingColor;
-                while (thePixel.nextPixel(pixel)) {
-                    if (_supersamplingDensity == 0d) {//         without supersampling
-                        resultingColor = getPixelRayColor(camera, background, distance, Nx, Ny, width, height, pixel);
-                    } else {
-                        resultingColor = getPixelRaysBeamColor(camera, distance, Nx, Ny, width, height, pixel);
+        if (_supersamplingDensity == 0d && _samplePattern == null && _varianceBatch == 0) {//         without supersampling
+            // the threads take whole rows - the directions of a row are built in a buffer of the thread
+            AtomicInteger nextRow = new AtomicInteger(), doneRows = new AtomicInteger();
+            for (int i = _threads - 1; i >= 0; --i) {
+                threads[i] = new Thread(() -> {
+                    double[] directions = new double[Nx * 3];
+                    for (int row = nextRow.getAndIncrement(); row < Ny; row = nextRow.getAndIncrement()) {
+                        _frame.rowDirections(row, directions);
+                        for (int column = 0; column < Nx; ++column) {
+                            seedSampler(column, row);
+                            Color resultingColor = calcRayColor(_frame.constructRay(directions, column * 3))
+                                    .add(_scene.getAmbientLight().getIntensity());
+                            _imageWriter.writePixel(column, row, resultingColor.getColor());
+                        }
+                        if (_print) System.out.printf("\r %02d%%", 100 * doneRows.incrementAndGet() / Ny);
                     }
-                    _imageWriter.writePixel(pixel.col, pixel.row, resultingColor.getColor());
-                }
-            });
+                });
+            }
+        } else {
+            final Pixel thePixel = new Pixel(Ny, Nx);
+            for (int i = _threads - 1; i >= 0; --i) {
+                threads[i] = new Thread(() -> {
+                    Pixel pixel = new Pixel();
+                    while (thePixel.nextPixel(pixel)) {
+                        seedSampler(pixel);
+                        Color resultingColor = getPixelRaysBeamColor(camera, distance, Nx, Ny, width, height, pixel);
+                        _imageWriter.writePixel(pixel.col, pixel.row, resultingColor.getColor());
+                    }
+                });
+            }
         }
         // Start threads
         for (Thread thread : threads) thread.start();
@@ -222,6 +564,9 @@ public class Render {
      * render the image with multi-threading
      */
     public void renderImage() {
+        prepareRendering();
+        if (_adaptiveSampling)
+            traceCornerColors();
         Camera camera = _scene.getCamera();
         //Intersectable geometries = _scene.getGeometries();
         Color background = _scene.getBackground();
@@ -241,6 +586,7 @@ public class Render {
                 Pixel pixel = new Pixel();
                 Color resultingColor;
                 while (thePixel.nextPixel(pixel)) {
+                    seedSampler(pixel);
 //                    if (_supersamplingDensity == 0d) {//         without supersampling
 //                        resultingColor = getPixelRayColor(camera, background, distance, Nx, Ny, width, height, pixel);
 //                    }
@@ -282,33 +628,64 @@ public class Render {
      * @author Dr Eliezer
      */
     private Color getPixelRaysBeamColor(Camera camera, double distance, int nx, int ny, double width, double height, Pixel pixel) {
-        List<Ray> rays = camera.constructRayBeamThroughPixel(nx, ny, pixel.col, pixel.row, distance, width, height, _supersamplingDensity, _rayCounter);
+        if (_varianceBatch > 0)
+            return getPixelVarianceColor(camera, distance, nx, ny, width, height, pixel);
+        List<Ray> rays = _samplePattern == null
+                ? camera.constructRayBeamThroughPixel(nx, ny, pixel.col, pixel.row, distance, width, height,
+                _supersamplingDensity, _rayCounter, _samplers.get())
+                : constructPixelRays(pixel, _samplePattern.getPoints(_rayCounter, _samplers.get()), 0, _rayCounter);
         Color resultColor = calcColor(rays);
         resultColor = resultColor.add(_scene.getAmbientLight().getIntensity());
         return resultColor;
     }
 
     /**
-     * get the pixel ray color
-     * @param camera
-     * @param background
-     * @param distance
-     * @param nx
-     * @param ny
-     * @param width
-     * @param height
-     * @param pixel
-     * @return the resulting Color
+     * get the color of a pixel by batches of rays until the confidence interval of its mean
+     * luminance is below the noise level (Welford's running mean and variance)
+     *
+     * @return the color
      */
-    private Color getPixelRayColor(Camera camera, Color background, double distance, int nx, int ny, double width, double height, Pixel pixel) {
-        Ray ray = camera.constructRayThroughPixel(nx, ny, pixel.col, pixel.row, distance, width, height);
-        GeoPoint closestPoint = findClosestIntersection(ray);
-        Color resultingColor = background;
-        if (closestPoint != null) {
-            resultingColor = calcColor(closestPoint, ray);
-        }
-        resultingColor = resultingColor.add(_scene.getAmbientLight().getIntensity());
-        return resultingColor;
+    private Color getPixelVarianceColor(Camera camera, double distance, int nx, int ny, double width, double height,
+                                        Pixel pixel) {
+        SamplePattern pattern = _samplePattern == null ? SamplePattern.SOBOL : _samplePattern;
+        // the points of a progressive pattern are taken in batches, the others are drawn per batch
+        double[] points = pattern.isProgressive() ? pattern.getPoints(_varianceMaxRays, _samplers.get()) : null;
+        Color sum = Color.BLACK;
+        double mean = 0, squares = 0;
+        int n = 0;
+        do {
+            int batch = Math.min(_varianceBatch, _varianceMaxRays - n);
+            List<Ray> rays = points != null
+                    ? constructPixelRays(pixel, points, n, batch)
+                    : constructPixelRays(pixel, pattern.getPoints(batch, _samplers.get()), 0, batch);
+            for (Ray ray : rays) {
+                Color color = calcRayColor(ray);
+                sum = sum.add(color);
+                double luminance = color.getLuminance();
+                double delta = luminance - mean;
+                mean += delta / ++n;
+                squares += delta * (luminance - mean);
+            }
+        } while (n < _varianceMaxRays && CONFIDENCE_Z * Math.sqrt(squares / (n - 1) / n) > _varianceNoise);
+        _pixelRays.add(n);
+        _pixels.increment();
+        return sum.reduce(n).add(_scene.getAmbientLight().getIntensity());
+    }
+
+    /**
+     * construct the rays through sample points of a pixel by the frame of the camera
+     *
+     * @param pixel  the pixel
+     * @param points the sample points in the unit square - x and y of every point
+     * @param from   the first point of the rays
+     * @param amount amount of rays
+     * @return the rays
+     */
+    private List<Ray> constructPixelRays(Pixel pixel, double[] points, int from, int amount) {
+        List<Ray> rays = new ArrayList<>(amount);
+        for (int k = from; k < from + amount; ++k)
+            rays.add(_frame.constructRay(pixel.col + points[2 * k], pixel.row + points[2 * k + 1]));
+        return rays;
     }
 
 
@@ -355,22 +732,8 @@ public class Render {
             return null;
         }
 
-        GeoPoint closestPoint = null;
-        double closestDistance = Double.MAX_VALUE;
-        Point3D ray_p0 = ray.get_origin();
-
-        List<GeoPoint> intersections = _scene.getGeometries().findIntersections(ray);
-        if (intersections == null)
-            return null;
-
-        for (GeoPoint geoPoint : intersections) {
-            double distance = ray_p0.distance(geoPoint.getPoint());
-            if (distance < closestDistance) {
-                closestDistance = distance;
-                closestPoint = geoPoint;
-            }
-        }
-        return closestPoint;
+        Hit hit = new Hit();
+        return _geometries.intersect(ray, hit) ? hit.toGeoPoint(ray) : null;
     }
 
     /**
@@ -380,15 +743,9 @@ public class Render {
      * @return average color
      */
     private Color calcColor(List<Ray> inRays) {
-        Color bkg = _scene.getBackground();
         Color color = Color.BLACK;
         for (Ray ray : inRays) {
-            GeoPoint gp = findClosestIntersection(ray);
-            if (gp == null) {
-                color = color.add(bkg);
-            } else {
-                color = color.add(calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, 1d));
-            }
+            color = color.add(calcRayColor(ray));
         }
 //        color = color.add(_scene.getAmbientLight().getIntensity());
         int size = inRays.size();
@@ -428,7 +785,7 @@ public class Render {
         double ks = material.getkS();
 
         Vector v = pointGeo.subtract(_scene.getCamera().getP0()).normalize();
-        Vector n = geometryGeo.getNormal(pointGeo);
+        Vector n = geoPoint.getNormal();
 
         color = getColorLightSources(geoPoint, k, color, v, n, nShininess, kd, ks);
 
@@ -479,26 +836,73 @@ public class Render {
     private Color getColorLightSources(GeoPoint geoPoint, double k, Color color, Vector v, Vector n, int nShininess, double kd, double ks) {
         Point3D pointGeo = geoPoint.getPoint();
         if (_scene.getLightSources() != null) {
-            for (LightSource lightSource : _scene.getLightSources()) {
-                Vector l = lightSource.getL(pointGeo);
-                double nl = n.dotProduct(l);
-                double nv = n.dotProduct(v);
-                double ktr;
-                if (nl * nv > 0) {
-//              if( nl != 0 && nv != 0 && sign(nv)==sign(nl) ) {
-//                if (unshaded(lightSource, l, n, geoPoint)) {
-//                    ktr = 1d;
-//                } else {
-//                    ktr = 0d;
-//                }
-                    ktr = transparency(lightSource, l, n, geoPoint);
-                    if (ktr * k > MIN_CALC_COLOR_K && !isZero(nl)) {
-                        Color lightIntensity = lightSource.getIntensity(pointGeo).scale(ktr);
-                        color = color.add(
-                                calcDiffusive(kd, nl, lightIntensity),
-                                calcSpecular(ks, l, n, nl, v, nShininess, lightIntensity));
-                    }
-                }
+            // the contribution of a light to the image is at most its intensity * (kd + ks) * k
+            double threshold = MIN_CALC_COLOR_K / ((kd + ks) * k);
+            if (_lightTree != null)
+                return getColorSampledLightSources(geoPoint, k, color, v, n, nShininess, kd, ks, threshold);
+            for (LightSource lightSource : _scene.getLightSources())
+                color = getColorLightSource(lightSource, geoPoint, k, color, v, n, nShininess, kd, ks, threshold);
+        }
+        return color;
+    }
+
+    /**
+     * add the light of a bounded amount of lights that are chosen by their importance - every
+     * chosen light is weighted by the reciprocal of its probability, so the average of many samples
+     * is the light of all the lights. The lights without a position are all added.
+     *
+     * @return the color
+     */
+    private Color getColorSampledLightSources(GeoPoint geoPoint, double k, Color color, Vector v, Vector n,
+                                              int nShininess, double kd, double ks, double threshold) {
+        for (LightSource lightSource : _lightTree.getUnpositionedLights())
+            color = getColorLightSource(lightSource, geoPoint, k, color, v, n, nShininess, kd, ks, threshold);
+
+        Point3D pointGeo = geoPoint.getPoint();
+        Sampler random = _samplers.get();
+        for (int i = 0; i < _lightSamples; ++i) {
+            LightTree.Sample sample = _lightTree.sample(pointGeo, threshold, random.nextDouble());
+            if (sample == null)
+                continue; // the sample chose a cluster that does not influence the point - it counts as no light
+            double weight = 1 / (sample.getPdf() * _lightSamples);
+            Color sampled = getColorLightSource(sample.getLight(), geoPoint, k * weight, Color.BLACK, v, n,
+                    nShininess, kd, ks, threshold);
+            color = color.add(sampled.scale(weight));
+        }
+        return color;
+    }
+
+    /**
+     * add the light of a light source - a light whose contribution is below the threshold is skipped
+     * before any calculation
+     *
+     * @param threshold the least intensity of the light that is taken into account
+     * @return the color
+     */
+    private Color getColorLightSource(LightSource lightSource, GeoPoint geoPoint, double k, Color color, Vector v,
+                                      Vector n, int nShininess, double kd, double ks, double threshold) {
+        Point3D pointGeo = geoPoint.getPoint();
+        if (_lightCulling && !lightSource.influences(pointGeo, threshold)) {
+            _culledLights.increment();
+            return color;
+        }
+        Vector l = lightSource.getL(pointGeo);
+        double nl = n.dotProduct(l);
+        double nv = n.dotProduct(v);
+        double ktr;
+        if (nl * nv > 0) {
+//      if( nl != 0 && nv != 0 && sign(nv)==sign(nl) ) {
+//        if (unshaded(lightSource, l, n, geoPoint)) {
+//            ktr = 1d;
+//        } else {
+//            ktr = 0d;
+//        }
+            ktr = transparency(lightSource, l, n, geoPoint);
+            if (ktr * k > MIN_CALC_COLOR_K && !isZero(nl)) {
+                Color lightIntensity = lightSource.getIntensity(pointGeo).scale(ktr);
+                color = color.add(
+                        calcDiffusive(kd, nl, lightIntensity),
+                        calcSpecular(ks, l, n, nl, v, nShininess, lightIntensity));
             }
         }
         return color;
@@ -635,106 +1039,114 @@ public class Render {
 //    }
 
     /**
-     * calculate the average transparency of the list of ray
-     * we received from the transparencyGetListOfRay method
+     * calculate the transparency between a point and a light - the average transparency of
+     * the shadow rays toward stratified points of the light area, or of the single shadow ray
+     * toward a light without an area
      *
-     * @param l
-     * @param n
-     * @param gp
-     * @param lightSource
+     * @param lightSource the light
+     * @param l           the direction from the light to the point
+     * @param n           the normal at the point
+     * @param gp          the point
      * @return a double of the transparency
      */
     private double transparency(LightSource lightSource, Vector l, Vector n, GeoPoint gp) {
-        double ktr = 0.0;
-        List<Ray> rayList = transparencyGetListOfRay(l, n, gp, lightSource);
-        for (Ray r : rayList) {
-            ktr += transparencyRay(r, gp, lightSource);
+        Point3D point = gp.getPoint();// get one for fast performance
+        if (_softShadowRays == 1 || !lightSource.hasArea()) {
+            ShadowMap map = _shadowMaps == null ? null : _shadowMaps.get(lightSource);
+            if (map != null) {
+                double ktr = map.transparency(point, n);
+                if (ktr >= 0)
+                    return ktr;
+            }
+            return transparencyRay(lightSource, new Ray(point, l.scale(-1), n), lightSource.getDistance(point));
+        }
+
+        double nl = n.dotProduct(l);
+        if (_adaptiveSoftShadows) {
+            double first = transparencySample(lightSource, point, n, nl,
+                    SOFT_SHADOW_PROBES[0][0], SOFT_SHADOW_PROBES[0][1]);
+            boolean agree = true;
+            for (int i = 1; i < SOFT_SHADOW_PROBES.length && agree; ++i)
+                agree = Math.abs(transparencySample(lightSource, point, n, nl,
+                        SOFT_SHADOW_PROBES[i][0], SOFT_SHADOW_PROBES[i][1]) - first) < MIN_CALC_COLOR_K;
+            if (agree)
+                return first;
         }
-        return ktr / rayList.size();
+
+        int strata = Math.max(1, (int) Math.round(Math.sqrt(_softShadowRays)));
+        Sampler random = _samplers.get();
+        double ktr = 0.0;
+        for (int i = 0; i < strata; ++i)
+            for (int j = 0; j < strata; ++j)
+                ktr += transparencySample(lightSource, point, n, nl,
+                        (i + random.nextDouble()) / strata, (j + random.nextDouble()) / strata);
+        return ktr / (strata * strata);
     }
 
     /**
-     * create a list of ray in order to calculate the transparency
-     * @param l
-     * @param n
-     * @param gp
-     * @param lightSource
-     * @return the List of Rays
+     * calculate the transparency between a point and a point of a light area
+     *
+     * @param lightSource the light
+     * @param point       the lighted point
+     * @param n           the normal at the point
+     * @param nl          dot-product n*l of the direction from the light center
+     * @param u           first coordinate of the light point in the unit square
+     * @param v           second coordinate of the light point in the unit square
+     * @return the transparency, 0 if the light point is behind the surface
      */
-    private List<Ray> transparencyGetListOfRay(Vector l, Vector n, GeoPoint gp, LightSource lightSource) {
-        Vector lightDirection = l.scale(-1); // from point to light source
-        Point3D point = gp.getPoint();// get one for fast performance
-        Ray lightRay = new Ray(point, lightDirection, n);
-        List<Ray> list = new LinkedList(Collections.singletonList(lightRay));
-
-        if (SOFT_SHADOW_ACTIVE && SOFT_SHADOW_SIZE_RAYS > 0 && !isZero(SOFT_SHADOW_RADIUS)) {
-            int counter = SOFT_SHADOW_SIZE_RAYS;
-            Vector v = lightRay.get_vector();
-            Point3D p0 = lightRay.get_origin();
-            double x0 = p0.get_x().get();
-            double y0 = p0.get_y().get();
-            double z0 = p0.get_z().get();
-            // now, calculate 2 orthogonal vectors to create a circle
-            // as it was explained on the chiour
-            Vector vX;
-            if (x0 <= y0 && x0 <= z0) {
-                vX = (new Vector(0.0D, -z0, y0)).normalize();
-            } else if (y0 <= x0 && y0 <= z0) {
-                vX = (new Vector(z0, 0.0D, -x0)).normalize();
-            } else if (y0 == 0.0D && x0 == 0.0D) {
-                vX = (new Vector(1.0D, 1.0D, 0.0D)).normalize();
-            } else {
-                vX = (new Vector(y0, -x0, 0.0D)).normalize();
-            }
-            Vector vY = v.crossProduct(vX).normalize();
-            //pc in on the center of our virtual circle
-            Point3D pc = p0.add(v);
-            while (counter > 0) {
-                double xFactor = ThreadLocalRandom.current().nextDouble(-1.0D, 1.0D);//cos
-                double yFactor = Math.sqrt(1.0D - xFactor * xFactor);//sin
-                double scale;
-                for (scale = 0.0D; isZero(scale); scale = ThreadLocalRandom.current().nextDouble(-SOFT_SHADOW_RADIUS, SOFT_SHADOW_RADIUS))
-                    ;
-                xFactor = scale * xFactor;
-                yFactor = scale * yFactor;
-                Point3D p = pc;
-                if (!isZero(xFactor)) {
-                    p = p.add(vX.scale(xFactor));
-                }
-                if (!isZero(yFactor)) {
-                    p = p.add(vY.scale(yFactor));
-                }
-                Vector v1 = (p.subtract(p0)).normalized();
-                if (v.dotProduct(n) * v1.dotProduct(n) > 0.0D) {
-                    --counter;
-                    list.add(new Ray(p0, v1));
+    private double transparencySample(LightSource lightSource, Point3D point, Vector n, double nl, double u, double v) {
+        Point3D lightPoint = lightSource.getSamplePoint(point, u, v);
+        if (lightPoint.equals(point)) return 0.0;
+        Vector toLight = lightPoint.subtract(point);
+        // a point of the light behind the surface does not light it
+        if (alignZero(toLight.dotProduct(n) * nl) >= 0) return 0.0;
+        return transparencyRay(lightSource, new Ray(point, toLight, n), toLight.length());
+    }
+
+    /**
+     * calculate the transparency of a shadow ray - the product of the transparency of all
+     * the geometries between the point and the light
+     *
+     * @param lightSource   the light
+     * @param ray           the shadow ray
+     * @param lightDistance the distance between the point and the light
+     * @return the transparency
+     */
+    private double transparencyRay(LightSource lightSource, Ray ray, double lightDistance) {
+        _shadowRayCount.increment();
+        Map<LightSource, Geometry> occluders = _occluderCache ? _occluders.get() : null;
+        if (occluders != null) {
+            Geometry occluder = occluders.get(lightSource);
+            if (occluder != null) {
+                _occluderLookups.increment();
+                if (blocks(occluder, ray, lightDistance)) {
+                    _occluderHits.increment();
+                    return 0.0;
                 }
             }
         }
-        return list;
+
+        // the hits are streamed into the transmittance up to the light, until it is blocked
+        Transmittance transmittance = new Transmittance(MIN_CALC_COLOR_K);
+        if (_geometries.accumulateTransmittance(ray, lightDistance, transmittance)) {
+            _blockedQueries.increment();
+            if (occluders != null && transmittance.getOccluder() != null)
+                occluders.put(lightSource, transmittance.getOccluder());
+            return 0.0;
+        }
+        return transmittance.getValue();
     }
 
     /**
-     * calculate the transparency ray
-     * @param ray
-     * @param gp
-     * @param lightSource
-     * @return
+     * check if an opaque geometry blocks a shadow ray
+     *
+     * @param occluder      the geometry
+     * @param ray           the shadow ray
+     * @param lightDistance the distance between the point and the light
+     * @return true if the geometry is between the point and the light
      */
-    private double transparencyRay(Ray ray, GeoPoint gp, LightSource lightSource) {
-        double ktr = 1.0;
-        Point3D point = gp.getPoint();// get one for fast performance
-        List<GeoPoint> intersections = _scene.getGeometries().findIntersections(ray);
-        if (intersections == null) return ktr;
-        double lightDistance = lightSource.getDistance(point);
-
-        for (GeoPoint geoP : intersections) {
-            if (alignZero(geoP.getPoint().distance(point) - lightDistance) <= 0) {
-                ktr *= geoP.getGeometry().getMaterial().getKt();
-                if (ktr < MIN_CALC_COLOR_K) return 0.0;
-            }
-        }
-        return ktr;
+    private boolean blocks(Geometry occluder, Ray ray, double lightDistance) {
+        return occluder.intersect(ray, new Hit(lightDistance));
     }
 
 //    private boolean sign(double val) {
@@ -875,6 +1287,8 @@ public class Render {
             ++row;
             if (row < _maxRows) {
                 col = 0;
+                target.row = this.row;
+                target.col = this.col;
                 if (_print && _counter == _nextCounter) {
                     ++_percents;
                     _nextCounter = _pixels * (_percents + 1) / 100;
@@ -906,37 +1320,6 @@ public class Render {
 
 /******************************************************************************************************************/
 
-    /**
-     * checks if corners colors of a pixel are close enough to be considered as the same color
-     *
-     * @param pixel
-     * @return boolean same or not
-     */
-    private boolean isSameColor(elements.Pixel pixel) {
-        // check if any corner is different dramatically from it's neighbors
-        return (difference(pixel.aCornerRays.color, pixel.bCornerRays.color) < COLOR_DIFFERENCE_THRESHOLD
-                && difference(pixel.aCornerRays.color, pixel.dCornerRays.color) < COLOR_DIFFERENCE_THRESHOLD
-                && difference(pixel.cCornerRays.color, pixel.bCornerRays.color) < COLOR_DIFFERENCE_THRESHOLD
-                && difference(pixel.cCornerRays.color, pixel.dCornerRays.color) < COLOR_DIFFERENCE_THRESHOLD);
-    }
-
-    /**
-     * calculate and save the color of a rayBeam in a pixel if it is not saved already
-     *
-     * @param pixel
-     */
-    private void setPixelCornersColors(elements.Pixel pixel) {
-        //a corner that has not been checked for its color is null
-        if (pixel.aCornerRays.color == null)
-            pixel.aCornerRays.color = (calcRayColor(pixel.aCornerRays._ray));
-        if (pixel.bCornerRays.color == null)
-            pixel.bCornerRays.color = (calcRayColor(pixel.bCornerRays._ray));
-        if (pixel.cCornerRays.color == null)
-            pixel.cCornerRays.color = (calcRayColor(pixel.cCornerRays._ray));
-        if (pixel.dCornerRays.color == null)
-            pixel.dCornerRays.color = (calcRayColor(pixel.dCornerRays._ray));
-
-    }
 //    /**
 //     * the method writes an image of the scene, for every pixel we calculate the color and write it in a separate thread
 //     * @throws InterruptedException
@@ -965,76 +1348,243 @@ public class Render {
 //    }
 
     /**
-     * calculate the color of [i,j] pixel in the picture - superSampling is adaptive
+     * trace the rays through the corners of all the pixels for the adaptive supersampling - every
+     * corner is shared by 4 pixels, so a flat image costs about a ray per pixel
+     */
+    private void traceCornerColors() {
+        int columns = nX + 1, rows = nY + 1;
+        _cornerColors = new double[columns * rows * SAMPLE_SIZE];
+        _pixelRays.add((long) columns * rows);
+        AtomicInteger nextRow = new AtomicInteger();
+        Thread[] threads = new Thread[_threads];
+        for (int i = _threads - 1; i >= 0; --i) {
+            threads[i] = new Thread(() -> {
+                double[] directions = new double[columns * 3];
+                for (int row = nextRow.getAndIncrement(); row < rows; row = nextRow.getAndIncrement()) {
+                    _frame.cornerDirections(row, directions);
+                    for (int column = 0; column < columns; ++column) {
+                        // the corners are seeded apart from the pixels
+                        seedSampler(-1 - column, -1 - row);
+                        sampleColor(_cornerColors, (row * columns + column) * SAMPLE_SIZE,
+                                _frame.constructRay(directions, column * 3));
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads)
+            try {
+                thread.join();
+            } catch (Exception e) {
+            }
+    }
+
+    /**
+     * calculate the color of [i,j] pixel in the picture - superSampling is adaptive.
+     * The pixel is divided recursively into quarters while the colors of the corners of a part are
+     * different. The colors of the corners of the pixels are traced before, the colors of the parts
+     * are kept in a primitive array of the thread - the corners of every level and the 5 new samples of
+     * every division, that are shared by the 4 quarters - so every point is traced once
      *
-     * @param i
-     * @param j
+     * @param i the column of the pixel
+     * @param j the row of the pixel
      * @return the color to paint the pixel
      */
     private Color pixelColorByAdaptiveSampling(int i, int j) {
-        Color resultColor = Color.BLACK;
-        //create the pixel that is calculated by the camera
-        elements.Pixel pixel = _scene.getCamera().constructPixelCorners(nX, nY, j, i, screenDistance,
-                screenWidth, screenHeight);
-        //save the colors of the pixel corners
-        setPixelCornersColors(pixel);
-        //in case the colors of the corners are close enough - the result is the average of the corners colors
-        if (isSameColor(pixel)) {
-            return resultColor.add(pixel.aCornerRays.color, pixel.bCornerRays.color, pixel.cCornerRays.color,
-                    pixel.dCornerRays.color).reduce(4);
+        double[] colors = _adaptiveColors.get();
+        int columns = nX + 1, corner = (j * columns + i) * SAMPLE_SIZE, row = columns * SAMPLE_SIZE;
+        System.arraycopy(_cornerColors, corner, colors, 0, SAMPLE_SIZE);
+        System.arraycopy(_cornerColors, corner + SAMPLE_SIZE, colors, SAMPLE_SIZE, SAMPLE_SIZE);
+        System.arraycopy(_cornerColors, corner + row + SAMPLE_SIZE, colors, 2 * SAMPLE_SIZE, SAMPLE_SIZE);
+        System.arraycopy(_cornerColors, corner + row, colors, 3 * SAMPLE_SIZE, SAMPLE_SIZE);
+        double[] sum = new double[3];
+        _pixelRays.add(addAdaptiveColor(colors, 0, i, j, 1, 1, 1, sum));
+        _pixels.increment();
+        return new Color(sum[0], sum[1], sum[2]).add(_scene.getAmbientLight().getIntensity());
+    }
+
+    /**
+     * add the color of a part of a pixel - the average of its corners if they are close enough
+     * or the colors of its quarters
+     *
+     * @param colors the colors of the thread - the corners of the part are at the level
+     * @param level  the level of the division of the pixel
+     * @param x      the left of the part (in pixels)
+     * @param y      the top of the part (in pixels)
+     * @param width  the width of the part (in pixels)
+     * @param height the height of the part (in pixels)
+     * @param weight the part of the pixel
+     * @param sum    the sum of the color of the pixel
+     * @return the amount of rays traced for the part
+     */
+    private int addAdaptiveColor(double[] colors, int level, double x, double y, double width, double height,
+                                  double weight, double[] sum) {
+        int a = level * 4 * SAMPLE_SIZE, b = a + SAMPLE_SIZE, c = b + SAMPLE_SIZE, d = c + SAMPLE_SIZE;
+        if (level == MAX_ADAPTIVE_LEVEL || isSameColor(colors, a, b, c, d)) {
+            for (int k = 0; k < 3; ++k)
+                sum[k] += (colors[a + k] + colors[b + k] + colors[c + k] + colors[d + k]) * weight / 4;
+            return 0;
         }
 
-        //in case the colors are different - divide the pixel and check the sub pixels
-        List<elements.Pixel> pixels = new ArrayList<>();
-        pixels.add(pixel);
-        //every time sub pixels are added - the size of the list grows
-        for (int k = 0; k < pixels.size(); ++k) {
-            elements.Pixel subPixel = pixels.get(k);
-            setPixelCornersColors(subPixel);
-            //in case the colors of the sub pixel are different and it is not the last level of division - divide it
-            if (!isSameColor(subPixel) && subPixel.getRank() < 64)
-                pixels.addAll(_scene.getCamera().dividePixel(subPixel));
-                //if colors are similar or the pixel is maximum divided - add the color part of the sub pixel
-            else {
-                Color tmpColor = subPixel.aCornerRays.color.add(subPixel.bCornerRays.color, subPixel.cCornerRays.color,
-                        subPixel.dCornerRays.color);
-                tmpColor = tmpColor.reduce(4);
-                //the part contributed to the result is 1 / rank
-                resultColor = resultColor.add(tmpColor.reduce(subPixel.getRank()));
+        // the middles of the edges and the center: top, right, bottom, left, center
+        int top = ((MAX_ADAPTIVE_LEVEL + 1) * 4 + level * 5) * SAMPLE_SIZE;
+        int right = top + SAMPLE_SIZE, bottom = right + SAMPLE_SIZE, left = bottom + SAMPLE_SIZE, center = left + SAMPLE_SIZE;
+        double halfWidth = width / 2, halfHeight = height / 2;
+        sampleColor(colors, top, x + halfWidth, y);
+        sampleColor(colors, right, x + width, y + halfHeight);
+        sampleColor(colors, bottom, x + halfWidth, y + height);
+        sampleColor(colors, left, x, y + halfHeight);
+        sampleColor(colors, center, x + halfWidth, y + halfHeight);
+
+        int next = (level + 1) * 4 * SAMPLE_SIZE;
+        weight /= 4;
+        int rays = 5;
+        setCorners(colors, next, a, top, center, left);
+        rays += addAdaptiveColor(colors, level + 1, x, y, halfWidth, halfHeight, weight, sum);
+        setCorners(colors, next, top, b, right, center);
+        rays += addAdaptiveColor(colors, level + 1, x + halfWidth, y, halfWidth, halfHeight, weight, sum);
+        setCorners(colors, next, center, right, c, bottom);
+        rays += addAdaptiveColor(colors, level + 1, x + halfWidth, y + halfHeight, halfWidth, halfHeight, weight, sum);
+        setCorners(colors, next, left, center, bottom, d);
+        rays += addAdaptiveColor(colors, level + 1, x, y + halfHeight, halfWidth, halfHeight, weight, sum);
+        return rays;
+    }
+
+    /**
+     * copy the colors of 4 corners (upper left, upper right, lower right, lower left) to a level
+     */
+    private static void setCorners(double[] colors, int to, int a, int b, int c, int d) {
+        System.arraycopy(colors, a, colors, to, SAMPLE_SIZE);
+        System.arraycopy(colors, b, colors, to + SAMPLE_SIZE, SAMPLE_SIZE);
+        System.arraycopy(colors, c, colors, to + 2 * SAMPLE_SIZE, SAMPLE_SIZE);
+        System.arraycopy(colors, d, colors, to + 3 * SAMPLE_SIZE, SAMPLE_SIZE);
+    }
+
+    /**
+     * trace the ray through a point of the view plane (in pixels) and keep its color, and whether all
+     * the rays of the aperture were traced (the blur varies at the point)
+     */
+    private void sampleColor(double[] colors, int index, double x, double y) {
+        sampleColor(colors, index, _frame.constructRay(x, y));
+    }
+
+    /**
+     * trace a ray of the view plane and keep its color, and whether all the rays of the aperture were
+     * traced
+     */
+    private void sampleColor(double[] colors, int index, Ray ray) {
+        Color color;
+        boolean blurred = false;
+        if (!_scene.getCamera().hasDepthOfField())
+            color = traceRay(ray);
+        else {
+            color = probeAperture(ray);
+            if (color == null) {
+                color = traceAperture(ray);
+                blurred = true;
             }
         }
-        return resultColor;
+        colors[index] = color.getRed();
+        colors[index + 1] = color.getGreen();
+        colors[index + 2] = color.getBlue();
+        colors[index + 3] = blurred ? 1 : 0;
+    }
+
+    /**
+     * check if the colors of the corners of a part are close - every corner to its neighbours.
+     * A part with a corner of varying blur is not divided - the rays of the aperture already average it
+     */
+    private static boolean isSameColor(double[] colors, int a, int b, int c, int d) {
+        if (colors[a + 3] + colors[b + 3] + colors[c + 3] + colors[d + 3] > 0)
+            return true;
+        return difference(colors, a, b) < COLOR_DIFFERENCE_THRESHOLD
+                && difference(colors, a, d) < COLOR_DIFFERENCE_THRESHOLD
+                && difference(colors, c, b) < COLOR_DIFFERENCE_THRESHOLD
+                && difference(colors, c, d) < COLOR_DIFFERENCE_THRESHOLD;
     }
 
     /**
      * checks the difference between two colors and returns the difference value
      *
-     * @param color1
-     * @param color2
-     * @return difference value (called the delta in math)
-     */
-    private double difference(Color color1, Color color2) {
-        //difference of color is (|R1 - R2| + |G1 - G2| + |B1 - B2|) / 255
-        double r = Math.abs(color1.getColor().getRed() - color2.getColor().getRed());
-        double g = Math.abs(color1.getColor().getGreen() - color2.getColor().getGreen());
-        double b = Math.abs(color1.getColor().getBlue() - color2.getColor().getBlue());
-        // the value is still related to 255 whole value, the threshold is the fragment of 255
-        return r + g + b;
+     * @return difference value (called the delta in math) - the sum of the differences of the
+     * components up to 255
+     */
+    private static double difference(double[] colors, int first, int second) {
+        double delta = 0;
+        for (int k = 0; k < 3; ++k)
+            delta += Math.abs(Math.min(colors[first + k], 255) - Math.min(colors[second + k], 255));
+        return delta;
+    }
+
+    /**
+     * checks the difference between two colors
+     *
+     * @return the sum of the differences of the components up to 255
+     */
+    private static double difference(Color first, Color second) {
+        return Math.abs(Math.min(first.getRed(), 255) - Math.min(second.getRed(), 255))
+                + Math.abs(Math.min(first.getGreen(), 255) - Math.min(second.getGreen(), 255))
+                + Math.abs(Math.min(first.getBlue(), 255) - Math.min(second.getBlue(), 255));
     }
 
     /**
-     * method calculates the color of the ray
+     * method calculates the color of a ray from the camera - with a depth of field, the average color
+     * of the rays from the aperture through its focal point. With the adaptive supersampling, the rays
+     * from the center and the rim of the aperture are traced first, and only if their colors are
+     * different (the blur varies) all the rays of the aperture are traced
      *
      * @param ray
      * @return the  color of the ray
      */
     private Color calcRayColor(Ray ray) {
+        if (!_scene.getCamera().hasDepthOfField())
+            return traceRay(ray);
+        Color color = _adaptiveSampling ? probeAperture(ray) : null;
+        return color != null ? color : traceAperture(ray);
+    }
+
+    /**
+     * trace the rays from the center and the rim of the aperture
+     *
+     * @param ray a ray from the camera
+     * @return their average color, or null if their colors are different (the blur varies)
+     */
+    private Color probeAperture(Ray ray) {
+        List<Ray> probes = _scene.getCamera().constructApertureProbeRays(ray);
+        Color first = traceRay(probes.get(0)), sum = first;
+        for (int i = 1; i < probes.size(); ++i) {
+            Color color = traceRay(probes.get(i));
+            if (difference(first, color) >= COLOR_DIFFERENCE_THRESHOLD)
+                return null;
+            sum = sum.add(color);
+        }
+        return sum.reduce(probes.size());
+    }
+
+    /**
+     * trace all the rays of the aperture
+     *
+     * @param ray a ray from the camera
+     * @return their average color
+     */
+    private Color traceAperture(Ray ray) {
+        List<Ray> rays = _scene.getCamera().constructApertureRays(ray, _samplers.get());
         Color color = Color.BLACK;
+        for (Ray apertureRay : rays)
+            color = color.add(traceRay(apertureRay));
+        return color.reduce(rays.size());
+    }
+
+    /**
+     * the color of the closest intersection of a ray or the background
+     *
+     * @param ray
+     * @return the color of the ray
+     */
+    private Color traceRay(Ray ray) {
         // result color is the intersection color or background
         GeoPoint closestPoint = findClosestIntersection(ray);
-        color = color.add(closestPoint == null ? backgroundColor : calcColor(closestPoint, ray));
-
-        return color;
+        return closestPoint == null ? backgroundColor : calcColor(closestPoint, ray);
     }
 }
 
@@ -4,15 +4,53 @@ import elements.*;
 import geometries.*;
 import primitives.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The class that build the scene
  */
 public class Scene {
+    /**
+     * The acceleration structures the scene geometries can be traced with
+     */
+    public enum Acceleration {
+        /**
+         * all the geometries compiled into one flat structure of arrays - compiled again after every edit
+         */
+        FLAT,
+        /**
+         * two level hierarchy - every added object is built once and only the small top level is
+         * rebuilt after an edit
+         */
+        TWO_LEVEL,
+        /**
+         * uniform grid over all the geometries - for dense scenes of shapes of about the same size,
+         * built again after every edit
+         */
+        GRID
+    }
+
     private final String _name;
     private final Geometries _geometries = new Geometries();
+    /**
+     * the compiled form of the geometries - built on demand and dropped on every change
+     */
+    private CompiledGeometries _compiledGeometries = null;
+    /**
+     * the uniform grid of the geometries - built on demand and dropped on every change
+     */
+    private UniformGrid _grid = null;
+    /**
+     * the two level hierarchy of the geometries - updated on every change
+     */
+    private final TwoLevelBVH _hierarchy = new TwoLevelBVH();
+    /**
+     * the acceleration structure used for rendering
+     */
+    private Acceleration _acceleration = Acceleration.TWO_LEVEL;
     private Color _background;
     private Camera _camera;
     /**
@@ -21,6 +59,14 @@ public class Scene {
     private double _distance;
     private AmbientLight _ambientLight;
     private List<LightSource> _lights = null;
+    /**
+     * the hierarchy of the lights - built on demand and dropped when a light is added
+     */
+    private LightTree _lightTree = null;
+    /**
+     * the shadow maps of the lights - built on demand and dropped on every change of the geometries
+     */
+    private final Map<LightSource, ShadowMap> _shadowMaps = new IdentityHashMap<>();
 
     /**
      * constructor
@@ -58,6 +104,82 @@ public class Scene {
         return _geometries;
     }
 
+    /**
+     * get the compiled form of the geometries, compile them if it was not done
+     * since the last change
+     *
+     * @return CompiledGeometries
+     */
+    public synchronized CompiledGeometries getCompiledGeometries() {
+        if (_compiledGeometries == null)
+            _compiledGeometries = _geometries.compile();
+        return _compiledGeometries;
+    }
+
+    /**
+     * get the uniform grid of the geometries, build it if it was not done
+     * since the last change
+     *
+     * @return UniformGrid
+     */
+    public synchronized UniformGrid getGrid() {
+        if (_grid == null)
+            _grid = _geometries.buildGrid();
+        return _grid;
+    }
+
+    /**
+     * get the two level hierarchy of the geometries
+     *
+     * @return TwoLevelBVH
+     */
+    public TwoLevelBVH getHierarchy() {
+        return _hierarchy;
+    }
+
+    /**
+     * get the acceleration structure used for rendering
+     *
+     * @return the acceleration
+     */
+    public Acceleration getAcceleration() {
+        return _acceleration;
+    }
+
+    /**
+     * set the acceleration structure used for rendering
+     *
+     * @param acceleration
+     */
+    public void setAcceleration(Acceleration acceleration) {
+        _acceleration = acceleration;
+    }
+
+    /**
+     * set the quality of the hierarchy builds - LBVH builds much faster for preview renders
+     *
+     * @param quality the build quality
+     */
+    public void setBuildQuality(BVHBuilder.Quality quality) {
+        _hierarchy.setQuality(quality);
+    }
+
+    /**
+     * get the geometries in the selected acceleration structure
+     *
+     * @return the intersectable to trace the rays with
+     */
+    public Intersectable getAccelerator() {
+        switch (_acceleration) {
+            case FLAT:
+                return getCompiledGeometries();
+            case GRID:
+                return getGrid();
+            default:
+                return _hierarchy;
+        }
+    }
+
     /**
      * get the distance
      *
@@ -94,6 +216,10 @@ public class Scene {
         for (Intersectable i : intersectables) {
             _geometries.add(i);
         }
+        _hierarchy.add(intersectables);
+        _compiledGeometries = null;
+        _grid = null;
+        _shadowMaps.clear();
     }
 
     /**
@@ -105,18 +231,70 @@ public class Scene {
         for (Intersectable i : intersectables) {
             _geometries.remove(i);
         }
+        _hierarchy.remove(intersectables);
+        _compiledGeometries = null;
+        _grid = null;
+        _shadowMaps.clear();
+    }
+
+    /**
+     * tell the scene that geometries were changed (e.g. a Geometries group that has been edited),
+     * so only their own structures are rebuilt
+     *
+     * @param intersectables the changed geometries
+     */
+    public void updateGeometries(Intersectable... intersectables) {
+        _hierarchy.update(intersectables);
+        _compiledGeometries = null;
+        _grid = null;
+        _shadowMaps.clear();
+    }
+
+    /**
+     * get the shadow map of a spot light or a directional light, build it if it was not done since
+     * the last change of the geometries. The map of a directional light covers the bounded geometries.
+     *
+     * @param light      the light
+     * @param resolution amount of texels on a side of the map
+     * @return the shadow map, or null if the light has no shadow map
+     */
+    public synchronized ShadowMap getShadowMap(LightSource light, int resolution) {
+        ShadowMap map = _shadowMaps.get(light);
+        if (map != null && map.getResolution() == resolution)
+            return map;
+        if (light instanceof SpotLight)
+            map = new ShadowMap((SpotLight) light, getAccelerator(), resolution);
+        else if (light instanceof DirectionalLight && _geometries.getFiniteBoundingBox() != null)
+            map = new ShadowMap((DirectionalLight) light, getAccelerator(), _geometries.getFiniteBoundingBox(),
+                    resolution);
+        else
+            return null;
+        _shadowMaps.put(light, map);
+        return map;
+    }
+
+    /**
+     * get the hierarchy of the lights, build it if it was not done since the last added light
+     *
+     * @return LightTree
+     */
+    public synchronized LightTree getLightTree() {
+        if (_lightTree == null)
+            _lightTree = new LightTree(_lights);
+        return _lightTree;
     }
 
     /**
-     * create a linked list or add light to the linkedList of lights
+     * create a list or add light to the list of lights
      *
      * @param light
      */
-    public void addLights(LightSource light) {
+    public synchronized void addLights(LightSource light) {
         if (_lights == null) {
-            _lights = new LinkedList<>();
+            _lights = new ArrayList<>();
         }
         _lights.add(light);
+        _lightTree = null;
     }
 
     /**
@@ -0,0 +1,275 @@
+package scene;
+
+import elements.DirectionalLight;
+import elements.SpotLight;
+import geometries.BoundingBox;
+import geometries.Intersectable;
+import geometries.Intersectable.GeoPoint;
+import primitives.Point3D;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Shadow map of a spot light or a directional light - the occluders seen from the light are
+ * ray cast once into a map, and the transparency between a point and the light is then
+ * answered by a lookup in the map instead of a shadow ray.<br/>
+ * A spot light sees its half space through a paraboloid projection (the directions with a positive
+ * projection on its axis fill a disk in the map), a directional light sees a region of the scene
+ * through an orthographic projection.
+ * Every texel keeps the distances of all the geometries along its ray with the transparency after
+ * each of them (until the light is blocked), so transparent geometries cast their partial shadows.
+ * The lookup filters the 4 texels around the point by their bilinear weights (percentage closer filtering).
+ */
+public class ShadowMap {
+    /**
+     * a geometry whose transparency with all the geometries before it is below it blocks the light
+     */
+    private static final double MIN_TRANSPARENCY = 0.001;
+    /**
+     * the tangent of the slope of the surface that is taken into account by the depth bias
+     */
+    private static final double MAX_SLOPE = 10;
+
+    private final int _resolution;
+    /**
+     * true for the paraboloid projection of a spot light, false for the orthographic projection
+     */
+    private final boolean _perspective;
+    /**
+     * the origin of the projection - the position of the spot light, or the center of the region
+     */
+    private final Point3D _origin;
+    /**
+     * the frame of the map - the axis of the light and two orthogonal axes of the map
+     */
+    private final Vector _axisX, _axisY, _axisZ;
+    /**
+     * half of the size of the map of the region (orthographic projection)
+     */
+    private final double _halfSize;
+    /**
+     * per texel: the first entry of the texel in the arrays of the entries
+     */
+    private final int[] _start;
+    /**
+     * per entry: the distance of a geometry from the light and the transparency after it
+     */
+    private final float[] _depths, _transparencies;
+
+    /**
+     * constructor - the shadow map of a spot light
+     *
+     * @param light      the spot light
+     * @param geometries the geometries of the scene
+     * @param resolution amount of texels on a side of the map
+     */
+    public ShadowMap(SpotLight light, Intersectable geometries, int resolution) {
+        this(true, light.getPosition(), light.getDirection(), 0, geometries, resolution);
+    }
+
+    /**
+     * constructor - the shadow map of a directional light over a region of the scene
+     *
+     * @param light      the directional light
+     * @param geometries the geometries of the scene
+     * @param region     the region whose points are answered by the map
+     * @param resolution amount of texels on a side of the map
+     */
+    public ShadowMap(DirectionalLight light, Intersectable geometries, BoundingBox region, int resolution) {
+        this(false, new Point3D(region.getCenter(0), region.getCenter(1), region.getCenter(2)),
+                light.getDirection(), halfDiagonal(region), geometries, resolution);
+    }
+
+    private static double halfDiagonal(BoundingBox box) {
+        double dx = box.getMax(0) - box.getMin(0), dy = box.getMax(1) - box.getMin(1),
+                dz = box.getMax(2) - box.getMin(2);
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) / 2;
+    }
+
+    private ShadowMap(boolean perspective, Point3D origin, Vector direction, double halfSize,
+                      Intersectable geometries, int resolution) {
+        if (resolution < 1)
+            throw new IllegalArgumentException("The resolution of a shadow map must be positive");
+        _resolution = resolution;
+        _perspective = perspective;
+        _origin = origin;
+        _halfSize = Math.max(halfSize, 1);
+        _axisZ = direction.normalized();
+        Vector helper = Math.abs(_axisZ.get_head().get_x().get()) < 0.9 ? new Vector(1, 0, 0) : new Vector(0, 1, 0);
+        _axisX = _axisZ.crossProduct(helper).normalize();
+        _axisY = _axisZ.crossProduct(_axisX);
+
+        int texels = resolution * resolution;
+        _start = new int[texels + 1];
+        float[][] depths = new float[texels][];
+        float[][] transparencies = new float[texels][];
+        int entries = 0;
+        for (int texel = 0; texel < texels; ++texel) {
+            castTexel(geometries, texel, depths, transparencies);
+            _start[texel] = entries;
+            entries += depths[texel] == null ? 0 : depths[texel].length;
+        }
+        _start[texels] = entries;
+        _depths = new float[entries];
+        _transparencies = new float[entries];
+        for (int texel = 0; texel < texels; ++texel)
+            if (depths[texel] != null) {
+                System.arraycopy(depths[texel], 0, _depths, _start[texel], depths[texel].length);
+                System.arraycopy(transparencies[texel], 0, _transparencies, _start[texel], depths[texel].length);
+            }
+    }
+
+    /**
+     * cast the ray of a texel and keep the distances and the transparencies of its geometries
+     */
+    private void castTexel(Intersectable geometries, int texel, float[][] depths, float[][] transparencies) {
+        double a = ((texel % _resolution) + 0.5) / _resolution * 2 - 1;
+        double b = ((texel / _resolution) + 0.5) / _resolution * 2 - 1;
+        Point3D start;
+        Vector direction;
+        Ray ray;
+        List<GeoPoint> intersections;
+        if (_perspective) {
+            // the inverse of the paraboloid projection
+            double r2 = a * a + b * b;
+            if (r2 >= 1) return;
+            direction = _axisX.scale(2 * a / (1 + r2)).add(_axisY.scale(2 * b / (1 + r2)))
+                    .add(_axisZ.scale((1 - r2) / (1 + r2)));
+            start = _origin;
+            ray = new Ray(start, direction);
+            intersections = geometries.findIntersections(ray);
+        } else {
+            direction = _axisZ;
+            start = _origin.add(_axisX.scale(a * _halfSize)).add(_axisY.scale(b * _halfSize))
+                    .add(_axisZ.scale(-_halfSize));
+            ray = new Ray(start, direction);
+            intersections = geometries.findIntersections(ray);
+            // geometries out of the region (as planes) may block the light before the start of the rays
+            List<GeoPoint> before = geometries.findIntersections(new Ray(start, direction.scale(-1)));
+            if (before != null) {
+                depths[texel] = new float[]{Float.NEGATIVE_INFINITY};
+                transparencies[texel] = new float[]{transparency(before, 1)};
+                if (transparencies[texel][0] == 0) return;
+            }
+        }
+        if (intersections == null) return;
+
+        double[] distances = new double[intersections.size()];
+        Integer[] order = new Integer[distances.length];
+        for (int i = 0; i < distances.length; ++i) {
+            distances[i] = intersections.get(i).getDistance(ray);
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(distances[i], distances[j]));
+
+        float[] texelDepths = depths[texel] == null ? new float[0] : depths[texel];
+        float[] texelTransparencies = transparencies[texel] == null ? new float[0] : transparencies[texel];
+        int count = texelDepths.length;
+        double ktr = count == 0 ? 1 : texelTransparencies[0];
+        texelDepths = Arrays.copyOf(texelDepths, count + order.length);
+        texelTransparencies = Arrays.copyOf(texelTransparencies, count + order.length);
+        for (int i : order) {
+            ktr *= intersections.get(i).getGeometry().getMaterial().getKt();
+            if (ktr < MIN_TRANSPARENCY) ktr = 0;
+            texelDepths[count] = (float) distances[i];
+            texelTransparencies[count++] = (float) ktr;
+            if (ktr == 0) break;
+        }
+        depths[texel] = Arrays.copyOf(texelDepths, count);
+        transparencies[texel] = Arrays.copyOf(texelTransparencies, count);
+    }
+
+    /**
+     * the transparency of a list of geometries
+     */
+    private static float transparency(List<GeoPoint> intersections, double ktr) {
+        for (GeoPoint geoPoint : intersections) {
+            ktr *= geoPoint.getGeometry().getMaterial().getKt();
+            if (ktr < MIN_TRANSPARENCY) return 0;
+        }
+        return (float) ktr;
+    }
+
+    /**
+     * get the amount of texels on a side of the map
+     *
+     * @return the resolution
+     */
+    public int getResolution() {
+        return _resolution;
+    }
+
+    /**
+     * get the amount of the geometries kept in the map - its memory is 8 bytes per entry
+     * and 4 bytes per texel
+     *
+     * @return amount of entries
+     */
+    public int getEntryCount() {
+        return _depths.length;
+    }
+
+    /**
+     * get the transparency between a point and the light by the map
+     *
+     * @param p the lighted point
+     * @param n the normal at the point (for the depth bias of sloped surfaces)
+     * @return the transparency, or -1 if the point is not covered by the map
+     */
+    public double transparency(Point3D p, Vector n) {
+        double wx = p.get_x().get() - _origin.get_x().get();
+        double wy = p.get_y().get() - _origin.get_y().get();
+        double wz = p.get_z().get() - _origin.get_z().get();
+        double x = dot(_axisX, wx, wy, wz), y = dot(_axisY, wx, wy, wz), z = dot(_axisZ, wx, wy, wz);
+
+        double a, b, depth, footprint;
+        if (_perspective) {
+            depth = Math.sqrt(wx * wx + wy * wy + wz * wz);
+            if (depth == 0 || z <= 0) return -1;
+            a = x / (depth + z);
+            b = y / (depth + z);
+            footprint = depth * 4 / _resolution;
+        } else {
+            if (Math.abs(x) > _halfSize || Math.abs(y) > _halfSize || z < -_halfSize) return -1;
+            a = x / _halfSize;
+            b = y / _halfSize;
+            depth = z + _halfSize;
+            footprint = 2 * _halfSize / _resolution;
+        }
+
+        // the depth bias - the surface itself is in the map, at the depth of the neighbour texels too
+        Point3D normal = n.get_head();
+        double nx = normal.get_x().get(), ny = normal.get_y().get(), nz = normal.get_z().get();
+        double cos = _perspective ? Math.abs(nx * wx + ny * wy + nz * wz) / depth : Math.abs(dot(_axisZ, nx, ny, nz));
+        double tan = cos == 0 ? MAX_SLOPE : Math.min(Math.sqrt(1 - cos * cos) / cos, MAX_SLOPE);
+        depth -= footprint * (1 + 2 * tan);
+
+        // percentage closer filtering of the 4 nearest texels
+        double s = (a + 1) / 2 * _resolution - 0.5, t = (b + 1) / 2 * _resolution - 0.5;
+        int s0 = (int) Math.floor(s), t0 = (int) Math.floor(t);
+        double fs = s - s0, ft = t - t0;
+        return (1 - fs) * (1 - ft) * texel(s0, t0, depth) + fs * (1 - ft) * texel(s0 + 1, t0, depth)
+                + (1 - fs) * ft * texel(s0, t0 + 1, depth) + fs * ft * texel(s0 + 1, t0 + 1, depth);
+    }
+
+    /**
+     * the transparency of a texel before a depth
+     */
+    private double texel(int s, int t, double depth) {
+        s = Math.max(0, Math.min(_resolution - 1, s));
+        t = Math.max(0, Math.min(_resolution - 1, t));
+        int texel = t * _resolution + s;
+        double ktr = 1;
+        for (int i = _start[texel]; i < _start[texel + 1] && _depths[i] < depth; ++i)
+            ktr = _transparencies[i];
+        return ktr;
+    }
+
+    private static double dot(Vector v, double x, double y, double z) {
+        Point3D head = v.get_head();
+        return head.get_x().get() * x + head.get_y().get() * y + head.get_z().get() * z;
+    }
+}
@@ -56,4 +56,81 @@ class CameraTest {
                         10, 6, 6), "Bad ray");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link elements.Camera#constructApertureRays(Ray, Sampler)}.
+     */
+    @Test
+    public void testConstructApertureRays() {
+        Camera camera = new Camera(Point3D.ZERO, new Vector(0, 0, 1), new Vector(0, -1, 0))
+                .setDepthOfField(4, 100, 16);
+        Ray ray = camera.constructRayThroughPixel(3, 3, 0, 0, 10, 6, 6);
+        Point3D focalPoint = camera.getFocalPoint(ray);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the focal point is on the focal plane
+        assertEquals(new Point3D(-20, -20, 100), focalPoint, "Bad focal point");
+
+        // TC02: the rays start in the aperture and go through the focal point
+        java.util.List<Ray> rays = camera.constructApertureRays(ray, new RandomSampler(1));
+        assertEquals(16, rays.size(), "Bad amount of rays");
+        for (Ray apertureRay : rays) {
+            Point3D origin = apertureRay.get_origin();
+            assertEquals(0, origin.get_z().get(), 1e-10, "The ray does not start on the lens");
+            assertTrue(origin.distance(Point3D.ZERO) <= 2 + 1e-10, "The ray starts out of the aperture");
+            double t = apertureRay.get_vector().dotProduct(focalPoint.subtract(origin));
+            assertEquals(focalPoint, apertureRay.getTargetPoint(t), "The ray misses the focal point");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the probe rays start at the center and the rim of the aperture
+        for (Ray probe : camera.constructApertureProbeRays(ray)) {
+            double r = probe.get_origin().distance(Point3D.ZERO);
+            assertTrue(Util.isZero(r) || Util.isZero(r - 2), "The probe does not start at the center or the rim");
+        }
+
+        // TC12: a negative aperture
+        assertThrows(IllegalArgumentException.class, () -> camera.setDepthOfField(-1, 100, 16),
+                "A negative aperture must throw an exception");
+    }
+
+    /**
+     * Test method for {@link elements.Camera.Frame#tileDirections(int, int, int, int, double[])}.
+     */
+    @Test
+    public void testFrame() {
+        Camera camera = new Camera(new Point3D(1, 2, 3), new Vector(0, 1, 1), new Vector(0, -1, 1));
+        Camera.Frame frame = camera.getFrame(4, 3, 10, 8, 6);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ray of every pixel of the tile is the ray through the pixel
+        double[] buffer = new double[4 * 3 * 3];
+        frame.tileDirections(0, 0, 4, 3, buffer);
+        for (int row = 0; row < 3; ++row)
+            for (int column = 0; column < 4; ++column) {
+                Ray expected = camera.constructRayThroughPixel(4, 3, column, row, 10, 8, 6);
+                assertEquals(expected, frame.constructRay(buffer, (row * 4 + column) * 3), "Bad ray of the tile");
+                assertEquals(expected, frame.constructRay(column + 0.5, row + 0.5), "Bad ray of the point");
+                assertEquals(expected, frame.constructRayThroughPixel(column, row), "Bad ray of the pixel");
+            }
+
+        // TC02: a row is the row of the tile
+        double[] row = new double[4 * 3];
+        frame.rowDirections(2, row);
+        for (int k = 0; k < row.length; ++k)
+            assertEquals(buffer[2 * 4 * 3 + k], row[k], 1e-12, "Bad row");
+
+        // TC03: the corners of a row are the points of the view plane
+        double[] corners = new double[5 * 3];
+        frame.cornerDirections(1, corners);
+        for (int column = 0; column <= 4; ++column)
+            assertEquals(frame.constructRay(column, 1), frame.constructRay(corners, column * 3), "Bad corner of the row");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the upper left corner of the view plane - 4 to the left and 3 up of the center
+        frame.direction(0, 0, buffer, 0);
+        Vector corner = new Vector(-4, 7 * Math.sqrt(0.5), 13 * Math.sqrt(0.5)).normalized();
+        assertEquals(corner, new Vector(buffer[0], buffer[1], buffer[2]), "Bad corner");
+        assertEquals(new Ray(new Point3D(1, 2, 3), corner), frame.constructRay(0, 0), "Bad ray of the corner");
+    }
+}
@@ -0,0 +1,94 @@
+package elements;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the hierarchy of the lights
+ */
+class LightTreeTest {
+
+    /**
+     * Test method for {@link elements.LightTree#sample(primitives.Point3D, double, double)}.
+     */
+    @Test
+    public void testSample() {
+        List<LightSource> lights = new ArrayList<>();
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                lights.add(new PointLight(new Color(10 + i, 20, 10 + j), new Point3D(i * 10, j * 10, 5),
+                        1, 0.01, 0.001));
+        DirectionalLight sun = new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, 1));
+        lights.add(sun);
+        LightTree tree = new LightTree(lights);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the lights without a position are kept aside
+        assertEquals(100, tree.getLightCount(), "wrong amount of lights in the tree");
+        assertEquals(List.of(sun), tree.getUnpositionedLights(), "the directional light must be aside");
+
+        // TC02: the probabilities of all the lights sum to 1
+        Point3D p = new Point3D(23, 47, 0);
+        Map<LightSource, Double> pdfs = new IdentityHashMap<>();
+        for (int i = 0; i < 100000; ++i) {
+            LightTree.Sample sample = tree.sample(p, 1e-6, (i + 0.5) / 100000);
+            assertNotNull(sample, "every light influences the point");
+            pdfs.put(sample.getLight(), sample.getPdf());
+        }
+        assertEquals(100, pdfs.size(), "every light must be chosen by some number");
+        assertEquals(1, pdfs.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9,
+                "the probabilities must sum to 1");
+
+        // TC03: a near light is more probable than a far light of the same power
+        LightSource near = lights.get(2 * 10 + 5), far = lights.get(9 * 10);
+        assertTrue(pdfs.get(near) > pdfs.get(far), "the near light must be more probable");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: no light influences the point
+        assertNull(tree.sample(p, 1e6, 0.5), "no light is strong enough");
+        // TC05: empty tree
+        assertNull(new LightTree(null).sample(p, 1e-6, 0.5), "It is empty!");
+        // TC06: a single light
+        LightTree.Sample sample = new LightTree(List.of(near)).sample(p, 1e-6, 0.7);
+        assertSame(near, sample.getLight(), "the single light must be chosen");
+        assertEquals(1, sample.getPdf(), "the single light must be chosen surely");
+    }
+
+    /**
+     * Test method for {@link elements.LightTree#sample(primitives.Point3D, double, double)} with spot
+     * lights that shine away from the point
+     */
+    @Test
+    public void testSampleConeBounds() {
+        PointLight lamp = new PointLight(new Color(100, 100, 100), new Point3D(0, 0, 10), 1, 0.01, 0.001);
+        List<LightSource> lights = List.of(lamp,
+                new SpotLight(new Color(300, 300, 300), new Point3D(50, 0, 10), new Vector(0, 0, 1), 1, 0.01, 0.001),
+                new SpotLight(new Color(300, 300, 300), new Point3D(60, 5, 10), new Vector(1, 0, 3), 1, 0.01, 0.001));
+        LightTree tree = new LightTree(lights);
+        Point3D p = new Point3D(20, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the cluster of the spots that shine away has no importance
+        for (int i = 0; i < 1000; ++i) {
+            LightTree.Sample sample = tree.sample(p, 1e-6, (i + 0.5) / 1000);
+            assertNotNull(sample, "the lamp influences the point");
+            assertSame(lamp, sample.getLight(), "a spot that shines away was chosen");
+            assertEquals(1, sample.getPdf(), 1e-12, "the lamp must be chosen surely");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a point in front of the spots may choose them
+        Point3D above = new Point3D(55, 0, 40);
+        boolean spot = false;
+        for (int i = 0; i < 1000; ++i)
+            spot |= tree.sample(above, 1e-6, (i + 0.5) / 1000).getLight() != lamp;
+        assertTrue(spot, "the spots must be chosen in front of them");
+    }
+}
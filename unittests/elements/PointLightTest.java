@@ -0,0 +1,61 @@
+package elements;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for the influence bounds of the point and spot lights
+ */
+class PointLightTest {
+
+    /**
+     * Test method for {@link elements.PointLight#getInfluenceRadius(double)}
+     * and {@link elements.PointLight#influences(primitives.Point3D, double)}.
+     */
+    @Test
+    public void testInfluence() {
+        PointLight light = new PointLight(new Color(100, 400.5, 200), Point3D.ZERO, 1, 2, 3);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: at the radius the intensity equals the threshold: 400.5 / (1 + 2*d + 3*d^2) = 0.5 at d = 16
+        double radius = light.getInfluenceRadius(0.5);
+        assertEquals(16, radius, 1e-9, "wrong influence radius");
+        // TC02: a point inside the radius is influenced
+        assertTrue(light.influences(new Point3D(0, 15, 0), 0.5), "a near point must be influenced");
+        // TC03: a point beyond the radius is not influenced
+        assertFalse(light.influences(new Point3D(0, 0, 17), 0.5), "a far point must not be influenced");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: only quadratic attenuation
+        assertEquals(20, new PointLight(new Color(400, 0, 0), Point3D.ZERO, 0, 0, 1)
+                .getInfluenceRadius(1), 1e-9, "wrong influence radius");
+        // TC05: no attenuation by the distance
+        assertEquals(Double.POSITIVE_INFINITY, new PointLight(new Color(400, 0, 0), Point3D.ZERO)
+                .getInfluenceRadius(1), "a light without attenuation has no bound");
+        // TC06: the light is too weak everywhere
+        assertEquals(0, new PointLight(new Color(1, 0, 0), Point3D.ZERO, 10, 0, 0)
+                .getInfluenceRadius(1), "a weak light has no influence");
+    }
+
+    /**
+     * Test method for {@link elements.SpotLight#influences(primitives.Point3D, double)}.
+     */
+    @Test
+    public void testSpotInfluence() {
+        SpotLight light = new SpotLight(new Color(400, 400, 400), Point3D.ZERO, new Vector(0, 0, 1), 1, 0, 0, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point on the axis
+        assertTrue(light.influences(new Point3D(0, 0, 10), 1), "the axis must be influenced");
+        // TC02: a point behind the light
+        assertFalse(light.influences(new Point3D(1, 1, -10), 1), "the cone points away");
+        // TC03: a point at a wide angle: 400 * cos^2 < 1
+        assertFalse(light.influences(new Point3D(100, 0, 1), 1), "the point is out of the cone");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: a point at the side of the light
+        assertFalse(light.influences(new Point3D(1, 0, 0), 1), "the side is out of the cone");
+    }
+}
@@ -0,0 +1,81 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BVHBuilderTest {
+    /**
+     * a big soup of small spheres and triangles (more than the parallel threshold of the builder)
+     */
+    private static List<Intersectable> soup() {
+        Random random = new Random(7);
+        List<Intersectable> shapes = new ArrayList<>();
+        for (int i = 0; i < 3000; ++i) {
+            Point3D p = new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            if (i % 2 == 0)
+                shapes.add(new Sphere(0.5 + random.nextDouble(), p));
+            else
+                shapes.add(new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5))));
+        }
+        return shapes;
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findIntersections(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        List<Intersectable> shapes = soup();
+        Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+        BVH sah = new BVH(shapes, BVHBuilder.Quality.SAH);
+        BVH lbvh = new BVH(shapes, BVHBuilder.Quality.LBVH);
+
+        // TC01: both qualities find the same intersections as the plain list
+        Random random = new Random(11);
+        for (int i = 0; i < 200; ++i) {
+            Ray ray = new Ray(new Point3D(-10, random.nextDouble() * 100, random.nextDouble() * 100),
+                    new Vector(10, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1));
+            List<Intersectable.GeoPoint> expected = flat.findIntersections(ray);
+            int count = expected == null ? 0 : expected.size();
+            List<Intersectable.GeoPoint> result = sah.findIntersections(ray);
+            assertEquals(count, result == null ? 0 : result.size(), "wrong intersections of the SAH build");
+            result = lbvh.findIntersections(ray);
+            assertEquals(count, result == null ? 0 : result.size(), "wrong intersections of the LBVH build");
+        }
+
+        // TC02: unbounded shapes are found too
+        BVH withPlane = new BVH(List.of(new Sphere(1d, new Point3D(0, 0, 5)),
+                new Plane(new Point3D(0, 0, 10), new Vector(0, 0, 1))), BVHBuilder.Quality.SAH);
+        assertEquals(3, withPlane.findIntersections(new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1))).size(),
+                "wrong intersections with a plane");
+        assertNull(withPlane.getBoundingBox(), "an unbounded hierarchy has no box");
+
+        // TC03: empty hierarchy
+        assertNull(new BVH(List.of(), BVHBuilder.Quality.SAH).findIntersections(
+                new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1))), "It is empty!");
+    }
+
+    /**
+     * Test method for {@link geometries.BVHBuilder#getStats()}
+     */
+    @Test
+    public void stats() {
+        List<Intersectable> shapes = soup();
+        BVHBuilder.Stats sah = new BVH(shapes, BVHBuilder.Quality.SAH).getBuildStats();
+        BVHBuilder.Stats lbvh = new BVH(shapes, BVHBuilder.Quality.LBVH).getBuildStats();
+
+        for (BVHBuilder.Stats stats : List.of(sah, lbvh)) {
+            assertEquals(2 * stats.getLeaves() - 1, stats.getNodes(), "a binary tree must have 2 * leaves - 1 nodes");
+            assertTrue(stats.getMaxDepth() < 64, "the tree is too deep");
+            assertTrue(stats.getSahCost() > 0 && stats.getSahCost() < shapes.size(), "wrong SAH cost");
+            assertTrue(stats.getBuildMillis() >= 0, "wrong build time");
+        }
+    }
+}
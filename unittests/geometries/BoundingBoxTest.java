@@ -0,0 +1,58 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundingBoxTest {
+    /**
+     * the box between (0,0,0) and (2,2,2)
+     */
+    private final BoundingBox box = new BoundingBox(0, 0, 0, 2, 2, 2);
+
+    /**
+     * the entry distance of a ray into the box
+     */
+    private static double entry(BoundingBox box, Ray ray, double maxDistance) {
+        return BoundingBox.entry(box._minX, box._minY, box._minZ, box._maxX, box._maxY, box._maxZ,
+                ray.getOriginX(), ray.getOriginY(), ray.getOriginZ(),
+                ray.getInverseX(), ray.getInverseY(), ray.getInverseZ(), maxDistance);
+    }
+
+    /**
+     * Test method for {@link geometries.BoundingBox#entry(double, double, double, double, double, double, double, double, double, double, double, double, double)}.
+     */
+    @Test
+    public void testEntry() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray enters the box
+        Ray ray = new Ray(new Point3D(-1, 1, 1), new Vector(1, 0, 0));
+        assertEquals(1, entry(box, ray, Double.POSITIVE_INFINITY), 1e-10, "wrong entry");
+        assertTrue(box.intersects(ray, Double.POSITIVE_INFINITY), "the ray enters the box");
+
+        // TC02: Ray starts in the box
+        assertEquals(0, entry(box, new Ray(new Point3D(1, 1, 1), new Vector(1, 1, 0)), 10), "wrong entry");
+
+        // TC03: Ray misses the box
+        ray = new Ray(new Point3D(-1, 3, 1), new Vector(1, 0.5, 0));
+        assertEquals(-1, entry(box, ray, Double.POSITIVE_INFINITY), "the ray misses the box");
+        assertFalse(box.intersects(ray, Double.POSITIVE_INFINITY), "the ray misses the box");
+
+        // TC04: Ray points away from the box
+        assertEquals(-1, entry(box, new Ray(new Point3D(-1, 1, 1), new Vector(-1, 0, 0)), 10),
+                "the box is behind the ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The box is beyond the max distance
+        assertEquals(-1, entry(box, new Ray(new Point3D(-1, 1, 1), new Vector(1, 0, 0)), 0.5),
+                "the box is beyond the max distance");
+
+        // TC12: Ray in the plane of a side of the box (the distances of the axis are not numbers)
+        assertEquals(1, entry(box, new Ray(new Point3D(-1, 0, 1), new Vector(1, 0, 0)), 10), 1e-10,
+                "the ray on the side enters the box");
+        assertEquals(-1, entry(box, new Ray(new Point3D(-1, -1, 1), new Vector(1, 0, 0)), 10),
+                "the ray outside of the side misses the box");
+    }
+}
@@ -0,0 +1,81 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledGeometriesTest {
+    /**
+     * Test method for {@link geometries.CompiledGeometries#findIntersections(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        Geometries forms = new Geometries(
+                new Plane(new Point3D(2, 0, 0), new Vector(-1, 1, 0)),
+                new Sphere(2d, new Point3D(5, 0, 0)),
+                new Triangle(new Point3D(8.5, -1, 0), new Point3D(7.5, 1.5, 1), new Point3D(7.5, 1.5, -1))
+        );
+        CompiledGeometries compiled = forms.compile();
+        assertEquals(3, compiled.getCompiledCount(), "wrong amount of compiled shapes");
+        Ray ray;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Some geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(7, 3, 0));
+        assertEquals(3, compiled.findIntersections(ray).size(), "wrong intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Empty collection
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(1, 0, 0));
+        assertNull(new Geometries().compile().findIntersections(ray), "It is empty!");
+
+        // TC03: None geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(1, 3, 0));
+        assertNull(compiled.findIntersections(ray), "wrong intersections");
+
+        // TC04: Single geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(4, 3, 0));
+        assertEquals(1, compiled.findIntersections(ray).size(), "wrong intersections");
+
+        // TC05: All geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(7, 1, 0));
+        assertEquals(4, compiled.findIntersections(ray).size(), "wrong intersections");
+
+        // TC06: Max distance cuts the far intersections
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(7, 1, 0));
+        assertEquals(2, compiled.findIntersections(ray, 4).size(), "wrong intersections");
+    }
+
+    /**
+     * The compiled form must find the same points as the object graph,
+     * including the nested Geometries and the shapes that have no compiled form
+     */
+    @Test
+    public void sameAsGeometries() {
+        Geometries forms = new Geometries(
+                new Sphere(1d, new Point3D(0, 0, 5)),
+                new Geometries(
+                        new Triangle(new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 8)),
+                        new Polygon(new Point3D(-4, -4, 10), new Point3D(4, -4, 10),
+                                new Point3D(4, 4, 10), new Point3D(-4, 4, 10))),
+                new Plane(new Point3D(0, 0, 12), new Vector(0, 0, 1))
+        );
+        CompiledGeometries compiled = forms.compile();
+        assertEquals(3, compiled.getCompiledCount(), "nested geometries were not compiled");
+
+        Point3D p0 = new Point3D(0.1, 0.2, 0);
+        for (double x = -0.5; x <= 0.5; x += 0.25) {
+            Ray ray = new Ray(p0, new Vector(x, 0.1, 1));
+            List<GeoPoint> expected = forms.findIntersections(ray);
+            List<GeoPoint> result = compiled.findIntersections(ray);
+            assertEquals(expected.size(), result.size(), "wrong amount of intersections");
+            for (GeoPoint gp : expected)
+                assertTrue(result.contains(gp), "missing intersection " + gp.getPoint());
+        }
+    }
+}
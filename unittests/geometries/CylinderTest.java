@@ -5,6 +5,8 @@ import primitives.Point3D;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CylinderTest {
@@ -56,4 +58,49 @@ class CylinderTest {
         assertEquals(normal5, ExpResult5);
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link Cylinder#findIntersections(Ray, double)}
+     */
+    @Test
+    void findIntersections() {
+        Cylinder cylinder = new Cylinder(1, new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1)), 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice between the bases
+        List<Intersectable.GeoPoint> result = cylinder.findIntersections(
+                new Ray(new Point3D(-3, 0, 1), new Vector(1, 0, 0)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        for (Intersectable.GeoPoint geoPoint : result)
+            assertEquals(1, Math.abs(geoPoint.getPoint().get_x().get()), 1e-10, "Wrong side point");
+
+        // TC02: Ray crosses the side of the tube above the cylinder
+        assertNull(cylinder.findIntersections(new Ray(new Point3D(-3, 0, 5), new Vector(1, 0, 0))),
+                "Ray above the cylinder");
+
+        // TC03: Ray along the axis crosses the two bases
+        result = cylinder.findIntersections(new Ray(new Point3D(0.5, 0, -1), new Vector(0, 0, 1)));
+        assertEquals(2, result.size(), "Wrong number of points");
+        assertEquals(new Point3D(0.5, 0, 0), result.get(0).getPoint(), "Wrong base point");
+        assertEquals(new Point3D(0.5, 0, 2), result.get(1).getPoint(), "Wrong base point");
+
+        // TC04: Ray crosses a base and the side
+        result = cylinder.findIntersections(new Ray(new Point3D(0, 0, -1), new Vector(1, 0, 2)));
+        assertEquals(2, result.size(), "Wrong number of points");
+
+        // TC05: Ray outside of the cylinder parallel to the axis
+        assertNull(cylinder.findIntersections(new Ray(new Point3D(2, 0, -1), new Vector(0, 0, 1))),
+                "Ray outside the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The max distance is before the far base
+        result = cylinder.findIntersections(new Ray(new Point3D(0.5, 0, -1), new Vector(0, 0, 1)), 2);
+        assertEquals(1, result.size(), "Wrong number of points");
+        assertEquals(new Point3D(0.5, 0, 0), result.get(0).getPoint(), "Wrong base point");
+
+        // TC12: The box of the cylinder bounds its intersections
+        BoundingBox box = cylinder.getBoundingBox();
+        assertEquals(-1, box._minX, 1e-10, "Wrong box");
+        assertEquals(2, box._maxZ, 1e-10, "Wrong box");
+    }
+}
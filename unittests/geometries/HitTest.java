@@ -0,0 +1,148 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HitTest {
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, geometries.Hit)}
+     */
+    @Test
+    public void testIntersect() {
+        Sphere sphere = new Sphere(1d, new Point3D(0, 0, 5));
+        Triangle triangle = new Triangle(new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 8));
+        Plane plane = new Plane(new Point3D(0, 0, 12), new Vector(0, 0, 1));
+        List<Intersectable> shapes = List.of(sphere, triangle, plane);
+        Intersectable[] structures = {
+                new Geometries(sphere, triangle, plane),
+                new Geometries(sphere, triangle, plane).compile(),
+                new LinearBVH(new BVH(shapes, BVHBuilder.Quality.SAH)),
+                new TwoLevelBVH(sphere, triangle, plane),
+                new UniformGrid(shapes)
+        };
+        Hit hit = new Hit();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest hit is the sphere
+        Ray ray = new Ray(new Point3D(0.1, 0.2, 0), new Vector(0, 0, 1));
+        for (Intersectable structure : structures) {
+            assertTrue(structure.intersect(ray, hit.reset(Double.POSITIVE_INFINITY)), "missing hit");
+            assertEquals(sphere, hit.getGeometry(), "wrong geometry");
+            assertEquals(ray.getTargetPoint(hit.getT()), hit.toGeoPoint(ray).getPoint(), "wrong point");
+            assertEquals(structure.findClosestIntersection(ray, Double.POSITIVE_INFINITY), hit.toGeoPoint(ray),
+                    "different from the closest intersection");
+        }
+
+        // TC02: The sphere is missed - the triangle is the closest
+        ray = new Ray(new Point3D(2, -2, 0), new Vector(0, 0, 1));
+        for (Intersectable structure : structures) {
+            assertTrue(structure.intersect(ray, hit.reset(Double.POSITIVE_INFINITY)), "missing hit");
+            assertEquals(triangle, hit.getGeometry(), "wrong geometry");
+            assertEquals(8, hit.getT(), 1e-10, "wrong distance");
+        }
+
+        // TC03: A closer hit is kept
+        for (Intersectable structure : structures) {
+            hit.reset(Double.POSITIVE_INFINITY).set(3, sphere);
+            assertFalse(structure.intersect(ray, hit), "the hit must not be replaced");
+            assertEquals(sphere, hit.getGeometry(), "wrong geometry");
+            assertEquals(3, hit.getT(), "wrong distance");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Max distance before all the shapes
+        for (Intersectable structure : structures) {
+            assertFalse(structure.intersect(ray, hit.reset(4)), "hit after the max distance");
+            assertFalse(hit.isHit(), "hit after the max distance");
+            assertNull(hit.toGeoPoint(ray), "point of no hit");
+        }
+    }
+
+    /**
+     * The hit of a mesh keeps the triangle and the barycentric coordinates
+     */
+    @Test
+    public void testMeshHit() {
+        OffHeapTriangleMesh.Builder builder = new OffHeapTriangleMesh.Builder(3, 1);
+        builder.addTriangle(builder.addVertex(-3, -3, 8), builder.addVertex(3, -3, 8), builder.addVertex(0, 3, 8));
+        OffHeapTriangleMesh mesh = builder.build();
+
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+        Hit hit = new Hit();
+        assertTrue(mesh.intersect(ray, hit), "missing hit");
+        assertEquals(0, hit.getPrimitive(), "wrong triangle");
+        // (0, 0) = a + u (b - a) + v (c - a)
+        assertEquals(0.25, hit.getU(), 1e-10, "wrong u");
+        assertEquals(0.5, hit.getV(), 1e-10, "wrong v");
+        GeoPoint geoPoint = hit.toGeoPoint(ray);
+        assertEquals(new Point3D(0, 0, 8), geoPoint.getPoint(), "wrong point");
+        assertEquals(mesh.findClosestIntersection(ray, Double.POSITIVE_INFINITY), geoPoint, "wrong face");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable.GeoPoint} of a ray - the point and the normal
+     * are calculated from the distance along the ray
+     */
+    @Test
+    public void testGeoPoint() {
+        Sphere sphere = new Sphere(1d, new Point3D(0, 0, 5));
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The intersections of a sphere keep their distances
+        List<GeoPoint> intersections = sphere.findIntersections(ray);
+        assertEquals(2, intersections.size(), "wrong intersections");
+        assertEquals(4, intersections.get(0).getDistance(ray), 1e-10, "wrong distance");
+        assertEquals(new Point3D(0, 0, 4), intersections.get(0).getPoint(), "wrong point");
+        assertEquals(new Vector(0, 0, -1), intersections.get(0).getNormal(), "wrong normal");
+        assertEquals(6, intersections.get(1).getDistance(ray), 1e-10, "wrong distance");
+        assertEquals(new Point3D(0, 0, 6), intersections.get(1).getPoint(), "wrong point");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A point given as is has the distance from the ray head
+        GeoPoint geoPoint = new GeoPoint(sphere, new Point3D(0, 0, 4));
+        assertEquals(4, geoPoint.getDistance(ray), 1e-10, "wrong distance");
+        assertEquals(intersections.get(0), geoPoint, "a lazy point must equal the same point given as is");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(primitives.Ray, geometries.Hit)} of the shapes
+     * - the direct calculation must find the closest of the intersections of each shape
+     */
+    @Test
+    public void testShapeIntersect() {
+        Geometry[] shapes = {
+                new Sphere(2d, new Point3D(0, 0, 5)),
+                new Plane(new Point3D(0, 0, 6), new Vector(1, 2, 3)),
+                new Triangle(new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 6)),
+                new Polygon(new Point3D(-2, -2, 4), new Point3D(2, -2, 4), new Point3D(2, 2, 5), new Point3D(-2, 2, 5))
+        };
+        Random random = new Random(1);
+        Hit hit = new Hit();
+        for (Geometry shape : shapes)
+            for (int i = 0; i < 2000; ++i) {
+                Ray ray = new Ray(new Point3D(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 10 - 2),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.3));
+                double maxDistance = random.nextDouble() * 10;
+                GeoPoint closest = null;
+                List<GeoPoint> intersections = shape.findIntersections(ray, maxDistance);
+                if (intersections != null)
+                    for (GeoPoint geoPoint : intersections)
+                        if (closest == null || geoPoint.getDistance(ray) < closest.getDistance(ray))
+                            closest = geoPoint;
+
+                assertEquals(closest != null, shape.intersect(ray, hit.reset(maxDistance)), "wrong hit of " + shape);
+                if (closest != null) {
+                    assertSame(shape, hit.getGeometry(), "wrong geometry");
+                    assertEquals(closest.getDistance(ray), hit.getT(), 1e-9, "wrong distance to " + shape);
+                }
+            }
+    }
+}
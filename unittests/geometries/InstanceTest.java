@@ -0,0 +1,118 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceTest {
+    /**
+     * a unit sphere shared by all the instances
+     */
+    private final Sphere sphere = new Sphere(new Color(java.awt.Color.BLUE), new Material(0.5, 0.5, 30),
+            1d, new Point3D(0, 0, 0));
+
+    /**
+     * Test method for {@link geometries.Instance#findIntersections(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        Instance instance = new Instance(sphere,
+                Transform.translation(new Vector(0, 0, 5)).multiply(Transform.scaling(2)));
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the moved and scaled sphere
+        List<GeoPoint> result = instance.findIntersections(ray);
+        assertEquals(2, result.size(), "wrong intersections");
+        assertTrue(result.get(0).getPoint().equals(new Point3D(0, 0, 3))
+                || result.get(1).getPoint().equals(new Point3D(0, 0, 3)), "wrong point");
+
+        // TC02: Ray misses the instance (but would hit the shared sphere)
+        assertNull(instance.findIntersections(new Ray(new Point3D(0, 0, -2), new Vector(1, 0, 0))),
+                "wrong intersections");
+
+        // TC03: Max distance is measured in the world
+        result = instance.findIntersections(ray, 5);
+        assertEquals(1, result.size(), "wrong intersections");
+        assertEquals(new Point3D(0, 0, 3), result.get(0).getPoint(), "wrong point");
+
+        // TC04: The normal is in the world and the material is the shared one
+        Geometry geometry = result.get(0).getGeometry();
+        assertEquals(new Vector(0, 0, -1), geometry.getNormal(result.get(0).getPoint()), "wrong normal");
+        assertEquals(0.5, geometry.getMaterial().getkD(), "wrong material");
+    }
+
+    /**
+     * Test of the material override and of the normals of a non uniform scaling
+     */
+    @Test
+    public void overrideAndNormal() {
+        Instance instance = new Instance(sphere,
+                Transform.rotation(new Vector(0, 0, 1), Math.PI / 2).multiply(Transform.scaling(1, 3, 1)),
+                new Color(java.awt.Color.RED), new Material(0.2, 0.3, 10));
+
+        // the scaled y axis is rotated to the x axis - an ellipsoid with radius 3 on x
+        Ray ray = new Ray(new Point3D(-10, 0, 0), new Vector(1, 0, 0));
+        List<GeoPoint> result = instance.findIntersections(ray, 8);
+        assertEquals(1, result.size(), "wrong intersections");
+        assertEquals(new Point3D(-3, 0, 0), result.get(0).getPoint(), "wrong point");
+
+        Geometry geometry = result.get(0).getGeometry();
+        assertEquals(new Vector(-1, 0, 0), geometry.getNormal(result.get(0).getPoint()), "wrong normal");
+        assertEquals(0.2, geometry.getMaterial().getkD(), "material was not overridden");
+
+        // a point on the side of the ellipsoid - the normal is not the scaled sphere normal
+        Point3D p = new Point3D(3 / Math.sqrt(2), 0, 1 / Math.sqrt(2));
+        Vector n = geometry.getNormal(p);
+        assertEquals(new Vector(1, 0, 3).normalize(), n, "wrong normal of a scaled surface");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#intersect(primitives.Ray, geometries.Hit)} and
+     * {@link geometries.Instance#accumulateTransmittance(primitives.Ray, double, geometries.Transmittance)}
+     */
+    @Test
+    public void intersectAndTransmittance() {
+        Instance instance = new Instance(sphere,
+                Transform.translation(new Vector(0, 0, 5)).multiply(Transform.scaling(2)),
+                null, new Material(0.2, 0.3, 10, 0.5, 0));
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest hit is at the world distance of the scaled sphere
+        Hit hit = new Hit();
+        assertTrue(instance.intersect(ray, hit), "no hit");
+        assertEquals(3, hit.getT(), 1e-10, "wrong distance");
+        assertEquals(new Point3D(0, 0, 3), hit.toGeoPoint(ray).getPoint(), "wrong point");
+        assertEquals(new Vector(0, 0, -1), hit.getGeometry().getNormal(new Point3D(0, 0, 3)), "wrong normal");
+
+        // TC02: Every hit of the shared sphere is the same geometry of the instance
+        Hit other = new Hit();
+        instance.intersect(new Ray(new Point3D(1, 0, 0), new Vector(0, 0, 1)), other);
+        assertSame(hit.getGeometry(), other.getGeometry(), "the geometry of the instance was not reused");
+        assertSame(hit.getGeometry(), instance.findIntersections(ray).get(0).getGeometry(),
+                "the geometry of the instance was not reused");
+
+        // TC03: The shadow ray crosses the sphere twice with the transparency of the instance
+        Transmittance transmittance = new Transmittance(0.1);
+        assertFalse(instance.accumulateTransmittance(ray, 100, transmittance), "the light was blocked");
+        assertEquals(0.25, transmittance.getValue(), 1e-10, "wrong transmittance");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The hit is beyond the max distance in the world (the object distance is 1.5)
+        assertFalse(instance.intersect(ray, new Hit(2.5)), "hit beyond the max distance");
+
+        // TC12: The shadow ray ends between the two crossings
+        transmittance = new Transmittance(0.1);
+        instance.accumulateTransmittance(ray, 5, transmittance);
+        assertEquals(0.5, transmittance.getValue(), 1e-10, "wrong transmittance");
+
+        // TC13: The geometry of the instance alone keeps the max distance in the world
+        assertEquals(1, hit.getGeometry().findIntersections(ray, 5).size(), "wrong intersections");
+    }
+}
@@ -0,0 +1,85 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearBVHTest {
+    /**
+     * a grid of small spheres and triangles
+     */
+    private static List<Intersectable> shapes() {
+        List<Intersectable> shapes = new ArrayList<>();
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j) {
+                Point3D p = new Point3D(i * 5, j * 5, (i + j) % 7 * 3);
+                if ((i + j) % 2 == 0)
+                    shapes.add(new Sphere(1.5, p));
+                else
+                    shapes.add(new Triangle(p, p.add(new Vector(3, 0, 1)), p.add(new Vector(0, 3, -1))));
+            }
+        return shapes;
+    }
+
+    /**
+     * Test method for {@link geometries.LinearBVH#findIntersections(primitives.Ray, double)}
+     * and {@link geometries.LinearBVH#findClosestIntersection(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        List<Intersectable> shapes = shapes();
+        Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+        for (BVHBuilder.Quality quality : BVHBuilder.Quality.values()) {
+            LinearBVH linear = new LinearBVH(new BVH(shapes, quality));
+            Random random = new Random(3);
+            for (int i = 0; i < 300; ++i) {
+                Ray ray = new Ray(new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, -20),
+                        new Vector(random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, 1));
+                // TC01: the same intersections as the plain list
+                List<GeoPoint> expected = flat.findIntersections(ray);
+                List<GeoPoint> result = linear.findIntersections(ray);
+                assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                        "wrong intersections of the " + quality + " build");
+                // TC02: the same closest intersection as the plain list
+                assertEquals(flat.findClosestIntersection(ray, Double.POSITIVE_INFINITY),
+                        linear.findClosestIntersection(ray, Double.POSITIVE_INFINITY),
+                        "wrong closest intersection of the " + quality + " build");
+            }
+        }
+
+        // TC03: empty hierarchy
+        LinearBVH empty = new LinearBVH(new BVH(List.of(), BVHBuilder.Quality.SAH));
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+        assertNull(empty.findIntersections(ray), "It is empty!");
+        assertNull(empty.findClosestIntersection(ray, Double.POSITIVE_INFINITY), "It is empty!");
+    }
+
+    /**
+     * The linear layout keeps all the nodes of the tree and visits no more nodes than the object tree
+     */
+    @Test
+    public void statistics() {
+        BVH bvh = new BVH(shapes(), BVHBuilder.Quality.SAH);
+        LinearBVH linear = new LinearBVH(bvh);
+        assertEquals(bvh.getBuildStats().getNodes(), linear.getNodeCount(), "wrong amount of nodes");
+        assertEquals(32, linear.getBytesPerNode(), "wrong memory per node");
+
+        Random random = new Random(5);
+        for (int i = 0; i < 100; ++i) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, -20),
+                    new Vector(0, 0, 1));
+            bvh.findIntersections(ray);
+            linear.findIntersections(ray);
+        }
+        assertTrue(linear.getAverageTraversalSteps() > 0, "no traversal steps were counted");
+        assertEquals(bvh.getAverageTraversalSteps(), linear.getAverageTraversalSteps(), 1e-9,
+                "both layouts must visit the same nodes");
+    }
+}
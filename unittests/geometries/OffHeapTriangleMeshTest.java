@@ -0,0 +1,124 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTriangleMeshTest {
+
+    /**
+     * build a grid of size x size squares (two triangles each) on the plane z = height
+     */
+    private static void addGrid(OffHeapTriangleMesh.Builder builder, int size, double height) {
+        int first = builder.addVertex(0, 0, height);
+        for (int i = 0; i <= size; ++i)
+            for (int j = 0; j <= size; ++j)
+                if (i != 0 || j != 0)
+                    builder.addVertex(i, j, height);
+        for (int i = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j) {
+                int a = first + i * (size + 1) + j;
+                int b = a + size + 1;
+                builder.addTriangle(a, b, a + 1);
+                builder.addTriangle(a + 1, b, b + 1);
+            }
+    }
+
+    /**
+     * Test method for {@link geometries.OffHeapTriangleMesh#findIntersections(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        OffHeapTriangleMesh.Builder builder = new OffHeapTriangleMesh.Builder(2 * 11 * 11, 2 * 2 * 100);
+        addGrid(builder, 10, 1);
+        addGrid(builder, 10, 3);
+        OffHeapTriangleMesh mesh = builder.build();
+        assertEquals(400, mesh.getTriangleCount(), "wrong amount of triangles");
+        assertTrue(mesh.getNodeCount() < mesh.getTriangleCount(), "too many hierarchy nodes");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses both layers
+        Ray ray = new Ray(new Point3D(2.3, 4.6, 0), new Vector(0.1, 0.05, 1));
+        List<GeoPoint> result = mesh.findIntersections(ray);
+        assertEquals(2, result.size(), "wrong intersections");
+
+        // TC02: Ray misses the mesh
+        ray = new Ray(new Point3D(12, 4.6, 0), new Vector(0, 0, 1));
+        assertNull(mesh.findIntersections(ray), "wrong intersections");
+
+        // TC03: Ray starts between the layers
+        ray = new Ray(new Point3D(5.2, 5.7, 2), new Vector(0, 0, 1));
+        result = mesh.findIntersections(ray);
+        assertEquals(1, result.size(), "wrong intersections");
+        assertEquals(new Point3D(5.2, 5.7, 3), result.get(0).getPoint(), "wrong point");
+
+        // TC04: max distance before the second layer
+        ray = new Ray(new Point3D(2.3, 4.6, 0), new Vector(0, 0, 1));
+        assertEquals(1, mesh.findIntersections(ray, 2).size(), "wrong intersections");
+
+        // TC05: the face of the intersection has the normal of its triangle and the mesh material
+        GeoPoint gp = mesh.findIntersections(ray, 2).get(0);
+        assertEquals(new Point3D(2.3, 4.6, 1), gp.getPoint(), "wrong point");
+        Vector normal = gp.getGeometry().getNormal(gp.getPoint());
+        assertTrue(normal.equals(new Vector(0, 0, 1)) || normal.equals(new Vector(0, 0, -1)), "wrong normal");
+    }
+
+    /**
+     * The mesh must find the same points as the same triangles as objects
+     */
+    @Test
+    public void sameAsTriangles() {
+        OffHeapTriangleMesh.Builder builder = new OffHeapTriangleMesh.Builder(3, 1);
+        builder.addTriangle(builder.addVertex(-3, -3, 8), builder.addVertex(3, -3, 8), builder.addVertex(0, 3, 8));
+        OffHeapTriangleMesh mesh = builder.build();
+        Triangle triangle = new Triangle(new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 8));
+
+        Point3D p0 = new Point3D(0.1, 0.2, 0);
+        for (double x = -0.5; x <= 0.5; x += 0.125) {
+            Ray ray = new Ray(p0, new Vector(x, 0.2, 1));
+            List<GeoPoint> expected = triangle.findIntersections(ray, Double.POSITIVE_INFINITY);
+            List<GeoPoint> result = mesh.findIntersections(ray);
+            if (expected == null) {
+                assertNull(result, "wrong intersections");
+            } else {
+                assertEquals(1, result.size(), "wrong intersections");
+                assertEquals(expected.get(0).getPoint(), result.get(0).getPoint(), "wrong point");
+            }
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.OffHeapTriangleMesh#getOffHeapBytes()}
+     */
+    @Test
+    public void offHeapBytes() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The buffers are trimmed to the used vertices and triangles, the nodes are the nodes of the hierarchy
+        OffHeapTriangleMesh.Builder builder = new OffHeapTriangleMesh.Builder(1000, 1000);
+        addGrid(builder, 10, 1);
+        OffHeapTriangleMesh mesh = builder.build();
+        // 200 triangles are split in halves down to 64 leaves of 3 or 4 triangles
+        assertEquals(127, mesh.getNodeCount(), "wrong amount of hierarchy nodes");
+        assertEquals(11 * 11 * 12 + 200 * 12 + mesh.getNodeCount() * 32, mesh.getOffHeapBytes(), "wrong size");
+
+        // TC02: The reordered triangles are still found
+        Ray ray = new Ray(new Point3D(2.3, 4.6, 0), new Vector(0, 0, 1));
+        assertEquals(new Point3D(2.3, 4.6, 1), mesh.findClosestIntersection(ray, Double.POSITIVE_INFINITY).getPoint(),
+                "wrong point");
+
+        // TC03: The builder builds a single mesh - the mesh owns its buffers
+        assertThrows(IllegalStateException.class, builder::build, "the buffers of the mesh were shared");
+        assertThrows(IllegalStateException.class, () -> builder.addVertex(0, 0, 0), "the buffers of the mesh were shared");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: An empty mesh holds no memory
+        OffHeapTriangleMesh empty = new OffHeapTriangleMesh.Builder(10, 10).build();
+        assertEquals(0, empty.getOffHeapBytes(), "wrong size");
+        assertNull(empty.getBoundingBox(), "an empty mesh is unbounded");
+    }
+}
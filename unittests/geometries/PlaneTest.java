@@ -53,7 +53,7 @@ class PlaneTest {
         List<Point3D> points = new LinkedList<>();
         List<GeoPoint> results = plane.findIntersections(new Ray(new Point3D(-3, 0.0, 0), new Vector(6, 0, 0)));
         for (GeoPoint geo : results) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(new Point3D(1, 0, 0)), points, "Ray did not intersect the plane as expected");
 
@@ -78,7 +78,7 @@ class PlaneTest {
                 new Vector(0.5773502691896258, 0.5773502691896258, 0.5773502691896258)));
         points.clear();
         for (GeoPoint geo : results) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(new Point3D(0.3333333333333335, 0.3333333333333335, 0.3333333333333335)), points,
                 "Ray not intersected the plane as expected");
@@ -65,7 +65,7 @@ class SphereTest {
 
         points.clear();
         for (GeoPoint geo : result02) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
 
         if (points.get(0).get_x().get() > points.get(1).get_x().get()) {
@@ -77,7 +77,7 @@ class SphereTest {
         List<GeoPoint> result03 = sphere.findIntersections(new Ray(new Point3D(0.5, 0.5, 0), new Vector(3, 1, 0)));
         points.clear();
         for (GeoPoint geo : result03) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(p2), points,
                 "Ray from inside sphere");
@@ -92,7 +92,7 @@ class SphereTest {
         List<GeoPoint> result11 = sphere.findIntersections(new Ray(new Point3D(1, -1, 0), new Vector(1, 1, 0)));
         points.clear();
         for (GeoPoint geo : result11) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
 
         assertEquals(List.of(new Point3D(2, 0, 0)), points, "Ray from sphere inside");
@@ -108,7 +108,7 @@ class SphereTest {
         assertEquals(2, result13.size(), "Wrong number of points");
         points.clear();
         for (GeoPoint geo : result13) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         if (points.get(0).get_y().get() > points.get(1).get_y().get()) {
             result13 = List.of(result13.get(1), result13.get(0));
@@ -122,7 +122,7 @@ class SphereTest {
         List<GeoPoint> result14 = sphere.findIntersections(new Ray(new Point3D(1, -1, 0), new Vector(0, 1, 0)));
         points.clear();
         for (GeoPoint geo : result14) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
 
         assertEquals(List.of(new Point3D(1, 1, 0)), points,
@@ -132,7 +132,7 @@ class SphereTest {
         List<GeoPoint> result15 = sphere.findIntersections(new Ray(new Point3D(1, 0.5, 0), new Vector(0, 1, 0)));
         points.clear();
         for (GeoPoint geo : result15) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(new Point3D(1, 1, 0)),
                 points,
@@ -142,7 +142,7 @@ class SphereTest {
         List<GeoPoint> result16 = sphere.findIntersections(new Ray(new Point3D(1, 0, 0), new Vector(0, 1, 0)));
         points.clear();
         for (GeoPoint geo : result16) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(new Point3D(1, 1, 0)), points,
                 "Line through O, ray from O");
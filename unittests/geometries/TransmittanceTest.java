@@ -0,0 +1,113 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransmittanceTest {
+    /**
+     * the transmittance of a ray by the full list of its intersections
+     */
+    private static double expected(Intersectable geometries, Ray ray, double maxDistance, double threshold) {
+        List<GeoPoint> intersections = geometries.findIntersections(ray, maxDistance);
+        double ktr = 1;
+        if (intersections != null)
+            for (GeoPoint geoPoint : intersections) {
+                ktr *= geoPoint.getGeometry().getMaterial().getKt();
+                if (ktr < threshold) return 0;
+            }
+        return ktr;
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#accumulateTransmittance(primitives.Ray, double, Transmittance)}
+     * in all the acceleration structures
+     */
+    @Test
+    public void accumulateTransmittance() {
+        Random random = new Random(21);
+        List<Intersectable> shapes = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            Point3D p = new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            Material material = new Material(0.5, 0.5, 30, i % 3 == 0 ? 0 : 0.3 + 0.6 * random.nextDouble(), 0);
+            if (i % 2 == 0)
+                shapes.add(new Sphere(Color.BLACK, material, 2 + random.nextDouble() * 4, p));
+            else
+                shapes.add(new Triangle(Color.BLACK, material, p, p.add(new Vector(10, 0, 3)), p.add(new Vector(0, 10, -3))));
+        }
+        shapes.add(new Plane(Color.BLACK, new Material(0, 0, 0, 0.9, 0), new Point3D(0, 0, 40), new Vector(0, 1, 1)));
+        Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+        Intersectable[] structures = {flat, flat.compile(), new BVH(shapes, BVHBuilder.Quality.SAH),
+                new LinearBVH(new BVH(shapes, BVHBuilder.Quality.LBVH)), new UniformGrid(shapes),
+                new TwoLevelBVH(shapes.toArray(new Intersectable[0]))};
+
+        int blocked = 0;
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, -10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1));
+            double maxDistance = 20 + random.nextDouble() * 100;
+            double ktr = expected(flat, ray, maxDistance, 0.001);
+            if (ktr == 0) ++blocked;
+            for (Intersectable structure : structures) {
+                // TC01: the same transmittance as the product over the list of the intersections
+                Transmittance transmittance = new Transmittance(0.001);
+                boolean isBlocked = structure.accumulateTransmittance(ray, maxDistance, transmittance);
+                assertEquals(ktr, transmittance.getValue(), 1e-9,
+                        "wrong transmittance of " + structure.getClass().getSimpleName());
+                // TC02: the blocked rays are reported, and an opaque blocking geometry is kept
+                assertEquals(ktr == 0, isBlocked, "wrong blocking of " + structure.getClass().getSimpleName());
+                if (transmittance.getOccluder() != null)
+                    assertEquals(0, transmittance.getOccluder().getMaterial().getKt(), "the occluder must be opaque");
+            }
+        }
+        assertTrue(blocked > 0 && blocked < 300, "the rays must be both blocked and not blocked");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: nothing before the max distance
+        Transmittance transmittance = new Transmittance(0.001);
+        assertFalse(flat.accumulateTransmittance(new Ray(new Point3D(50, 50, -10), new Vector(0, 0, -1)),
+                1, transmittance), "nothing blocks the ray");
+        assertEquals(1, transmittance.getValue(), "the ray must be clear");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#accumulateTransmittance(primitives.Ray, double, Transmittance)}
+     * of the shapes - the direct calculation must cross every intersection of the shape
+     */
+    @Test
+    public void shapeTransmittance() {
+        Material material = new Material(0.5, 0.5, 30, 0.5, 0);
+        Geometry[] shapes = {
+                new Sphere(Color.BLACK, material, 2, new Point3D(0, 0, 5)),
+                new Plane(Color.BLACK, material, new Point3D(0, 0, 6), new Vector(1, 2, 3)),
+                new Triangle(Color.BLACK, material, new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 6)),
+                new Polygon(Color.BLACK, material, new Point3D(-2, -2, 4), new Point3D(2, -2, 4),
+                        new Point3D(2, 2, 5), new Point3D(-2, 2, 5))
+        };
+        Random random = new Random(3);
+        for (Geometry shape : shapes) {
+            int crossed = 0;
+            for (int i = 0; i < 2000; ++i) {
+                Ray ray = new Ray(new Point3D(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 10 - 2),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.3));
+                double maxDistance = random.nextDouble() * 10;
+                // TC01: the same transmittance as the product over the list of the intersections
+                double ktr = expected(shape, ray, maxDistance, 0.3);
+                Transmittance transmittance = new Transmittance(0.3);
+                boolean isBlocked = shape.accumulateTransmittance(ray, maxDistance, transmittance);
+                assertEquals(ktr, transmittance.getValue(), 1e-12, "wrong transmittance of " + shape);
+                // TC02: two hits of the sphere block the light (0.25 < 0.3), one hit does not
+                assertEquals(ktr == 0, isBlocked, "wrong blocking of " + shape);
+                if (ktr < 1) ++crossed;
+            }
+            assertTrue(crossed > 0, "no ray crossed " + shape);
+        }
+    }
+}
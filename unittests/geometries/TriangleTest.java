@@ -39,7 +39,7 @@ class TriangleTest {
         List<Point3D> points = new LinkedList<>();
         List<GeoPoint> results = triangle.findIntersections(new Ray(new Point3D(0.1, -3, 0.1), new Vector(0.0, 1.0, 0.0)));
         for (GeoPoint geo : results) {
-            points.add(geo._point);
+            points.add(geo.getPoint());
         }
         assertEquals(List.of(new Point3D(0.1, 1.0, 0.1)), points,
                 "Ray not intersected the triangle as expected");
@@ -0,0 +1,146 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelBVHTest {
+    /**
+     * Test method for {@link geometries.TwoLevelBVH#findIntersections(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        TwoLevelBVH forms = new TwoLevelBVH(
+                new Plane(new Point3D(2, 0, 0), new Vector(-1, 1, 0)),
+                new Sphere(2d, new Point3D(5, 0, 0)),
+                new Triangle(new Point3D(8.5, -1, 0), new Point3D(7.5, 1.5, 1), new Point3D(7.5, 1.5, -1))
+        );
+        Ray ray;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Some geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(7, 3, 0));
+        assertEquals(3, forms.findIntersections(ray).size(), "wrong intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Empty collection
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(1, 0, 0));
+        assertNull(new TwoLevelBVH().findIntersections(ray), "It is empty!");
+
+        // TC03: None geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(1, 3, 0));
+        assertNull(forms.findIntersections(ray), "wrong intersections");
+
+        // TC04: Single geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(4, 3, 0));
+        assertEquals(1, forms.findIntersections(ray).size(), "wrong intersections");
+
+        // TC05: All geo intersect
+        ray = new Ray(new Point3D(1, 0, 0), new Vector(7, 1, 0));
+        assertEquals(4, forms.findIntersections(ray).size(), "wrong intersections");
+    }
+
+    /**
+     * Editing the structure must rebuild only the top level and the changed objects
+     */
+    @Test
+    public void editObjects() {
+        Geometries group = new Geometries(
+                new Sphere(1d, new Point3D(0, 0, 5)),
+                new Triangle(new Point3D(-3, -3, 8), new Point3D(3, -3, 8), new Point3D(0, 3, 8)));
+        Sphere far = new Sphere(1d, new Point3D(0, 0, 20));
+        Instance copy = new Instance(group, Transform.translation(new Vector(10, 0, 0)));
+        TwoLevelBVH hierarchy = new TwoLevelBVH(group, far, copy);
+        assertEquals(2, hierarchy.getBottomLevelBuilds(), "the single sphere must wait for the top level");
+
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+        Ray copyRay = new Ray(new Point3D(10, 0, 0), new Vector(0, 0, 1));
+        assertEquals(5, hierarchy.findIntersections(ray).size(), "wrong intersections");
+        assertEquals(3, hierarchy.findIntersections(copyRay).size(), "wrong intersections of the instance");
+        assertEquals(1, hierarchy.getTopLevelBuilds(), "the top level must be built once");
+        assertEquals(3, hierarchy.getBottomLevelBuilds(), "wrong amount of bottom level builds");
+
+        // TC01: removing an object rebuilds only the top level
+        hierarchy.remove(far);
+        List<GeoPoint> result = hierarchy.findIntersections(ray);
+        assertEquals(3, result.size(), "wrong intersections after remove");
+        assertEquals(2, hierarchy.getTopLevelBuilds(), "the top level was not rebuilt");
+        assertEquals(3, hierarchy.getBottomLevelBuilds(), "bottom levels were rebuilt");
+
+        // TC02: adding an object builds only its bottom level
+        Sphere added = new Sphere(1d, new Point3D(10, 0, 30));
+        hierarchy.add(added);
+        assertEquals(5, hierarchy.findIntersections(copyRay).size(), "wrong intersections after add");
+        assertEquals(4, hierarchy.getBottomLevelBuilds(), "wrong amount of bottom level builds");
+
+        // TC03: an edited group is visible after update
+        group.add(new Sphere(0.5, new Point3D(0, 0, 12)));
+        hierarchy.update(group);
+        assertEquals(5, hierarchy.findIntersections(ray).size(), "group change was not updated");
+        assertEquals(5, hierarchy.getBottomLevelBuilds(), "wrong amount of bottom level builds");
+        assertEquals(7, hierarchy.findIntersections(copyRay).size(), "the instance must see the changed group");
+    }
+
+    /**
+     * Objects without a bounding box must stay out of the hierarchy
+     */
+    @Test
+    public void unboundedObjects() {
+        Plane floor = new Plane(new Point3D(0, -5, 0), new Vector(0, 1, 0));
+        TwoLevelBVH hierarchy = new TwoLevelBVH(floor,
+                new Sphere(1d, new Point3D(0, 0, 5)), new Sphere(1d, new Point3D(10, 0, 5)),
+                new Sphere(1d, new Point3D(0, 10, 5)), new Sphere(1d, new Point3D(10, 10, 5)));
+
+        // TC01: both the plane and the spheres are found
+        Ray ray = new Ray(new Point3D(0, 0, 0), new Vector(0, -1, 1));
+        assertEquals(1, hierarchy.findIntersections(ray).size(), "wrong intersections with the plane");
+        ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+        assertEquals(2, hierarchy.findIntersections(ray).size(), "wrong intersections with the sphere");
+        GeoPoint closest = hierarchy.findClosestIntersection(new Ray(new Point3D(10, 10, 0), new Vector(0, -1, 0)),
+                Double.POSITIVE_INFINITY);
+        assertEquals(floor, closest.getGeometry(), "wrong closest intersection");
+
+        // TC02: the spheres share one bottom level and the plane is not in the top level tree
+        assertEquals(1, hierarchy.getTopLevelStats().getPrimitives(), "the plane was put in the tree");
+        assertEquals(5, hierarchy.size(), "wrong amount of objects");
+        assertNull(hierarchy.getBoundingBox(), "a hierarchy with a plane is unbounded");
+        hierarchy.remove(floor);
+        assertNotNull(hierarchy.getBoundingBox(), "the spheres are bounded");
+
+        // TC03: the plane of a group is kept aside and the group keeps the box of its spheres
+        Geometries group = new Geometries(floor, new Sphere(1d, new Point3D(0, 0, 5)),
+                new Sphere(1d, new Point3D(10, 0, 5)));
+        hierarchy = new TwoLevelBVH(group, new Sphere(1d, new Point3D(0, 0, 50)));
+        ray = new Ray(new Point3D(0, 0, 0), new Vector(0, 0, 1));
+        assertEquals(4, hierarchy.findIntersections(ray).size(), "wrong intersections with the group");
+        ray = new Ray(new Point3D(0, 0, 0), new Vector(0, -1, 1));
+        assertEquals(1, hierarchy.findIntersections(ray).size(), "wrong intersections with the plane of the group");
+        assertEquals(2, hierarchy.getTopLevelStats().getPrimitives(), "the group was kept out of the tree");
+        assertNull(hierarchy.getBoundingBox(), "a hierarchy with a plane is unbounded");
+    }
+
+    /**
+     * The metrics of the linear top level
+     */
+    @Test
+    public void traversalStats() {
+        TwoLevelBVH hierarchy = new TwoLevelBVH(
+                new Sphere(1d, new Point3D(0, 0, 5)), new Sphere(1d, new Point3D(10, 0, 5)),
+                new Sphere(1d, new Point3D(0, 10, 5)), new Sphere(1d, new Point3D(10, 10, 5)));
+        assertEquals(0, hierarchy.getAverageTraversalSteps(), "no ray traversed the hierarchy");
+
+        // TC01: a ray that misses the root box visits only the root
+        Hit hit = new Hit();
+        assertFalse(hierarchy.intersect(new Ray(new Point3D(0, 0, 0), new Vector(0, 0, -1)), hit), "wrong hit");
+        assertEquals(1, hierarchy.getAverageTraversalSteps(), 1e-10, "wrong steps of a missing ray");
+
+        // TC02: the nodes of a tree over 4 objects and the memory of a node
+        assertEquals(hierarchy.getTopLevelStats().getNodes(), hierarchy.getNodeCount(), "wrong amount of nodes");
+        assertEquals(32, hierarchy.getBytesPerNode(), "wrong memory of a node");
+    }
+}
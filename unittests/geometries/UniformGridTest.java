@@ -0,0 +1,87 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.*;
+import geometries.Intersectable.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniformGridTest {
+    /**
+     * Test method for {@link geometries.UniformGrid#findIntersections(primitives.Ray, double)}
+     * and {@link geometries.UniformGrid#findClosestIntersection(primitives.Ray, double)}
+     */
+    @Test
+    public void findIntersections() {
+        Random random = new Random(13);
+        List<Intersectable> shapes = new ArrayList<>();
+        for (int i = 0; i < 500; ++i) {
+            Point3D p = new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            if (i % 2 == 0)
+                shapes.add(new Sphere(1 + random.nextDouble() * 3, p));
+            else
+                shapes.add(new Triangle(p, p.add(new Vector(8, 0, 2)), p.add(new Vector(0, 8, -2))));
+        }
+        shapes.add(new Plane(new Point3D(0, 0, 50), new Vector(0, 1, 1)));
+        Geometries flat = new Geometries(shapes.toArray(new Intersectable[0]));
+        UniformGrid grid = new UniformGrid(shapes);
+
+        for (int i = 0; i < 300; ++i) {
+            Point3D head = i % 3 == 0 // some rays start inside the grid
+                    ? new Point3D(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100)
+                    : new Point3D(-20, random.nextDouble() * 100, random.nextDouble() * 100);
+            Ray ray = new Ray(head, new Vector(1, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1));
+            // TC01: the same intersections as the plain list
+            List<GeoPoint> expected = flat.findIntersections(ray);
+            List<GeoPoint> result = grid.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "wrong intersections");
+            // TC02: the same closest intersection as the plain list
+            assertEquals(flat.findClosestIntersection(ray, Double.POSITIVE_INFINITY),
+                    grid.findClosestIntersection(ray, Double.POSITIVE_INFINITY), "wrong closest intersection");
+            // TC03: the max distance is kept
+            expected = flat.findIntersections(ray, 40);
+            result = grid.findIntersections(ray, 40);
+            assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                    "wrong intersections before the max distance");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC04: ray along an axis
+        Ray ray = new Ray(new Point3D(-20, 50, 50), new Vector(1, 0, 0));
+        List<GeoPoint> expected = flat.findIntersections(ray);
+        List<GeoPoint> result = grid.findIntersections(ray);
+        assertEquals(expected == null ? 0 : expected.size(), result == null ? 0 : result.size(),
+                "wrong intersections of an axis ray");
+
+        // TC05: empty grid
+        assertNull(new UniformGrid(List.of()).findIntersections(ray), "It is empty!");
+    }
+
+    /**
+     * The resolution follows the amount of shapes and the extent of the scene
+     */
+    @Test
+    public void resolution() {
+        // a flat floor of 20 x 20 squares (two triangles each)
+        List<Intersectable> floor = new ArrayList<>();
+        for (int i = 0; i < 20; ++i)
+            for (int j = 0; j < 20; ++j) {
+                floor.add(new Triangle(new Point3D(i, 0, j), new Point3D(i + 1, 0, j), new Point3D(i, 0, j + 1)));
+                floor.add(new Triangle(new Point3D(i + 1, 0, j + 1), new Point3D(i + 1, 0, j), new Point3D(i, 0, j + 1)));
+            }
+        UniformGrid grid = new UniformGrid(floor);
+        assertEquals(1, grid.getResolution(1), "a flat axis must have one cell");
+        assertEquals(grid.getResolution(0), grid.getResolution(2), "the cells must be square on the floor");
+        assertTrue(grid.getCellCount() > 100, "too few cells for 800 triangles");
+        assertNotNull(grid.getBoundingBox(), "the floor is bounded");
+
+        Ray ray = new Ray(new Point3D(5.3, -10, 5.6), new Vector(0.1, 1, 0.2));
+        assertEquals(1, grid.findIntersections(ray).size(), "wrong intersections with the floor");
+    }
+}
@@ -0,0 +1,51 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.RandomSampler class
+ */
+class RandomSamplerTest {
+    /**
+     * Test method for {@link RandomSampler#nextDouble()}
+     */
+    @Test
+    void nextDouble() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the numbers are in [0, 1) and their mean is about a half
+        RandomSampler sampler = new RandomSampler(7);
+        double sum = 0;
+        for (int i = 0; i < 10000; ++i) {
+            double u = sampler.nextDouble();
+            assertTrue(u >= 0 && u < 1, "nextDouble() out of [0, 1)");
+            sum += u;
+        }
+        assertEquals(0.5, sum / 10000, 0.02, "nextDouble() is not uniform");
+
+        // TC02: the same seed gives the same stream
+        RandomSampler first = new RandomSampler(42), second = new RandomSampler(1);
+        second.reset(42);
+        for (int i = 0; i < 100; ++i)
+            assertEquals(first.nextDouble(), second.nextDouble(), "reset() did not restart the stream");
+    }
+
+    /**
+     * Test method for {@link RandomSampler#pixelSeed(long, int, int)}
+     */
+    @Test
+    void pixelSeed() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the same pixel gets the same seed
+        assertEquals(RandomSampler.pixelSeed(3, 10, 20), RandomSampler.pixelSeed(3, 10, 20), "unstable pixel seed");
+
+        // TC02: different pixels and different images get different seeds
+        assertNotEquals(RandomSampler.pixelSeed(3, 10, 20), RandomSampler.pixelSeed(3, 20, 10), "same seed of pixels");
+        assertNotEquals(RandomSampler.pixelSeed(3, 10, 20), RandomSampler.pixelSeed(4, 10, 20), "same seed of images");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: neighbour pixels of the first row and column
+        assertNotEquals(RandomSampler.pixelSeed(0, 0, 1), RandomSampler.pixelSeed(0, 1, 0), "same seed of neighbours");
+    }
+}
@@ -0,0 +1,80 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.SamplePattern class
+ */
+class SamplePatternTest {
+    /**
+     * amount of the points of a pattern in every cell of a grid
+     */
+    private static int[] cells(double[] points, int side) {
+        int[] cells = new int[side * side];
+        for (int k = 0; k < points.length / 2; ++k) {
+            assertTrue(points[2 * k] >= 0 && points[2 * k] < 1 && points[2 * k + 1] >= 0 && points[2 * k + 1] < 1,
+                    "point out of the unit square");
+            ++cells[(int) (points[2 * k + 1] * side) * side + (int) (points[2 * k] * side)];
+        }
+        return cells;
+    }
+
+    /**
+     * Test method for {@link SamplePattern#getPoints(int, Sampler)}
+     */
+    @Test
+    void getPoints() {
+        RandomSampler sampler = new RandomSampler(5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: all the patterns are in the unit square
+        for (SamplePattern pattern : SamplePattern.values())
+            cells(pattern.getPoints(100, sampler), 1);
+
+        // TC02: stratified and Sobol points - one point in every cell of a grid of their amount
+        for (SamplePattern pattern : new SamplePattern[]{SamplePattern.STRATIFIED, SamplePattern.SOBOL})
+            for (int cell : cells(pattern.getPoints(16, sampler), 4))
+                assertEquals(1, cell, pattern + " left a cell without a point");
+
+        // TC03: blue noise points are not close to each other (independent random points are)
+        double[] points = SamplePattern.BLUE_NOISE.getPoints(16, sampler);
+        for (int i = 0; i < 16; ++i)
+            for (int j = 0; j < i; ++j) {
+                double dx = Math.abs(points[2 * i] - points[2 * j]), dy = Math.abs(points[2 * i + 1] - points[2 * j + 1]);
+                dx = Math.min(dx, 1 - dx);
+                dy = Math.min(dy, 1 - dy);
+                assertTrue(dx * dx + dy * dy > 0.15 * 0.15, "blue noise points are too close");
+            }
+
+        // TC05: stratified points of an amount that is not a square cover all the square evenly
+        for (int amount : new int[]{2, 3, 5, 6, 7}) {
+            double sumX = 0, sumY = 0;
+            int sets = 20000;
+            for (int i = 0; i < sets; ++i) {
+                points = SamplePattern.STRATIFIED.getPoints(amount, sampler);
+                for (int k = 0; k < amount; ++k) {
+                    sumX += points[2 * k];
+                    sumY += points[2 * k + 1];
+                }
+            }
+            assertEquals(0.5, sumX / (sets * amount), 0.005, "stratified points of " + amount + " are biased in x");
+            assertEquals(0.5, sumY / (sets * amount), 0.005, "stratified points of " + amount + " are biased in y");
+        }
+
+        // TC04: the prefixes of the sequences are spread evenly too
+        for (int cell : cells(SamplePattern.SOBOL.getPoints(64, sampler), 2))
+            assertEquals(16, cell, "a prefix of the Sobol points is not stratified");
+        assertTrue(SamplePattern.SOBOL.isProgressive() && !SamplePattern.STRATIFIED.isProgressive(),
+                "wrong progressive patterns");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single point
+        assertEquals(2, SamplePattern.HALTON.getPoints(1, sampler).length, "wrong amount of points");
+
+        // TC12: no points
+        assertThrows(IllegalArgumentException.class, () -> SamplePattern.SOBOL.getPoints(0, sampler),
+                "no points must throw an exception");
+    }
+}
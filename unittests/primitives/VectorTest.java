@@ -157,4 +157,32 @@ class VectorTest {
             assertEquals("Vector Zero is not valid for head", ex.getMessage());
         }
     }
+
+    /**
+     * Test method for {@link Vector#normalize()}, {@link Vector#dotProduct(Vector)} and
+     * {@link Vector#length()} in fast math mode
+     */
+    @Test
+    void fastMath() {
+        Vector v1 = new Vector(3.5, -5, 10);
+        Vector v2 = new Vector(-2, 4.25, 0.5);
+        double dot = v1.dotProduct(v2), length = v1.length();
+        Vector normalized = new Vector(v1).normalized();
+        Util.setFastMath(true);
+        try {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Same results as the default mode within rounding
+            assertEquals(dot, v1.dotProduct(v2), 1e-12, "wrong dot product");
+            assertEquals(length, v1.length(), 1e-12, "wrong length");
+            Vector fast = new Vector(v1).normalized();
+            assertEquals(1, fast.length(), 1e-15, "wrong normalized length");
+            assertEquals(normalized, fast, "wrong normalized vector");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: Tiny coordinates are kept as they are
+            assertEquals(1e-15, new Vector(1, 1e-15, 0).get_head().get_y().get(), "the coordinate was aligned");
+        } finally {
+            Util.setFastMath(false);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package renderer;
+
+import elements.*;
+import geometries.*;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The acceleration structures on the scenes of the project.
+ * Every structure must render exactly the same image, and the hierarchy must visit a logarithmic
+ * amount of its nodes per ray.
+ */
+public class AccelerationBenchmarkTest {
+    /**
+     * the checkerboard floor with the spheres of the mini project
+     *
+     * @param tiles amount of tiles on a side of the floor
+     */
+    private static Scene floorScene(int tiles) {
+        Scene scene = new Scene.SceneBuilder("Benchmark floor")
+                .addAmbientLight(new AmbientLight(Color.BLACK, 0))
+                .addCamera(new Camera(new Point3D(0, -200, 0), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(100)
+                .addBackground(new Color(java.awt.Color.gray))
+                .build();
+        double size = 4000d / tiles;
+        for (int i = 0; i < tiles; ++i)
+            for (int j = 0; j < tiles / 2; ++j) {
+                double x = -2000 + i * size, z = j * size;
+                scene.addGeometries(
+                        new Triangle(new Color(120, 120, 120), new Material(0.5, 0.5, 60, 0, 0),
+                                new Point3D(x, 0, z), new Point3D(x + size, 0, z), new Point3D(x, 0, z + size)),
+                        new Triangle(new Color(0, 0, 0), new Material(0.5, 0.5, 60, 0, 0.7),
+                                new Point3D(x, 0, z + size), new Point3D(x + size, 0, z + size), new Point3D(x + size, 0, z)));
+            }
+        scene.addGeometries(
+                new Sphere(new Color(java.awt.Color.BLUE), new Material(0.5, 0.5, 80, 0, 0.7), 100,
+                        new Point3D(-160, -100, 500)),
+                new Sphere(new Color(java.awt.Color.green), new Material(0.5, 0.5, 50, 0.7, 0.2), 100,
+                        new Point3D(-500, -100, 400)),
+                new Sphere(new Color(java.awt.Color.magenta), new Material(0.5, 0.5, 70, 0, 0), 250,
+                        new Point3D(-600, -250, 800)),
+                new Sphere(new Color(java.awt.Color.RED), new Material(0.5, 0.5, 90, 0, 0.2), 150,
+                        new Point3D(450, -150, 350)));
+        scene.addLights(new PointLight(new Color(50, 100, 100), new Point3D(0, -1000, 1000), 1, 1E-5, 1.5E-7));
+        scene.addLights(new DirectionalLight(new Color(50, 100, 100), new Vector(0, 1, -1)));
+        scene.addLights(new SpotLight(new Color(100, 100, 50), new Point3D(500, -500, 0),
+                new Vector(-1, 1, 1), 1, 1E-5, 1.5E-7));
+        return scene;
+    }
+
+    /**
+     * render a scene with some acceleration structures, check the traversal of the hierarchy and compare the images
+     */
+    private static void benchmark(String name, Scene scene, Scene.Acceleration... accelerations) {
+        int[][] reference = null;
+        for (Scene.Acceleration acceleration : accelerations) {
+            scene.setAcceleration(acceleration);
+            PixelsWriter writer = new PixelsWriter(name, 400, 200, 200, 100);
+            new Render(writer, scene).renderImage();
+            if (acceleration == Scene.Acceleration.TWO_LEVEL) {
+                TwoLevelBVH hierarchy = scene.getHierarchy();
+                double steps = hierarchy.getAverageTraversalSteps();
+                double logarithm = Math.log(hierarchy.getNodeCount()) / Math.log(2);
+                assertTrue(steps < 8 * logarithm, name + ": too many traversal steps per ray: " + steps + " of "
+                        + hierarchy.getNodeCount() + " nodes");
+            }
+
+            if (reference == null)
+                reference = writer.getPixels();
+            else
+                for (int y = 0; y < reference.length; ++y)
+                    assertArrayEquals(reference[y], writer.getPixels()[y], acceleration + " rendered a different image");
+        }
+    }
+
+    /**
+     * The floor of the mini project
+     */
+    @Test
+    public void miniProjectFloor() {
+        benchmark("mini project floor", floorScene(8), Scene.Acceleration.values());
+    }
+
+    /**
+     * A dense floor of many equal triangles (too slow for the flat structure)
+     */
+    @Test
+    public void denseFloor() {
+        benchmark("dense floor", floorScene(64), Scene.Acceleration.TWO_LEVEL, Scene.Acceleration.GRID);
+    }
+}
@@ -7,9 +7,173 @@ import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 public class BeamTest {
     @Test
     public void trianglesSphereBeam() {
+        Render render = new Render(new ImageWriter("trianglesSphereBeam", 200, 200, 600, 600), beamScene(0))
+                .setSupersamplingDensity(0.5)
+                .setRayCounter(2)
+                .setMultithreading(3)
+                .setDebugPrint();
+
+        render.renderImage();
+        render.writeToImage();
+    }
+
+    /**
+     * A seeded render is the same whatever the amount of threads
+     */
+    @Test
+    public void trianglesSphereBeamSeeded() {
+        int[][] reference = null;
+        for (int threads : new int[]{1, 3, 3}) {
+            PixelsWriter writer = new PixelsWriter("trianglesSphereBeamSeeded", 200, 200, 200, 200);
+            new Render(writer, beamScene(10))
+                    .setSupersamplingDensity(0.5)
+                    .setRayCounter(8)
+                    .setSoftShadows(4)
+                    .setMultithreading(threads)
+                    .setSeed(2020)
+                    .renderImage();
+            if (reference == null)
+                reference = writer.getPixels();
+            else
+                for (int y = 0; y < reference.length; ++y)
+                    assertArrayEquals(reference[y], writer.getPixels()[y], threads + " threads rendered a different image");
+        }
+    }
+
+    /**
+     * The low discrepancy patterns anti-alias the edges closer to the converged image than
+     * the same amount of random rays
+     */
+    @Test
+    public void trianglesSpherePatterns() {
+        int[][] reference = convergedBeamImage();
+        double random = 0;
+        for (SamplePattern pattern : SamplePattern.values()) {
+            PixelsWriter writer = new PixelsWriter("trianglesSpherePatterns", 200, 200, 100, 100);
+            new Render(writer, beamScene(0)).setSamplePattern(pattern).setRayCounter(16)
+                    .setMultithreading(3).setSeed(2).renderImage();
+            double difference = PixelsWriter.difference(reference, writer.getPixels());
+            if (pattern == SamplePattern.RANDOM)
+                random = difference;
+            else
+                assertTrue(difference < random, pattern + " is not better than random rays: average difference "
+                        + difference + ", random " + random);
+        }
+    }
+
+    /**
+     * The variance driven supersampling reaches the quality of a fixed amount of rays with
+     * fewer rays - the flat pixels are done after a single batch
+     */
+    @Test
+    public void trianglesSphereVariance() {
+        int[][] reference = convergedBeamImage();
+
+        PixelsWriter writer = new PixelsWriter("trianglesSphereVariance", 200, 200, 100, 100);
+        new Render(writer, beamScene(0)).setSamplePattern(SamplePattern.STRATIFIED).setRayCounter(16)
+                .setMultithreading(3).setSeed(2).renderImage();
+        double fixed = PixelsWriter.difference(reference, writer.getPixels());
+
+        writer = new PixelsWriter("trianglesSphereVariance", 200, 200, 100, 100);
+        Render render = new Render(writer, beamScene(0)).setVarianceSampling(4, 64, 1)
+                .setMultithreading(3).setSeed(2);
+        render.renderImage();
+        double variance = PixelsWriter.difference(reference, writer.getPixels());
+        assertTrue(render.getAverageRaysPerPixel() < 10, "too many rays per pixel: " + render.getAverageRaysPerPixel());
+        assertTrue(variance <= fixed, "the variance driven image is worse than the fixed rays: average difference "
+                + variance + ", 16 rays " + fixed);
+    }
+
+    /**
+     * The adaptive supersampling anti-aliases the edges with a few rays per pixel - the flat pixels cost
+     * a ray of their shared corners
+     */
+    @Test
+    public void trianglesSphereAdaptive() {
+        int[][] reference = convergedBeamImage();
+        PixelsWriter writer = new PixelsWriter("trianglesSphereAdaptive", 200, 200, 100, 100);
+        new Render(writer, beamScene(0)).renderImage2();
+        double single = PixelsWriter.difference(reference, writer.getPixels());
+
+        writer = new PixelsWriter("trianglesSphereAdaptive", 200, 200, 100, 100);
+        Render render = new Render(writer, beamScene(0), true);
+        render.renderImage();
+        double adaptive = PixelsWriter.difference(reference, writer.getPixels());
+        assertTrue(adaptive < single, "the adaptive supersampling did not anti-alias: average difference "
+                + adaptive + ", a ray per pixel " + single);
+        assertTrue(render.getAverageRaysPerPixel() < 3, "the adaptive supersampling traced too many rays: "
+                + render.getAverageRaysPerPixel() + " per pixel");
+    }
+
+    /**
+     * The depth of field blurs the geometries far from the focal plane - with the adaptive supersampling
+     * the aperture rays are traced only where the blur varies
+     */
+    @Test
+    public void spheresDepthOfField() {
+        PixelsWriter pinhole = new PixelsWriter("spheresDepthOfField", 200, 200, 100, 100);
+        new Render(pinhole, depthScene()).renderImage2();
+
+        // the middle sphere is in focus, the near and the far spheres are blurred
+        int[][][] images = new int[2][][];
+        for (int k = 0; k < 2; ++k) {
+            Scene scene = depthScene();
+            scene.getCamera().setDepthOfField(40, 950, 32);
+            PixelsWriter writer = new PixelsWriter("spheresDepthOfField", 200, 200, 100, 100);
+            Render render = new Render(writer, scene, k == 1).setMultithreading(3).setSeed(3);
+            if (k == 0)
+                render.renderImage2();
+            else
+                render.renderImage();
+            images[k] = writer.getPixels();
+        }
+        double blur = PixelsWriter.difference(pinhole.getPixels(), images[0]);
+        double adaptive = PixelsWriter.difference(images[0], images[1]);
+        assertTrue(blur > 0.1, "the depth of field did not blur: average difference " + blur + " from the pinhole");
+        assertTrue(adaptive < blur / 2, "the adaptive depth of field is too far from the full: average difference "
+                + adaptive + ", blur " + blur);
+    }
+
+    /**
+     * three spheres at different distances in front of a wall
+     */
+    private static Scene depthScene() {
+        Scene scene = new Scene.SceneBuilder("Depth scene")
+                .addAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.1))
+                .addCamera(new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addBackground(Color.BLACK)
+                .build();
+        scene.addGeometries(
+                new Plane(new Color(40, 40, 60), new Material(0.8, 0, 0), new Point3D(0, 0, 600), new Vector(0, 0, -1)),
+                new Sphere(new Color(java.awt.Color.RED), new Material(0.6, 0.2, 30), 25, new Point3D(-40, 0, -300)),
+                new Sphere(new Color(java.awt.Color.GREEN), new Material(0.6, 0.2, 30), 30, new Point3D(0, 0, -20)),
+                new Sphere(new Color(java.awt.Color.BLUE), new Material(0.6, 0.2, 30), 50, new Point3D(60, 20, 400)));
+        scene.addLights(new PointLight(new Color(500, 500, 500), new Point3D(-200, -200, -600), 1, 1E-4, 5E-6));
+        return scene;
+    }
+
+    /**
+     * the image of the beam scene by 256 rays per pixel
+     */
+    private static int[][] convergedBeamImage() {
+        PixelsWriter writer = new PixelsWriter("trianglesSphereConverged", 200, 200, 100, 100);
+        new Render(writer, beamScene(0)).setSamplePattern(SamplePattern.STRATIFIED).setRayCounter(256)
+                .setMultithreading(3).setSeed(1).renderImage();
+        return writer.getPixels();
+    }
+
+    /**
+     * the triangles and the sphere of the beam tests
+     *
+     * @param lightRadius the radius of the area of the light (0 for a point light)
+     */
+    private static Scene beamScene(double lightRadius) {
         Scene scene;
         scene = new Scene.SceneBuilder("Test scene")
                 .addAmbientLight(new AmbientLight(Color.BLACK, 0))
@@ -45,17 +209,8 @@ public class BeamTest {
                         new Color(700, 400, 400), //
                         new Point3D(40, -40, -115),
                         new Vector(-1, 1, 4),
-                        1, 4E-4, 2E-5));
-
-        ImageWriter imageWriter = new ImageWriter("trianglesSphereBeam", 200, 200, 600, 600);
-        Render render = new Render(imageWriter, scene)
-                .setSupersamplingDensity(0.5)
-                .setRayCounter(2)
-                .setMultithreading(3)
-                .setDebugPrint();
-
-        render.renderImage();
-        render.writeToImage();
+                        1, 4E-4, 2E-5).setRadius(lightRadius));
+        return scene;
     }
 
 }
@@ -0,0 +1,128 @@
+package renderer;
+
+import elements.*;
+import geometries.*;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The images of the fast math mode (coordinates without alignment to zero) must be the same as
+ * the images of the default mode within a tolerance
+ */
+public class FastMathTest {
+    /**
+     * the max average difference of the color components
+     */
+    private static final double MAX_DIFFERENCE = 0.05;
+    /**
+     * the max part of the pixels that may differ
+     */
+    private static final double MAX_DIFFERENT_PIXELS = 0.002;
+
+    /**
+     * render a scene in the default mode and in the fast math mode and compare the images
+     */
+    private static void compare(String name, Scene scene, int nX, int nY) {
+        PixelsWriter strict = new PixelsWriter(name, nX, nY, nX, nY);
+        new Render(strict, scene).renderImage();
+        PixelsWriter fast = new PixelsWriter(name, nX, nY, nX, nY);
+        Util.setFastMath(true);
+        try {
+            new Render(fast, scene).renderImage();
+        } finally {
+            Util.setFastMath(false);
+        }
+
+        int different = 0;
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                if (strict.getPixels()[y][x] != fast.getPixels()[y][x])
+                    ++different;
+        double difference = PixelsWriter.difference(strict.getPixels(), fast.getPixels());
+        assertTrue(difference < MAX_DIFFERENCE, "the fast math image of " + name + " is different: average difference "
+                + difference);
+        assertTrue(different < MAX_DIFFERENT_PIXELS * nX * nY, "too many different pixels in " + name + ": " + different);
+    }
+
+    /**
+     * Spheres reflected by a mirror triangle and seen through a transparent triangle
+     */
+    @Test
+    public void spheresOnMirrors() {
+        Scene scene = new Scene.SceneBuilder("Fast math mirrors")
+                .addAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1))
+                .addCamera(new Camera(new Point3D(0, 0, -10000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(10000)
+                .addBackground(Color.BLACK)
+                .build();
+        scene.addGeometries(
+                new Sphere(new Color(0, 0, 100), new Material(0.25, 0.25, 20, 0.5, 0), 400,
+                        new Point3D(-950, 900, 1000)),
+                new Sphere(new Color(100, 20, 20), new Material(0.25, 0.25, 20), 200,
+                        new Point3D(-950, 900, 1000)),
+                new Triangle(new Color(20, 20, 20), new Material(0, 0, 0, 0, 1),
+                        new Point3D(1500, 1500, 1500), new Point3D(-1500, -1500, 1500), new Point3D(670, -670, -3000)),
+                new Triangle(new Color(20, 20, 20), new Material(0, 0, 0, 0, 0.5),
+                        new Point3D(1500, 1500, 1500), new Point3D(-1500, -1500, 1500), new Point3D(-1500, 1500, 2000)));
+        scene.addLights(new SpotLight(new Color(1020, 400, 400), new Point3D(-750, 750, 150),
+                new Vector(-1, 1, 4), 1, 0.00001, 0.000005));
+        compare("spheres on mirrors", scene, 200, 200);
+    }
+
+    /**
+     * Two triangles with a common edge and the partial shadow of a transparent sphere
+     */
+    @Test
+    public void trianglesTransparentSphere() {
+        Scene scene = new Scene.SceneBuilder("Fast math shadow")
+                .addCamera(new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.15))
+                .addBackground(Color.BLACK)
+                .build();
+        scene.addGeometries(
+                new Triangle(Color.BLACK, new Material(0.5, 0.5, 60),
+                        new Point3D(-150, 150, 115), new Point3D(150, 150, 135), new Point3D(75, -75, 150)),
+                new Triangle(Color.BLACK, new Material(0.5, 0.5, 60),
+                        new Point3D(-150, 150, 115), new Point3D(-70, -70, 140), new Point3D(75, -75, 150)),
+                new Sphere(new Color(java.awt.Color.BLUE), new Material(0.2, 0.2, 30, 0.6, 0), 30,
+                        new Point3D(60, -50, 50)));
+        scene.addLights(new SpotLight(new Color(700, 400, 400), new Point3D(60, -50, 0), new Vector(0, 0, 1),
+                1, 4E-5, 2E-7));
+        compare("transparent sphere", scene, 200, 200);
+    }
+
+    /**
+     * An axis aligned checkerboard floor - the coordinates and the directions have many zeros
+     */
+    @Test
+    public void checkerboardFloor() {
+        Scene scene = new Scene.SceneBuilder("Fast math floor")
+                .addAmbientLight(new AmbientLight(Color.BLACK, 0))
+                .addCamera(new Camera(new Point3D(0, -200, 0), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(100)
+                .addBackground(new Color(java.awt.Color.gray))
+                .build();
+        double size = 500;
+        for (int i = 0; i < 8; ++i)
+            for (int j = 0; j < 4; ++j) {
+                double x = -2000 + i * size, z = j * size;
+                scene.addGeometries(
+                        new Triangle(new Color(120, 120, 120), new Material(0.5, 0.5, 60, 0, 0),
+                                new Point3D(x, 0, z), new Point3D(x + size, 0, z), new Point3D(x, 0, z + size)),
+                        new Triangle(new Color(0, 0, 0), new Material(0.5, 0.5, 60, 0, 0.7),
+                                new Point3D(x, 0, z + size), new Point3D(x + size, 0, z + size), new Point3D(x + size, 0, z)));
+            }
+        scene.addGeometries(
+                new Sphere(new Color(java.awt.Color.BLUE), new Material(0.5, 0.5, 80, 0, 0.7), 100,
+                        new Point3D(-160, -100, 500)),
+                new Sphere(new Color(java.awt.Color.RED), new Material(0.5, 0.5, 90, 0, 0.2), 150,
+                        new Point3D(450, -150, 350)));
+        scene.addLights(new PointLight(new Color(50, 100, 100), new Point3D(0, -1000, 1000), 1, 1E-5, 1.5E-7));
+        scene.addLights(new DirectionalLight(new Color(50, 100, 100), new Vector(0, 1, -1)));
+        compare("checkerboard floor", scene, 200, 100);
+    }
+}
@@ -6,6 +6,10 @@ import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
 
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
  * Test rendering a basic image
  */
@@ -175,4 +179,113 @@ public class LightsTests {
         render.writeToImage();
     }
 
-}
\ No newline at end of file
+    /**
+     * a floor lighted by a grid of weak lamps - every lamp lights only a small circle of the floor
+     */
+    private static Scene lampsScene() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .addAmbientLight(new AmbientLight(new Color(java.awt.Color.WHITE), 0.15))
+                .addCamera(new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addBackground(Color.BLACK)
+                .build();
+
+        scene.addGeometries(new Plane(new Color(30, 30, 30), new Material(0.5, 0.5, 100),
+                new Point3D(0, 0, 100), new Vector(0, 0, -1)));
+        for (int i = -3; i <= 3; ++i)
+            for (int j = -3; j <= 3; ++j)
+                if ((i + j) % 2 == 0)
+                    scene.addLights(new PointLight(new Color(300, 200, 100), new Point3D(i * 30, j * 30, 90),
+                            1, 0.01, 0.05));
+                else
+                    scene.addLights(new SpotLight(new Color(100, 200, 300), new Point3D(i * 30, j * 30, 90),
+                            new Vector(i, j, 3), 1, 0.01, 0.05, 4));
+        return scene;
+    }
+
+    /**
+     * render the lamps scene and keep the pixels
+     *
+     * @param setup the settings of the render
+     */
+    private static int[][] renderLamps(String name, Consumer<Render> setup) {
+        PixelsWriter imageWriter = new PixelsWriter(name, 200, 200, 300, 300);
+        Render render = new Render(imageWriter, lampsScene());
+        setup.accept(render);
+        render.renderImage();
+        render.writeToImage();
+        return imageWriter.getPixels();
+    }
+
+    /**
+     * The light culling skips most of the lamps at every point without changing the image
+     */
+    @Test
+    public void lampsCulling() {
+        Render[] renders = new Render[2];
+        int[][] expected = renderLamps("lampsCulling", render -> renders[0] = render.setLightCulling(false));
+        int[][] result = renderLamps("lampsCulling", render -> renders[1] = render.setLightCulling(true));
+        assertEquals(0, renders[0].getCulledLightCount(), "no light may be culled without the culling");
+        long culled = renders[1].getCulledLightCount();
+        assertTrue(culled > 90000L * 10, "too few lights were culled: " + culled);
+        for (int y = 0; y < expected.length; ++y)
+            assertArrayEquals(expected[y], result[y], "the culling changed the image");
+    }
+
+    /**
+     * The lamps chosen by importance converge to the image of all the lamps with more samples
+     */
+    @Test
+    public void lampsSampled() {
+        int[][] expected = renderLamps("lampsAll", render -> {
+        });
+        double error1 = PixelsWriter.difference(expected,
+                renderLamps("lampsSampled1", render -> render.setLightSamples(1)));
+        double error16 = PixelsWriter.difference(expected,
+                renderLamps("lampsSampled16", render -> render.setLightSamples(16)));
+        assertTrue(error16 < error1, "more light samples must converge: average difference " + error16
+                + ", 1 light sample " + error1);
+        assertTrue(error16 < 1, "16 light samples are too far from all the lights: average difference " + error16);
+    }
+
+    /**
+     * A cluster of strong lamps that are too far (by their attenuation) to light the floor takes
+     * most of the light samples - the samples that choose it count as no light, and the image of the
+     * samples converges to the image of all the lamps
+     */
+    @Test
+    public void lampsCulledCluster() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .addAmbientLight(new AmbientLight(Color.BLACK, 0))
+                .addCamera(new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addBackground(Color.BLACK)
+                .build();
+        scene.addGeometries(new Plane(new Color(30, 30, 30), new Material(0.5, 0.5, 100),
+                new Point3D(0, 0, 100), new Vector(0, 0, -1)));
+        scene.addLights(new PointLight(new Color(300, 200, 100), new Point3D(0, 0, 0), 1, 0.0005, 0.00005));
+        for (int i = 0; i < 8; ++i)
+            scene.addLights(new PointLight(new Color(500, 500, 500), new Point3D(-150 + (i % 2) * 10, 0, -200 - i * 10),
+                    1, 0, 10));
+
+        int[][][] images = new int[2][][];
+        for (int samples = 0; samples < 2; ++samples) {
+            PixelsWriter imageWriter = new PixelsWriter("lampsCulledCluster", 200, 200, 100, 100);
+            new Render(imageWriter, scene).setLightSamples(samples * 16).renderImage();
+            images[samples] = imageWriter.getPixels();
+        }
+        double all = brightness(images[0]), sampled = brightness(images[1]);
+        assertEquals(all, sampled, all * 0.02, "the light samples of the culled cluster darkened the image");
+    }
+
+    /**
+     * the average of the color components of an image
+     */
+    private static double brightness(int[][] pixels) {
+        double sum = 0;
+        for (int[] row : pixels)
+            for (int rgb : row)
+                sum += ((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF);
+        return sum / (3.0 * pixels.length * pixels[0].length);
+    }
+}
@@ -0,0 +1,44 @@
+package renderer;
+
+/**
+ * Image writer that keeps the pixels to compare the images of the tests
+ */
+class PixelsWriter extends ImageWriter {
+    private final int[][] _pixels;
+
+    PixelsWriter(String imageName, double width, double height, int nX, int nY) {
+        super(imageName, width, height, nX, nY);
+        _pixels = new int[nY][nX];
+    }
+
+    @Override
+    public void writePixel(int xIndex, int yIndex, java.awt.Color color) {
+        super.writePixel(xIndex, yIndex, color);
+        _pixels[yIndex][xIndex] = color.getRGB();
+    }
+
+    /**
+     * get the written pixels
+     *
+     * @return the RGB of the pixels by rows
+     */
+    int[][] getPixels() {
+        return _pixels;
+    }
+
+    /**
+     * average difference of the color components of two images
+     *
+     * @param expected the pixels of one image
+     * @param result   the pixels of the other image
+     * @return the average difference
+     */
+    static double difference(int[][] expected, int[][] result) {
+        long sum = 0;
+        for (int y = 0; y < expected.length; ++y)
+            for (int x = 0; x < expected[y].length; ++x)
+                for (int shift = 0; shift < 24; shift += 8)
+                    sum += Math.abs((expected[y][x] >> shift & 0xFF) - (result[y][x] >> shift & 0xFF));
+        return (double) sum / (expected.length * expected[0].length * 3);
+    }
+}
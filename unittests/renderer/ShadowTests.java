@@ -5,6 +5,9 @@ import geometries.*;
 import org.junit.jupiter.api.Test;
 import primitives.*;
 import scene.Scene;
+import scene.ShadowMap;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ShadowTests {
 
@@ -319,4 +322,150 @@ public class ShadowTests {
         render.renderImage();
         render.writeToImage();
     }
-}
\ No newline at end of file
+
+    /**
+     * the scene of two triangles lighted by a spot light with an area, and a Sphere between them
+     */
+    private Scene trianglesSphereAreaLightScene() {
+        Scene scene;
+        scene = new Scene.SceneBuilder("Test scene")
+                .addAmbientLight(new AmbientLight(Color.BLACK, 0))
+                .addCamera(
+                        new Camera(
+                                new Point3D(0, 0, -1000),
+                                new Vector(0, 0, 1),
+                                new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addBackground(Color.BLACK)
+                .build();
+
+        scene.addGeometries( //
+                new Triangle(
+                        Color.BLACK,
+                        new Material(0, 0.8, 60), //
+                        new Point3D(-150, 150, 115),
+                        new Point3D(150, 150, 135),
+                        new Point3D(75, -75, 150)), //
+                new Triangle(
+                        Color.BLACK, new Material(0, 0.8, 60), //
+                        new Point3D(-150, 150, 115),
+                        new Point3D(-70, -70, 140),
+                        new Point3D(75, -75, 150)), //
+                new Sphere(
+                        new Color(java.awt.Color.BLUE),
+                        new Material(0.5, 0.5, 30), // )
+                        30,
+                        new Point3D(0, 0, 115)));
+
+        scene.addLights(
+                new SpotLight(
+                        new Color(700, 400, 400), //
+                        new Point3D(40, -40, -115),
+                        new Vector(-1, 1, 4),
+                        1, 4E-4, 2E-5).setRadius(15));
+        return scene;
+    }
+
+    /**
+     * Produce a picture of a two triangles lighted by a spot light with an area - the Sphere produces a soft shadow
+     */
+    @Test
+    public void trianglesSphereSoftShadow() {
+        ImageWriter imageWriter = new ImageWriter("trianglesSphereSoftShadow", 200, 200, 600, 600);
+        Render render = new Render(imageWriter, trianglesSphereAreaLightScene()).setSoftShadows(16);
+
+        render.renderImage();
+        render.writeToImage();
+    }
+
+    /**
+     * Produce the soft shadow with adaptive sampling - only the penumbra gets all the shadow rays
+     */
+    @Test
+    public void trianglesSphereAdaptiveSoftShadow() {
+        Render full = new Render(new ImageWriter("trianglesSphereSoftShadow64", 200, 200, 300, 300),
+                trianglesSphereAreaLightScene()).setSoftShadows(64);
+        full.renderImage();
+        full.writeToImage();
+
+        ImageWriter imageWriter = new ImageWriter("trianglesSphereAdaptiveSoftShadow", 200, 200, 300, 300);
+        Render render = new Render(imageWriter, trianglesSphereAreaLightScene())
+                .setSoftShadows(64)
+                .setAdaptiveSoftShadows(true);
+        render.renderImage();
+        render.writeToImage();
+
+        assertTrue(render.getShadowRayCount() * 5 < full.getShadowRayCount(), "adaptive soft shadows traced too many rays: "
+                + render.getShadowRayCount() + " of " + full.getShadowRayCount());
+    }
+
+    /**
+     * The occluder cache must answer most of the shadow rays inside the shadow without a scene query
+     */
+    @Test
+    public void trianglesSphereOccluderCache() {
+        ImageWriter imageWriter = new ImageWriter("trianglesSphereOccluderCache", 200, 200, 300, 300);
+        Render render = new Render(imageWriter, trianglesSphereAreaLightScene()).setSoftShadows(16);
+        render.renderImage();
+        render.writeToImage();
+
+        assertTrue(render.getOccluderCacheCoverage() > 0.9, "the occluder cache missed too many blocked rays: "
+                + render.getOccluderCacheCoverage() + " answered by the cache");
+    }
+
+    /**
+     * the scene of two triangles lighted by a spot light and a directional light, with an opaque
+     * Sphere and a transparent Sphere between them
+     */
+    private Scene trianglesSpheresTwoLightsScene() {
+        Scene scene = new Scene.SceneBuilder("Test scene")
+                .addAmbientLight(new AmbientLight(Color.BLACK, 0))
+                .addCamera(new Camera(new Point3D(0, 0, -1000), new Vector(0, 0, 1), new Vector(0, -1, 0)))
+                .addDistance(1000)
+                .addBackground(Color.BLACK)
+                .build();
+
+        scene.addGeometries( //
+                new Triangle(Color.BLACK, new Material(0, 0.8, 60), //
+                        new Point3D(-150, 150, 115), new Point3D(150, 150, 135), new Point3D(75, -75, 150)), //
+                new Triangle(Color.BLACK, new Material(0, 0.8, 60), //
+                        new Point3D(-150, 150, 115), new Point3D(-70, -70, 140), new Point3D(75, -75, 150)), //
+                new Sphere(new Color(java.awt.Color.BLUE), new Material(0.5, 0.5, 30), //
+                        30, new Point3D(0, 0, 115)),
+                new Sphere(new Color(java.awt.Color.GREEN), new Material(0.5, 0.5, 30, 0.6, 0), //
+                        15, new Point3D(-60, 60, 90)));
+
+        scene.addLights(new SpotLight(new Color(700, 400, 400), //
+                new Point3D(40, -40, -115), new Vector(-1, 1, 4), 1, 4E-4, 2E-5));
+        scene.addLights(new DirectionalLight(new Color(150, 150, 250), new Vector(1, -0.5, 2)));
+        return scene;
+    }
+
+    /**
+     * The shadow maps answer the shadows of the spot and the directional lights without shadow rays,
+     * and they are kept by the scene for the next renders
+     */
+    @Test
+    public void trianglesSpheresShadowMaps() {
+        Scene scene = trianglesSpheresTwoLightsScene();
+        PixelsWriter rays = new PixelsWriter("trianglesSpheresShadowRays", 200, 200, 400, 400);
+        Render render = new Render(rays, scene);
+        render.renderImage();
+        render.writeToImage();
+
+        PixelsWriter maps = new PixelsWriter("trianglesSpheresShadowMaps", 200, 200, 400, 400);
+        render = new Render(maps, scene).setShadowMaps(1024);
+        render.renderImage();
+        render.writeToImage();
+        assertEquals(0, render.getShadowRayCount(), "the shadow maps must answer all the shadows");
+        double difference = PixelsWriter.difference(rays.getPixels(), maps.getPixels());
+        assertTrue(difference < 1, "the shadow maps are too far from the shadow rays: average difference " + difference);
+
+        // a second render uses the same maps
+        LightSource spot = scene.getLightSources().get(0);
+        ShadowMap map = scene.getShadowMap(spot, 1024);
+        new Render(new ImageWriter("trianglesSpheresShadowMaps", 200, 200, 400, 400), scene)
+                .setShadowMaps(1024).renderImage();
+        assertSame(map, scene.getShadowMap(spot, 1024), "the shadow map must be kept by the scene");
+    }
+}